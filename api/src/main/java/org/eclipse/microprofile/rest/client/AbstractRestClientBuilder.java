@@ -20,7 +20,6 @@ import org.eclipse.microprofile.rest.client.spi.RestClientBuilderResolver;
 
 import java.security.AccessController;
 import java.security.PrivilegedAction;
-import java.util.ServiceLoader;
 
 public abstract class AbstractRestClientBuilder implements RestClientBuilder {
     public static RestClientBuilder newBuilder() {
@@ -28,7 +27,7 @@ public abstract class AbstractRestClientBuilder implements RestClientBuilder {
         AccessController.doPrivileged(new PrivilegedAction<Void>() {
                                           @Override
                                           public Void run() {
-                                              for (RestClientBuilderListener listener : ServiceLoader.load(RestClientBuilderListener.class)) {
+                                              for (RestClientBuilderListener listener : RestClientBuilderResolver.listeners()) {
                                                   listener.onNewBuilder(builder);
                                               }
                                               return null;
@@ -19,6 +19,7 @@ import org.eclipse.microprofile.rest.client.spi.RestClientBuilderResolver;
 
 import javax.ws.rs.core.Configurable;
 import java.net.URL;
+import java.util.concurrent.ExecutorService;
 
 /**
  * This is the main entry point for creating a Type Safe Rest Client.
@@ -53,6 +54,21 @@ public interface RestClientBuilder extends Configurable<RestClientBuilder> {
      */
     RestClientBuilder baseUrl(URL url);
 
+    /**
+     * Specifies the <code>ExecutorService</code> to use when invoking
+     * asynchronous Rest Client interface methods (methods returning a
+     * <code>CompletionStage</code>). By default, the executor service used is
+     * determined by the MP Rest Client implementation runtime.
+     *
+     * @param executor the executor service for the runtime to use when invoking
+     *                 asynchronous Rest Client interface methods - must be
+     *                 non-null.
+     * @return the current builder with the executorService set.
+     * @throws IllegalArgumentException if the <code>executor</code> parameter is
+     *                                  null.
+     */
+    RestClientBuilder executorService(ExecutorService executor);
+
     /**
      * Based on the configured RestClientBuilder, creates a new instance of the
      * given REST interface to invoke API calls against.
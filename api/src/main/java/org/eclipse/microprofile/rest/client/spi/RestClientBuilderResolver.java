@@ -19,7 +19,7 @@ import org.eclipse.microprofile.rest.client.RestClientBuilder;
 
 import java.security.AccessController;
 import java.security.PrivilegedAction;
-import java.util.ServiceLoader;
+import java.util.*;
 
 /**
  * Resolver for a {@link RestClientBuilder} implementation. A resolver should
@@ -41,6 +41,12 @@ public abstract class RestClientBuilderResolver {
 
     private static volatile RestClientBuilderResolver instance = null;
 
+    // The discovered resolver and listeners for each class loader, ServiceLoader scans the classpath each time.
+    private static final ClassLoaderCache<RestClientBuilderResolver> resolvers =
+            new ClassLoaderCache<>(resolver -> Collections.<Class<?>>singletonList(resolver.getClass()));
+    private static final ClassLoaderCache<List<RestClientBuilderListener>> listeners =
+            new ClassLoaderCache<>(RestClientBuilderResolver::classesOf);
+
     protected RestClientBuilderResolver() {
     }
 
@@ -57,45 +63,90 @@ public abstract class RestClientBuilderResolver {
 
     /**
      * Gets or creates a RestClientBuilderResolver instance. Only used
-     * internally from within {@link RestClientBuilder}
+     * internally from within {@link RestClientBuilder}. The discovered instance
+     * is kept for the context class loader, see {@link #clearCache(ClassLoader)}.
      *
      * @return an instance of RestClientBuilderResolver
      */
     // method copied and adapted from ConfigProviderResolver in microprofile-config
     public static RestClientBuilderResolver instance() {
-        if (instance == null) {
-            synchronized (RestClientBuilderResolver.class) {
-                if (instance != null) {
-                    return instance;
-                }
-                ClassLoader cl = AccessController.doPrivileged(new PrivilegedAction<ClassLoader>() {
-                    @Override
-                    public ClassLoader run() {
-                        return Thread.currentThread().getContextClassLoader();
-                    }
-                });
-                if (cl == null) {
-
-                    cl = AccessController.doPrivileged(new PrivilegedAction<ClassLoader>() {
-                        @Override
-                        public ClassLoader run() {
-                            return RestClientBuilderResolver.class.getClassLoader();
-                        }
-                    });
-                }
+        RestClientBuilderResolver result = instance;
+        if (result != null) {
+            return result;
+        }
+        result = resolvers.get(getClassLoader(), RestClientBuilderResolver::loadSpi);
+        if (result == null) {
+            throw new IllegalStateException(
+                    "No RestClientBuilderResolver implementation found!");
+        }
 
-                RestClientBuilderResolver newInstance = loadSpi(cl);
+        return result;
+    }
 
-                if (newInstance == null) {
-                    throw new IllegalStateException(
-                            "No RestClientBuilderResolver implementation found!");
+    /**
+     * Gets the {@link RestClientBuilderListener}s registered with the ServiceLoader mechanism for the context class
+     * loader. Only used internally from within {@link RestClientBuilder}. The instances are discovered once and shared
+     * by all builders, see {@link #clearCache(ClassLoader)}.
+     *
+     * @return the listeners, never null.
+     */
+    public static List<RestClientBuilderListener> listeners() {
+        return listeners.get(getClassLoader(), cl -> AccessController.doPrivileged(new PrivilegedAction<List<RestClientBuilderListener>>() {
+            @Override
+            public List<RestClientBuilderListener> run() {
+                List<RestClientBuilderListener> loaded = new ArrayList<>();
+                for (RestClientBuilderListener listener : ServiceLoader.load(RestClientBuilderListener.class, cl)) {
+                    loaded.add(listener);
                 }
-
-                instance = newInstance;
+                return Collections.unmodifiableList(loaded);
             }
+        }));
+    }
+
+    private static Collection<Class<?>> classesOf(List<RestClientBuilderListener> instances) {
+        List<Class<?>> result = new ArrayList<>();
+        for (RestClientBuilderListener instance : instances) {
+            result.add(instance.getClass());
         }
+        return result;
+    }
 
-        return instance;
+    /**
+     * Removes the resolver and listeners discovered for the class loader, they are discovered again on the next use.
+     * To be called when an application is redeployed (and its class loader discarded).
+     *
+     * @param classLoader The class loader of the application.
+     */
+    public static void clearCache(ClassLoader classLoader) {
+        resolvers.remove(classLoader);
+        listeners.remove(classLoader);
+    }
+
+    /**
+     * Removes the resolvers and listeners discovered for all class loaders.
+     */
+    public static void clearCache() {
+        resolvers.clear();
+        listeners.clear();
+    }
+
+    private static ClassLoader getClassLoader() {
+        ClassLoader cl = AccessController.doPrivileged(new PrivilegedAction<ClassLoader>() {
+            @Override
+            public ClassLoader run() {
+                return Thread.currentThread().getContextClassLoader();
+            }
+        });
+        if (cl == null) {
+
+            cl = AccessController.doPrivileged(new PrivilegedAction<ClassLoader>() {
+                @Override
+                public ClassLoader run() {
+                    return RestClientBuilderResolver.class.getClassLoader();
+                }
+            });
+        }
+        return cl;
     }
 
     // method copied and adapted from ConfigProviderResolver in microprofile-config
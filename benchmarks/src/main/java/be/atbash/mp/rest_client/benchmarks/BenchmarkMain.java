@@ -0,0 +1,49 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.benchmarks;
+
+import org.openjdk.jmh.Main;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Starts JMH with the same command line options. On Java 9 and later, the forked JVMs need access to
+ * {@code java.lang} to define the proxy classes created at runtime.
+ */
+public final class BenchmarkMain {
+
+    private static final String JVM_ARGS_APPEND = "-jvmArgsAppend";
+    private static final String ADD_OPENS = "--add-opens=java.base/java.lang=ALL-UNNAMED";
+
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> arguments = new ArrayList<>(Arrays.asList(args));
+        if (!System.getProperty("java.specification.version").startsWith("1.")) {
+            int index = arguments.indexOf(JVM_ARGS_APPEND);
+            if (index != -1 && index + 1 < arguments.size()) {
+                arguments.set(index + 1, arguments.get(index + 1) + ' ' + ADD_OPENS);
+            } else {
+                arguments.add(JVM_ARGS_APPEND);
+                arguments.add(ADD_OPENS);
+            }
+        }
+        Main.main(arguments.toArray(new String[arguments.size()]));
+    }
+}
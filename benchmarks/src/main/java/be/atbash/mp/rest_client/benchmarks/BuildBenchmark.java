@@ -0,0 +1,90 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.benchmarks;
+
+import be.atbash.mp.rest_client.demo.client.se.HelloService;
+import be.atbash.mp.rest_client.demo.client.se.OtherService;
+import org.eclipse.microprofile.rest.client.AbstractRestClientBuilder;
+import org.eclipse.microprofile.rest.client.RestClientBuilder;
+import org.eclipse.microprofile.rest.client.spi.RestClientBuilderListener;
+import org.eclipse.microprofile.rest.client.spi.RestClientBuilderResolver;
+import org.openjdk.jmh.annotations.*;
+
+import java.net.URL;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of creating a rest client in Java SE: {@code RestClientBuilder.newBuilder()} (discovery of the resolver,
+ * listeners and JAX-RS {@code ClientBuilder}) and {@code build()} with a proxy created at runtime
+ * ({@code HelloService}) or the implementation generated by the annotation processor ({@code OtherService}).
+ * The {@code discovered} benchmarks measure only the lookup of the resolver and listeners discovered before, and with
+ * the {@code Concurrent} variants whether it contends between threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BuildBenchmark {
+
+    @Param({"jaxrs", "nio"})
+    private String transport;
+
+    private URL baseURL;
+
+    @Setup
+    public void setup() throws Exception {
+        Clients.useJavaSE();
+        // No calls are made, the server isn't needed.
+        baseURL = new URL("http://localhost:8080/server/data");
+    }
+
+    @Benchmark
+    public RestClientBuilder newBuilder() {
+        return AbstractRestClientBuilder.newBuilder();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public RestClientBuilder newBuilderConcurrent() {
+        return AbstractRestClientBuilder.newBuilder();
+    }
+
+    @Benchmark
+    public List<RestClientBuilderListener> discovered() {
+        RestClientBuilderResolver.instance();
+        return RestClientBuilderResolver.listeners();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public List<RestClientBuilderListener> discoveredConcurrent() {
+        RestClientBuilderResolver.instance();
+        return RestClientBuilderResolver.listeners();
+    }
+
+    @Benchmark
+    public HelloService buildProxy() {
+        return Clients.build(HelloService.class, baseURL, transport);
+    }
+
+    @Benchmark
+    public OtherService buildGenerated() {
+        return Clients.build(OtherService.class, baseURL, transport);
+    }
+}
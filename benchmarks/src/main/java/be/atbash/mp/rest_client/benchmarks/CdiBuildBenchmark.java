@@ -0,0 +1,74 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.benchmarks;
+
+import be.atbash.mp.rest_client.demo.client.se.HelloService;
+import be.atbash.mp.rest_client.demo.client.se.OtherService;
+import org.apache.deltaspike.core.api.provider.BeanManagerProvider;
+import org.apache.deltaspike.proxy.spi.invocation.DeltaSpikeProxyInvocationHandler;
+import org.jboss.weld.environment.se.Weld;
+import org.jboss.weld.environment.se.WeldContainer;
+import org.openjdk.jmh.annotations.*;
+
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@code RestClientBuilder.build()} within a CDI container (Weld SE), where the proxy of the rest client is
+ * created with DeltaSpike so that interceptors are applied.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CdiBuildBenchmark {
+
+    @Param({"jaxrs", "nio"})
+    private String transport;
+
+    private URL baseURL;
+
+    private WeldContainer container;
+
+    @Setup
+    public void setup() throws Exception {
+        System.setProperty(Clients.CDI_CHECK, "true");
+        container = new Weld()
+                .disableDiscovery()
+                .addExtension(new BeanManagerProvider())
+                // DeltaSpikeProxyInvocationHandler and the (package private) interceptor lookup it uses.
+                .addPackage(false, DeltaSpikeProxyInvocationHandler.class)
+                .initialize();
+        baseURL = new URL("http://localhost:8080/server/data");
+    }
+
+    @TearDown
+    public void tearDown() {
+        container.shutdown();
+    }
+
+    @Benchmark
+    public HelloService buildHelloService() {
+        return Clients.build(HelloService.class, baseURL, transport);
+    }
+
+    @Benchmark
+    public OtherService buildOtherService() {
+        return Clients.build(OtherService.class, baseURL, transport);
+    }
+}
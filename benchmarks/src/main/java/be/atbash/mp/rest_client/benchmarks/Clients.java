@@ -0,0 +1,110 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.benchmarks;
+
+import be.atbash.mp.rest_client.RestClientInvoker;
+import be.atbash.mp.rest_client.RestClientProperties;
+import be.atbash.mp.rest_client.proxy.BasicProxyInvocationHandler;
+import be.atbash.mp.rest_client.proxy.BasicRestClientProxyFactory;
+import be.atbash.mp.rest_client.spec.RestClientInvokers;
+import org.apache.deltaspike.proxy.spi.DeltaSpikeProxy;
+import org.eclipse.microprofile.rest.client.AbstractRestClientBuilder;
+import org.eclipse.microprofile.rest.client.RestClientBuilder;
+import org.eclipse.microprofile.rest.client.spi.RestClientBuilderListener;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.util.Collections;
+import java.util.Enumeration;
+
+/**
+ * Creates the rest clients for the benchmarks.
+ * <p>
+ * The {@code RestClientBuilderListener} of the client-se example registers a filter which prints every request, the
+ * builders are created with a context class loader which hides that listener.
+ */
+public final class Clients {
+
+    /**
+     * Property which determines if {@code RestClientBuilder.build()} uses CDI, the container classes are on the
+     * classpath of the benchmarks.
+     */
+    public static final String CDI_CHECK = "atbash.utils.cdi.check";
+
+    private static final String LISTENER_SERVICE = "META-INF/services/" + RestClientBuilderListener.class.getName();
+
+    private static final ClassLoader WITHOUT_LISTENERS = new ClassLoader(Clients.class.getClassLoader()) {
+        @Override
+        public Enumeration<URL> getResources(String name) throws IOException {
+            if (LISTENER_SERVICE.equals(name)) {
+                return Collections.emptyEnumeration();
+            }
+            return super.getResources(name);
+        }
+    };
+
+    private Clients() {
+    }
+
+    /**
+     * Builds outside of CDI, within the JMH fork of the benchmark.
+     */
+    public static void useJavaSE() {
+        System.setProperty(CDI_CHECK, "false");
+    }
+
+    public static RestClientBuilder newBuilder(URL baseURL, String transport) {
+        Thread thread = Thread.currentThread();
+        ClassLoader current = thread.getContextClassLoader();
+        thread.setContextClassLoader(WITHOUT_LISTENERS);
+        try {
+            return AbstractRestClientBuilder.newBuilder()
+                    .baseUrl(baseURL)
+                    .property(RestClientProperties.TRANSPORT, transport);
+        } finally {
+            thread.setContextClassLoader(current);
+        }
+    }
+
+    /**
+     * The rest client as the application uses it, the generated implementation when the interface has one.
+     */
+    public static <T> T build(Class<T> restClientInterface, URL baseURL, String transport) {
+        return newBuilder(baseURL, transport).build(restClientInterface);
+    }
+
+    public static RestClientInvoker buildInvoker(Class<?> restClientInterface, URL baseURL, String transport) {
+        return RestClientInvokers.build(newBuilder(baseURL, transport), restClientInterface);
+    }
+
+    /**
+     * The DeltaSpike proxy which {@code build()} creates at runtime in Java SE when the interface has no generated
+     * implementation, also for an interface which has one.
+     */
+    public static <T> T buildProxy(Class<T> restClientInterface, URL baseURL, String transport) throws ReflectiveOperationException {
+        RestClientInvoker invoker = buildInvoker(restClientInterface, baseURL, transport);
+        BasicRestClientProxyFactory proxyFactory = BasicRestClientProxyFactory.getInstance();
+        Method[] delegateMethods = proxyFactory.getDelegateMethods(restClientInterface);
+
+        T result = proxyFactory.getProxyClass(restClientInterface).newInstance();
+        DeltaSpikeProxy deltaSpikeProxy = (DeltaSpikeProxy) result;
+        deltaSpikeProxy.setInvocationHandler(new BasicProxyInvocationHandler());
+        deltaSpikeProxy.setDelegateMethods(delegateMethods);
+        deltaSpikeProxy.setDelegateInvocationHandler(invoker);
+        return result;
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.benchmarks;
+
+import org.eclipse.microprofile.rest.client.ext.AbstractResponseExceptionMapper;
+import org.openjdk.jmh.annotations.*;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Response;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a call which fails (status 500) and is converted to an exception by the default
+ * {@code ResponseExceptionMapper} or by a mapper registered on the rest client, compared to a successful call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExceptionMappingBenchmark {
+
+    @Path("/error")
+    public interface ErrorService {
+
+        @GET
+        @Path("{status}")
+        String status(@PathParam("status") int status) throws ServiceException;
+    }
+
+    public static class ServiceException extends Exception {
+
+        public ServiceException(int status) {
+            super("Status " + status);
+        }
+    }
+
+    public static class ServiceExceptionMapper extends AbstractResponseExceptionMapper<ServiceException> {
+
+        @Override
+        public ServiceException toThrowable(Response response) {
+            return new ServiceException(response.getStatus());
+        }
+    }
+
+    @Param({"jaxrs", "nio"})
+    private String transport;
+
+    private StubServer server;
+
+    private ErrorService defaultMapper;
+    private ErrorService customMapper;
+
+    @Setup
+    public void setup() throws Exception {
+        Clients.useJavaSE();
+        server = StubServer.start();
+
+        defaultMapper = Clients.build(ErrorService.class, server.getBaseURL(), transport);
+        customMapper = Clients.newBuilder(server.getBaseURL(), transport)
+                .register(ServiceExceptionMapper.class)
+                .build(ErrorService.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Benchmark
+    public Object success() throws ServiceException {
+        return defaultMapper.status(200);
+    }
+
+    @Benchmark
+    public Object defaultMapper() throws ServiceException {
+        try {
+            return defaultMapper.status(500);
+        } catch (WebApplicationException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object customMapper() {
+        try {
+            return customMapper.status(500);
+        } catch (ServiceException e) {
+            return e;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.benchmarks;
+
+import be.atbash.mp.rest_client.RestClientInvoker;
+import be.atbash.mp.rest_client.demo.client.se.HelloService;
+import be.atbash.mp.rest_client.demo.client.se.OtherService;
+import org.openjdk.jmh.annotations.*;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.WebTarget;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overhead of a call through the rest client compared to the same call with a JAX-RS {@code Client}, against the
+ * in-process {@link StubServer}. Run with {@code -prof gc} for the bytes allocated by each call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InvocationBenchmark {
+
+    private static final String PARAMETER = "value";
+
+    @Param({"jaxrs", "nio"})
+    private String transport;
+
+    private StubServer server;
+
+    private OtherService generated;
+    private OtherService proxy;
+    private RestClientInvoker invoker;
+    private Method doSomething;
+    private HelloService helloService;
+
+    private Client client;
+    private WebTarget target;
+
+    @Setup
+    public void setup() throws Exception {
+        Clients.useJavaSE();
+        server = StubServer.start();
+
+        generated = Clients.build(OtherService.class, server.getBaseURL(), transport);
+        proxy = Clients.buildProxy(OtherService.class, server.getBaseURL(), transport);
+        invoker = Clients.buildInvoker(OtherService.class, server.getBaseURL(), transport);
+        doSomething = OtherService.class.getMethod("doSomething", String.class);
+        helloService = Clients.build(HelloService.class, server.getBaseURL(), transport);
+
+        client = ClientBuilder.newClient();
+        target = client.target(server.getBaseURL().toURI()).path("other/{parameter}");
+    }
+
+    @TearDown
+    public void tearDown() {
+        invoker.close();
+        client.close();
+        server.stop();
+    }
+
+    /**
+     * The implementation generated by the annotation processor.
+     */
+    @Benchmark
+    public String generated() {
+        return generated.doSomething(PARAMETER);
+    }
+
+    /**
+     * The DeltaSpike proxy created at runtime, like the interfaces without generated implementation.
+     */
+    @Benchmark
+    public String proxy() {
+        return proxy.doSomething(PARAMETER);
+    }
+
+    /**
+     * The invoker without proxy in front of it, like the CDI beans use it.
+     */
+    @Benchmark
+    public Object invoker() throws Throwable {
+        return invoker.invoke(null, doSomething, new Object[]{PARAMETER});
+    }
+
+    /**
+     * Method without parameters.
+     */
+    @Benchmark
+    public String noParameters() {
+        return helloService.sayHello();
+    }
+
+    /**
+     * The same call as {@link #generated()} with the JAX-RS client, independent of the transport parameter.
+     */
+    @Benchmark
+    public String jaxrsClient() {
+        return target.resolveTemplate("parameter", PARAMETER).request().get(String.class);
+    }
+}
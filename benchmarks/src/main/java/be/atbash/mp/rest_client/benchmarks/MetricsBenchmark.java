@@ -0,0 +1,109 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.benchmarks;
+
+import be.atbash.mp.rest_client.demo.client.se.OtherService;
+import be.atbash.mp.rest_client.metrics.CallPhase;
+import be.atbash.mp.rest_client.metrics.CallTiming;
+import be.atbash.mp.rest_client.metrics.LatencyHistogram;
+import be.atbash.mp.rest_client.metrics.MethodMetrics;
+import be.atbash.mp.rest_client.metrics.RestClientMetrics;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of recording the metrics of a call, on one thread and on threads which record the same method concurrently.
+ * Compare with {@code InvocationBenchmark} to relate it to the duration of a call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MetricsBenchmark {
+
+    private MethodMetrics metrics;
+    private Method phasesMethod;
+    private MethodMetrics phasesMetrics;
+
+    @Setup
+    public void setup() throws Exception {
+        RestClientMetrics.getInstance().setEnabled(true);
+        metrics = RestClientMetrics.getInstance().forMethod(OtherService.class.getMethod("doSomething", String.class));
+        RestClientMetrics.getInstance().setPhasesEnabled(true);
+        phasesMethod = OtherService.class.getMethod("doSomethingAsync", String.class);
+        phasesMetrics = RestClientMetrics.getInstance().forMethod(phasesMethod);
+        RestClientMetrics.getInstance().setPhasesEnabled(false);
+    }
+
+    @TearDown
+    public void tearDown() {
+        RestClientMetrics.getInstance().clear();
+    }
+
+    /**
+     * What the invoker records for a call.
+     */
+    @Benchmark
+    public void record() {
+        long start = metrics.start();
+        metrics.response(200, 42);
+        metrics.end(start, null);
+    }
+
+    /**
+     * The two clock readings of {@link #record()}, their cost depends on the clock source of the OS.
+     */
+    @Benchmark
+    public long clock() {
+        return System.nanoTime() - System.nanoTime();
+    }
+
+    /**
+     * What the invoker and transport record for a call when the phases are aggregated.
+     */
+    @Benchmark
+    public void recordPhases() {
+        long start = phasesMetrics.start();
+        CallTiming timing = RestClientMetrics.getInstance().startTiming(phasesMethod, phasesMetrics, Collections.emptyList());
+        timing.mark(CallPhase.URL);
+        timing.mark(CallPhase.REQUEST);
+        timing.mark(CallPhase.CONNECTION);
+        timing.mark(CallPhase.NETWORK);
+        phasesMetrics.response(200, 42);
+        phasesMetrics.end(start, null);
+        timing.end(null);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void recordConcurrent() {
+        record();
+    }
+
+    /**
+     * Reading the metrics, like a metrics system does periodically.
+     */
+    @Benchmark
+    public long snapshot() {
+        LatencyHistogram.Snapshot snapshot = metrics.getLatency();
+        return snapshot.getValueAtPercentile(99) + metrics.getCalls();
+    }
+}
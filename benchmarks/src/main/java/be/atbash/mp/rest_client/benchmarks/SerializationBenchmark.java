@@ -0,0 +1,103 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.benchmarks;
+
+import be.atbash.mp.rest_client.demo.client.se.OtherService;
+import org.openjdk.jmh.annotations.*;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of reading and writing JSON entities ({@code OtherService.Data} items) of increasing size, and of streaming
+ * the response without reading it into objects.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Path("/items")
+    public interface ItemService {
+
+        @GET
+        @Path("{count}")
+        List<OtherService.Data> getItems(@PathParam("count") int count);
+
+        @GET
+        @Path("{count}")
+        InputStream getItemsStream(@PathParam("count") int count);
+
+        @POST
+        String sendItems(List<OtherService.Data> items);
+    }
+
+    @Param({"jaxrs", "nio"})
+    private String transport;
+
+    @Param({"1", "100", "1000"})
+    private int count;
+
+    private StubServer server;
+    private ItemService itemService;
+    private List<OtherService.Data> items;
+    private byte[] buffer = new byte[8192];
+
+    @Setup
+    public void setup() throws Exception {
+        Clients.useJavaSE();
+        server = StubServer.start();
+        itemService = Clients.build(ItemService.class, server.getBaseURL(), transport);
+        items = Arrays.asList(StubServer.createData(count));
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Benchmark
+    public List<OtherService.Data> read() {
+        return itemService.getItems(count);
+    }
+
+    @Benchmark
+    public long stream() throws IOException {
+        long result = 0;
+        try (InputStream in = itemService.getItemsStream(count)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                result += read;
+            }
+        }
+        return result;
+    }
+
+    @Benchmark
+    public String write() {
+        return itemService.sendItems(items);
+    }
+}
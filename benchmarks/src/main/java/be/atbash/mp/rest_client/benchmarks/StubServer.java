@@ -0,0 +1,209 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.benchmarks;
+
+import be.atbash.mp.rest_client.demo.client.se.OtherService;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * In-process HTTP server on the loopback interface with the endpoints of the example server, the responses are
+ * prepared upfront so that the benchmarks measure the client.
+ * <ul>
+ * <li>GET /hello : {@code HelloService}</li>
+ * <li>/other/... : {@code OtherService}</li>
+ * <li>GET /error/{status} : responds with the status</li>
+ * <li>GET /items/{count} : JSON array with count {@code OtherService.Data} items, POST /items consumes the items</li>
+ * </ul>
+ * A server started with {@link #start(long, long, double)} delays the responses and fails a part of the requests
+ * (status 500), like a real server.
+ */
+public final class StubServer {
+
+    private static final String TEXT = "text/plain";
+    private static final String JSON = "application/json";
+
+    private final HttpServer server;
+    private final ExecutorService executorService;
+    private final Map<Integer, byte[]> items = new ConcurrentHashMap<>();
+
+    private final long minDelay;
+    private final long maxDelay;
+    private final double errorRate;
+
+    private StubServer(HttpServer server, long minDelay, long maxDelay, double errorRate) {
+        this.server = server;
+        this.minDelay = minDelay;
+        this.maxDelay = maxDelay;
+        this.errorRate = errorRate;
+        executorService = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "stub-server");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executorService);
+
+        createContext("/hello", exchange -> respond(exchange, 200, TEXT, bytes("Hello")));
+        createContext("/other", this::other);
+        createContext("/error", exchange -> respond(exchange, Integer.parseInt(lastSegment(exchange)), TEXT, new byte[0]));
+        createContext("/items", this::items);
+    }
+
+    /**
+     * Server which responds immediately and without errors.
+     */
+    public static StubServer start() throws IOException {
+        return start(0, 0, 0);
+    }
+
+    /**
+     * @param minDelay  Minimum delay of a response, in milliseconds.
+     * @param maxDelay  Maximum delay of a response, in milliseconds. The delay is uniformly distributed between both.
+     * @param errorRate Part of the requests (between 0 and 1) which get status 500.
+     */
+    public static StubServer start(long minDelay, long maxDelay, double errorRate) throws IOException {
+        // Without TCP_NODELAY, each response waits for the delayed ACK of the client (about 40 ms).
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        StubServer result = new StubServer(HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0),
+                minDelay, maxDelay, errorRate);
+        result.server.start();
+        return result;
+    }
+
+    public URL getBaseURL() throws IOException {
+        return new URL("http", server.getAddress().getHostString(), server.getAddress().getPort(), "/");
+    }
+
+    public void stop() {
+        server.stop(0);
+        executorService.shutdownNow();
+    }
+
+    private void createContext(String path, HttpHandler handler) {
+        if (maxDelay == 0 && errorRate == 0) {
+            server.createContext(path, handler);
+            return;
+        }
+        server.createContext(path, exchange -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long delay = minDelay == maxDelay ? minDelay : random.nextLong(minDelay, maxDelay + 1);
+            if (delay > 0) {
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (errorRate > 0 && random.nextDouble() < errorRate) {
+                consume(exchange);
+                respond(exchange, 500, TEXT, new byte[0]);
+            } else {
+                handler.handle(exchange);
+            }
+        });
+    }
+
+    private void other(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String method = exchange.getRequestMethod();
+        if ("POST".equals(method)) {
+            consume(exchange);
+            respond(exchange, 200, TEXT, bytes("received"));
+        } else if ("DELETE".equals(method)) {
+            respond(exchange, 200, TEXT, bytes("deleted"));
+        } else if (path.startsWith("/other/json/")) {
+            respond(exchange, 200, JSON, bytes("{\"value\":\"" + lastSegment(exchange) + "\"}"));
+        } else {
+            respond(exchange, 200, TEXT, bytes(lastSegment(exchange)));
+        }
+    }
+
+    private void items(HttpExchange exchange) throws IOException {
+        if ("POST".equals(exchange.getRequestMethod())) {
+            consume(exchange);
+            respond(exchange, 200, TEXT, bytes("received"));
+        } else {
+            int count = Integer.parseInt(lastSegment(exchange));
+            respond(exchange, 200, JSON, items.computeIfAbsent(count, StubServer::createItems));
+        }
+    }
+
+    /**
+     * JSON array with the {@code OtherService.Data} items, like the server would send them.
+     */
+    private static byte[] createItems(int count) {
+        StringBuilder result = new StringBuilder("[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                result.append(',');
+            }
+            result.append("{\"value\":\"item ").append(i).append("\"}");
+        }
+        return bytes(result.append(']').toString());
+    }
+
+    /**
+     * Items with the same content as {@code GET /items/{count}}, to send them to the server.
+     */
+    public static OtherService.Data[] createData(int count) {
+        OtherService.Data[] result = new OtherService.Data[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = new OtherService.Data();
+            result[i].setValue("item " + i);
+        }
+        return result;
+    }
+
+    private static String lastSegment(HttpExchange exchange) {
+        String path = exchange.getRequestURI().getPath();
+        return path.substring(path.lastIndexOf('/') + 1);
+    }
+
+    private static void consume(HttpExchange exchange) throws IOException {
+        byte[] buffer = new byte[8192];
+        try (InputStream in = exchange.getRequestBody()) {
+            while (in.read(buffer) != -1) {
+                // Request body isn't used.
+            }
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
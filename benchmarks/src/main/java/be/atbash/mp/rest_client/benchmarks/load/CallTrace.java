@@ -0,0 +1,203 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.benchmarks.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Recorded calls of a rest client interface, one call on each line:
+ * <pre>
+ * &lt;offset in microseconds since the first call&gt; TAB &lt;method name&gt; TAB &lt;arguments as JSON array&gt;
+ * </pre>
+ * Lines starting with {@code #} are ignored. A trace is recorded with {@link #record(Class, Object, Writer)} around the
+ * rest client of the application, or written by any other tool in this format.
+ */
+public final class CallTrace {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final List<Call> calls;
+
+    private CallTrace(List<Call> calls) {
+        this.calls = Collections.unmodifiableList(calls);
+    }
+
+    public List<Call> getCalls() {
+        return calls;
+    }
+
+    /**
+     * Trace where the same call is repeated, for a run at a fixed rate.
+     */
+    public static CallTrace of(Call call) {
+        return new CallTrace(Collections.singletonList(call));
+    }
+
+    /**
+     * Reads the trace for the methods of the rest client interface. The method is determined by name and number of
+     * arguments, the arguments are converted to the parameter types (from JSON).
+     */
+    public static CallTrace read(Path file, Class<?> restClientInterface) throws IOException {
+        List<Call> result = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.trim().isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] parts = line.split("\t", 3);
+                if (parts.length != 3) {
+                    throw new IOException(String.format("Line %s of %s has not 3 tab separated values", lineNumber, file));
+                }
+                try {
+                    result.add(call(restClientInterface, Long.parseLong(parts[0]) * 1000, parts[1], parts[2]));
+                } catch (IllegalArgumentException e) {
+                    throw new IOException(String.format("Line %s of %s : %s", lineNumber, file, e.getMessage()), e);
+                }
+            }
+        }
+        return new CallTrace(result);
+    }
+
+    /**
+     * A call of a method of the rest client interface.
+     *
+     * @param offset    Time of the call since the first call, in nanoseconds.
+     * @param name      Name of the method, which is determined by name and number of arguments.
+     * @param arguments JSON array with the arguments, converted to the parameter types.
+     */
+    public static Call call(Class<?> restClientInterface, long offset, String name, String arguments) throws IOException {
+        JsonNode values = MAPPER.readTree(arguments);
+        Method method = findMethod(restClientInterface, name, values.size());
+        if (method == null) {
+            throw new IllegalArgumentException(String.format("No method %s with %s parameters in %s", name, values.size(), restClientInterface.getName()));
+        }
+        return new Call(offset, method, toArguments(method, values));
+    }
+
+    private static Method findMethod(Class<?> restClientInterface, String name, int parameterCount) {
+        for (Method method : restClientInterface.getMethods()) {
+            if (method.getName().equals(name) && method.getParameterTypes().length == parameterCount) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+    private static Object[] toArguments(Method method, JsonNode arguments) throws IOException {
+        Type[] types = method.getGenericParameterTypes();
+        Object[] result = new Object[types.length];
+        for (int i = 0; i < types.length; i++) {
+            result[i] = MAPPER.readValue(MAPPER.treeAsTokens(arguments.get(i)), MAPPER.getTypeFactory().constructType(types[i]));
+        }
+        return result;
+    }
+
+    /**
+     * Wraps the rest client so that each call is written to the trace. The calls are still executed by the rest
+     * client.
+     */
+    public static <T> T record(Class<T> restClientInterface, T restClient, Writer trace) {
+        Recorder recorder = new Recorder(restClient, trace);
+        return restClientInterface.cast(Proxy.newProxyInstance(restClientInterface.getClassLoader(), new Class<?>[]{restClientInterface},
+                (proxy, method, args) -> recorder.invoke(method, args)));
+    }
+
+    private static final class Recorder {
+
+        private final Object restClient;
+        private final Writer trace;
+        private long start = -1;
+
+        Recorder(Object restClient, Writer trace) {
+            this.restClient = restClient;
+            this.trace = trace;
+        }
+
+        Object invoke(Method method, Object[] args) throws Throwable {
+            if (method.getDeclaringClass() != Object.class) {
+                write(method, args);
+            }
+            try {
+                return method.invoke(restClient, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        private void write(Method method, Object[] args) throws IOException {
+            String arguments = MAPPER.writeValueAsString(args == null ? new Object[0] : args);
+            synchronized (this) {
+                long now = System.nanoTime();
+                if (start == -1) {
+                    start = now;
+                }
+                trace.write((now - start) / 1000 + "\t" + method.getName() + '\t' + arguments + '\n');
+                trace.flush();
+            }
+        }
+    }
+
+    /**
+     * A call of the trace.
+     */
+    public static final class Call {
+
+        private final long offset;
+        private final Method method;
+        private final Object[] arguments;
+
+        /**
+         * @param offset    Time of the call since the first call, in nanoseconds.
+         * @param method    The method of the rest client interface.
+         * @param arguments The arguments.
+         */
+        public Call(long offset, Method method, Object[] arguments) {
+            this.offset = offset;
+            this.method = method;
+            this.arguments = arguments;
+        }
+
+        public long getOffset() {
+            return offset;
+        }
+
+        public Method getMethod() {
+            return method;
+        }
+
+        public Object[] getArguments() {
+            return arguments;
+        }
+    }
+}
@@ -0,0 +1,365 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.benchmarks.load;
+
+import be.atbash.mp.rest_client.RestClientProperties;
+import be.atbash.mp.rest_client.benchmarks.Clients;
+import be.atbash.mp.rest_client.benchmarks.StubServer;
+import be.atbash.mp.rest_client.metrics.CallPhase;
+import be.atbash.mp.rest_client.metrics.LatencyHistogram;
+import be.atbash.mp.rest_client.metrics.MethodMetrics;
+import be.atbash.mp.rest_client.metrics.RestClientMetrics;
+import be.atbash.mp.rest_client.transport.Transports;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.eclipse.microprofile.rest.client.RestClientBuilder;
+
+import javax.ws.rs.WebApplicationException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
+import java.net.URL;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Calls a rest client interface at a fixed rate, or with the timing of a recorded {@link CallTrace}, and reports the
+ * throughput and latency. The latency of a call is measured from the moment it should have been sent according to the
+ * schedule, so that a slow server (or client) doesn't hide the calls which had to wait (no coordinated omission).
+ * <p>
+ * Without a {@code url}, the calls go to an in-process {@link StubServer} which can delay the responses and return
+ * errors. Options of the transport (like {@code atbash.rest.client.nio.maxConnectionsPerAuthority}) are defined as
+ * system properties.
+ */
+public final class LoadHarness {
+
+    private static final String USAGE = String.join("\n",
+            "Options (name=value):",
+            "  interface       Rest client interface (default OtherService of the client-se example)",
+            "  call, args      Method and JSON array with its arguments for a fixed rate (default doSomething, [\"load\"])",
+            "  trace           File with the recorded calls, replayed with their timing unless a rate is given",
+            "  speed           Replay speed of the trace (default 1.0)",
+            "  rate            Calls per second",
+            "  duration        Measured seconds (default 30)",
+            "  warmup          Seconds before the measurement (default 5)",
+            "  transport       jaxrs (default) or nio",
+            "  virtualThreads  true to execute the asynchronous calls on virtual threads",
+            "  threads         Threads for the calls of the synchronous methods (default 200)",
+            "  url             Base URL of the server, in-process stub server when not specified",
+            "  delay           Response delay of the stub server in ms, like 5 or 5-50 (default 0)",
+            "  errors          Part of the calls which fail on the stub server (status 500), like 0.01 (default 0)",
+            "  histogram       File for the latency distribution (HdrHistogram percentile format, ms)",
+            "  phases          true to report the duration of the phases of the calls (URL, request, connection, network, readEntity)");
+
+    // Latencies are recorded in microseconds.
+    private static final long HIGHEST_LATENCY = TimeUnit.HOURS.toMicros(1);
+    private static final long REPORT_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+
+    private final Object restClient;
+    private final List<CallTrace.Call> calls;
+    private final ExecutorService callers;
+
+    // All calls for the report of each second, and the calls of the measurement (without warmup).
+    private final Recorder intervalRecorder = new Recorder(HIGHEST_LATENCY, 3);
+    private final Recorder recorder = new Recorder(HIGHEST_LATENCY, 3);
+    private final AtomicLong outstanding = new AtomicLong();
+    private final LongAdder completed = new LongAdder();
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+    private volatile long measurementStart;
+
+    private LoadHarness(Object restClient, CallTrace trace, int threads) {
+        this.restClient = restClient;
+        this.calls = trace.getCalls();
+        callers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "load-caller");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 1 && ("-h".equals(args[0]) || "help".equals(args[0]))) {
+            System.out.println(USAGE);
+            return;
+        }
+        LoadOptions options = new LoadOptions(args);
+        Clients.useJavaSE();
+
+        StubServer server = null;
+        URL baseURL;
+        String url = options.get("url", null);
+        if (url == null) {
+            long[] delay = options.getRange("delay");
+            server = StubServer.start(delay[0], delay[1], options.getDouble("errors", 0));
+            baseURL = server.getBaseURL();
+        } else {
+            baseURL = new URL(url);
+        }
+
+        boolean phases = options.getBoolean("phases");
+        if (phases) {
+            RestClientMetrics.getInstance().setEnabled(true);
+            RestClientMetrics.getInstance().setPhasesEnabled(true);
+        }
+
+        Class<?> restClientInterface = Class.forName(options.get("interface", "be.atbash.mp.rest_client.demo.client.se.OtherService"));
+        RestClientBuilder builder = Clients.newBuilder(baseURL, options.get("transport", "jaxrs"));
+        if (options.getBoolean("virtualThreads")) {
+            builder.property(RestClientProperties.VIRTUAL_THREADS, true);
+        }
+        Object restClient = builder.build(restClientInterface);
+
+        String traceFile = options.get("trace", null);
+        CallTrace trace = traceFile == null
+                ? CallTrace.of(CallTrace.call(restClientInterface, 0, options.get("call", "doSomething"), options.get("args", "[\"load\"]")))
+                : CallTrace.read(Paths.get(traceFile), restClientInterface);
+
+        int rate = options.getInt("rate", 0);
+        if (rate <= 0 && trace.getCalls().size() < 2) {
+            System.out.println("A rate is required without a trace of multiple calls\n" + USAGE);
+            return;
+        }
+
+        LoadHarness harness = new LoadHarness(restClient, trace, options.getInt("threads", 200));
+        Schedule schedule = rate > 0 ? new FixedRate(rate) : new Replay(trace, options.getDouble("speed", 1.0));
+        Histogram histogram = harness.run(schedule, TimeUnit.SECONDS.toNanos(options.getInt("warmup", 5)),
+                TimeUnit.SECONDS.toNanos(options.getInt("duration", 30)));
+
+        if (phases) {
+            printPhases();
+        }
+
+        String histogramFile = options.get("histogram", null);
+        if (histogramFile != null) {
+            try (PrintStream out = new PrintStream(new FileOutputStream(histogramFile))) {
+                histogram.outputPercentileDistribution(out, 1000.0);
+            }
+        }
+
+        Transports.closeAll();
+        if (server != null) {
+            server.stop();
+        }
+        System.exit(0);
+    }
+
+    private Histogram run(Schedule schedule, long warmup, long duration) throws InterruptedException {
+        long start = System.nanoTime();
+        measurementStart = start + warmup;
+        long end = measurementStart + duration;
+        long nextReport = start + REPORT_INTERVAL;
+        long sentInInterval = 0;
+        long sent = 0;
+
+        for (long i = 0; ; i++) {
+            long intended = start + schedule.getOffset(i);
+            if (intended >= end) {
+                break;
+            }
+            long now;
+            while ((now = System.nanoTime()) < intended) {
+                if (now >= nextReport) {
+                    break;
+                }
+                LockSupport.parkNanos(intended - now);
+            }
+            if (now >= nextReport) {
+                report(now - start, sentInInterval, now >= measurementStart);
+                sentInInterval = 0;
+                nextReport += REPORT_INTERVAL;
+                i--;
+                continue;
+            }
+            dispatch(calls.get((int) (i % calls.size())), intended);
+            sentInInterval++;
+            if (intended >= measurementStart) {
+                sent++;
+            }
+        }
+
+        // Calls still running are part of the measurement.
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (outstanding.get() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        Histogram total = recorder.getIntervalHistogram();
+
+        printSummary(duration, sent, total);
+        return total;
+    }
+
+    private void dispatch(CallTrace.Call call, long intended) {
+        outstanding.incrementAndGet();
+        if (CompletionStage.class.isAssignableFrom(call.getMethod().getReturnType())) {
+            // Doesn't block, the call is made from the thread of the schedule.
+            try {
+                ((CompletionStage<?>) invoke(call)).whenComplete((result, throwable) -> completed(intended, throwable));
+            } catch (Throwable t) {
+                completed(intended, t);
+            }
+        } else {
+            callers.execute(() -> {
+                Throwable problem = null;
+                try {
+                    invoke(call);
+                } catch (Throwable t) {
+                    problem = t;
+                }
+                completed(intended, problem);
+            });
+        }
+    }
+
+    private Object invoke(CallTrace.Call call) throws Throwable {
+        try {
+            return call.getMethod().invoke(restClient, call.getArguments());
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void completed(long intended, Throwable throwable) {
+        long latency = Math.min(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intended), HIGHEST_LATENCY);
+        outstanding.decrementAndGet();
+        intervalRecorder.recordValue(latency);
+        if (intended < measurementStart) {
+            return;
+        }
+        recorder.recordValue(latency);
+        if (throwable == null) {
+            completed.increment();
+        } else {
+            errors.computeIfAbsent(describe(throwable), key -> new LongAdder()).increment();
+        }
+    }
+
+    private static String describe(Throwable throwable) {
+        Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+        if (cause instanceof WebApplicationException) {
+            return "status " + ((WebApplicationException) cause).getResponse().getStatus();
+        }
+        return cause.getClass().getName();
+    }
+
+    private void report(long elapsed, long sent, boolean measuring) {
+        Histogram interval = intervalRecorder.getIntervalHistogram();
+        System.out.printf("[%4ds]%s sent %6d/s, latency p50 %8.2f ms, p99 %8.2f ms, max %8.2f ms, outstanding %d%n",
+                TimeUnit.NANOSECONDS.toSeconds(elapsed), measuring ? "" : " warmup", sent,
+                interval.getValueAtPercentile(50) / 1000.0, interval.getValueAtPercentile(99) / 1000.0,
+                interval.getMaxValue() / 1000.0, outstanding.get());
+    }
+
+    private void printSummary(long duration, long sent, Histogram total) {
+        double seconds = duration / 1e9;
+        long errorCount = 0;
+        for (LongAdder count : errors.values()) {
+            errorCount += count.sum();
+        }
+        System.out.println();
+        System.out.printf("Sent %d calls (%.1f/s), %d successful (%.1f/s), %d errors%n", sent, sent / seconds,
+                completed.sum(), completed.sum() / seconds, errorCount);
+        for (Map.Entry<String, LongAdder> entry : new TreeMap<>(errors).entrySet()) {
+            System.out.printf("  %-40s %d%n", entry.getKey(), entry.getValue().sum());
+        }
+        System.out.println("Latency (ms) including the time waiting to be sent:");
+        for (double percentile : new double[]{50, 90, 99, 99.9, 99.99}) {
+            System.out.printf("  p%-6s %10.2f%n", percentile, total.getValueAtPercentile(percentile) / 1000.0);
+        }
+        System.out.printf("  max     %10.2f%n", total.getMaxValue() / 1000.0);
+    }
+
+    /**
+     * The phases as measured by the rest client, including the warmup and excluding the time waiting to be sent.
+     */
+    private static void printPhases() {
+        for (MethodMetrics metrics : RestClientMetrics.getInstance().getAll()) {
+            if (metrics.getCalls() == 0) {
+                continue;
+            }
+            System.out.printf("Phases of %s (ms, %d calls including warmup):%n", metrics.getMethodName(), metrics.getCalls());
+            System.out.printf("  %-12s %10s %10s %10s %10s%n", "", "mean", "p50", "p99", "max");
+            for (CallPhase phase : CallPhase.values()) {
+                printPhase(phase.name(), metrics.getPhaseLatency(phase));
+            }
+            printPhase("TOTAL", metrics.getLatency());
+        }
+    }
+
+    private static void printPhase(String name, LatencyHistogram.Snapshot latency) {
+        System.out.printf("  %-12s %10.3f %10.3f %10.3f %10.3f%n", name, latency.getMean() / 1e6, latency.getValueAtPercentile(50) / 1e6,
+                latency.getValueAtPercentile(99) / 1e6, latency.getMax() / 1e6);
+    }
+
+    /**
+     * When each call should be sent.
+     */
+    private interface Schedule {
+
+        /**
+         * @return Time in nanoseconds since the start when call with index i should be sent.
+         */
+        long getOffset(long i);
+    }
+
+    private static final class FixedRate implements Schedule {
+
+        private final double interval;
+
+        FixedRate(int rate) {
+            interval = 1e9 / rate;
+        }
+
+        @Override
+        public long getOffset(long i) {
+            return (long) (i * interval);
+        }
+    }
+
+    /**
+     * The timing of the trace, repeated when the run takes longer than the trace.
+     */
+    private static final class Replay implements Schedule {
+
+        private final long[] offsets;
+        private final long period;
+        private final double speed;
+
+        Replay(CallTrace trace, double speed) {
+            List<CallTrace.Call> calls = trace.getCalls();
+            offsets = new long[calls.size()];
+            for (int i = 0; i < offsets.length; i++) {
+                offsets[i] = calls.get(i).getOffset() - calls.get(0).getOffset();
+            }
+            long last = offsets[offsets.length - 1];
+            // The next repetition starts after the average time between the calls.
+            period = last + last / (offsets.length - 1);
+            this.speed = speed;
+        }
+
+        @Override
+        public long getOffset(long i) {
+            return (long) (((i / offsets.length) * period + offsets[(int) (i % offsets.length)]) / speed);
+        }
+    }
+}
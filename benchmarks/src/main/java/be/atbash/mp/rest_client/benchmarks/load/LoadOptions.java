@@ -0,0 +1,69 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.benchmarks.load;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Options of the {@link LoadHarness}, given as {@code name=value} arguments.
+ */
+final class LoadOptions {
+
+    private final Map<String, String> values = new HashMap<>();
+
+    LoadOptions(String[] args) {
+        for (String arg : args) {
+            int index = arg.indexOf('=');
+            if (index == -1) {
+                throw new IllegalArgumentException(String.format("Argument '%s' is not name=value", arg));
+            }
+            values.put(arg.substring(0, index), arg.substring(index + 1));
+        }
+    }
+
+    String get(String name, String defaultValue) {
+        String result = values.get(name);
+        return result == null ? defaultValue : result;
+    }
+
+    int getInt(String name, int defaultValue) {
+        String result = values.get(name);
+        return result == null ? defaultValue : Integer.parseInt(result);
+    }
+
+    double getDouble(String name, double defaultValue) {
+        String result = values.get(name);
+        return result == null ? defaultValue : Double.parseDouble(result);
+    }
+
+    boolean getBoolean(String name) {
+        return Boolean.parseBoolean(values.get(name));
+    }
+
+    /**
+     * A range of milliseconds like {@code 5-50}, or a single value (the same minimum and maximum).
+     */
+    long[] getRange(String name) {
+        String value = get(name, "0");
+        int index = value.indexOf('-');
+        if (index == -1) {
+            long result = Long.parseLong(value);
+            return new long[]{result, result};
+        }
+        return new long[]{Long.parseLong(value.substring(0, index)), Long.parseLong(value.substring(index + 1))};
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.proxy;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of calling a method through the {@link MethodInvoker} (as the proxies call the super accessor methods),
+ * compared with a direct call and with {@code Method.invoke}. In the package of the {@code MethodInvoker} since it
+ * isn't public. {@code generated} uses the class generated with {@code LambdaMetafactory}, {@code methodHandle} the
+ * fallback for the methods which can't be generated (here a method with 5 parameters, compare it with
+ * {@code reflectionJoin}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MethodInvokerBenchmark {
+
+    public interface Target {
+
+        String echo(String value);
+
+        String join(String value1, String value2, String value3, String value4, String value5);
+    }
+
+    public static class TargetImpl implements Target {
+
+        @Override
+        public String echo(String value) {
+            return value;
+        }
+
+        @Override
+        public String join(String value1, String value2, String value3, String value4, String value5) {
+            return value5;
+        }
+    }
+
+    private Target target;
+    private String value;
+    private Method echo;
+    private Method join;
+    private MethodInvoker generated;
+    private MethodInvoker methodHandle;
+
+    @Setup
+    public void setup() throws Exception {
+        target = new TargetImpl();
+        value = "value";
+        echo = Target.class.getMethod("echo", String.class);
+        generated = MethodInvoker.of(echo);
+        join = Target.class.getMethod("join", String.class, String.class, String.class, String.class, String.class);
+        methodHandle = MethodInvoker.of(join);
+    }
+
+    @Benchmark
+    public Object direct() {
+        return target.echo(value);
+    }
+
+    @Benchmark
+    public Object generated() throws Throwable {
+        return generated.invoke(target, new Object[]{value});
+    }
+
+    @Benchmark
+    public Object methodHandle() throws Throwable {
+        return methodHandle.invoke(target, new Object[]{value, value, value, value, value});
+    }
+
+    @Benchmark
+    public Object reflection() throws Exception {
+        return echo.invoke(target, value);
+    }
+
+    @Benchmark
+    public Object reflectionJoin() throws Exception {
+        return join.invoke(target, value, value, value, value, value);
+    }
+}
@@ -40,6 +40,10 @@ public class CallEndpoint {
 
         System.out.println("otherService " + otherService.doSomething("param"));
 
+        otherService.doSomethingAsync("async")
+                .thenAccept(value -> System.out.println("otherService async " + value))
+                .toCompletableFuture().join();
+
         OtherService.Data data = otherService.sayHello("Rudy");
         System.out.println("otherService JSON " + data.getValue());
 
@@ -15,8 +15,12 @@
  */
 package be.atbash.mp.rest_client.demo.client.se;
 
+import org.eclipse.microprofile.rest.client.inject.RegisterRestClient;
+
 import javax.ws.rs.*;
+import java.util.concurrent.CompletionStage;
 
+@RegisterRestClient
 @Path("/other")
 public interface OtherService {
 
@@ -24,6 +28,10 @@ public interface OtherService {
     @GET
     String doSomething(@PathParam("parameter") String parameter);
 
+    @Path("{parameter}")
+    @GET
+    CompletionStage<String> doSomethingAsync(@PathParam("parameter") String parameter);
+
     @Path("json/{parameter}")
     @GET
     Data sayHello(@PathParam("parameter") String parameter);
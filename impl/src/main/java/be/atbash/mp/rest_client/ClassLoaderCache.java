@@ -0,0 +1,197 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+/**
+ * Value discovered once for each (context) class loader, like the implementations found with the
+ * {@code ServiceLoader}. Lookups don't lock. The cache doesn't prevent a class loader from being unloaded: a value
+ * which references a class of the class loader is only kept with that class (in a {@code ClassValue}), the cache
+ * itself only has weak references to it.
+ *
+ * @param <V> Type of the value.
+ */
+public final class ClassLoaderCache<V> {
+
+    private final Function<V, Collection<Class<?>>> classesOfValue;
+
+    private final ConcurrentMap<Object, Object> values = new ConcurrentHashMap<>();
+    private final ReferenceQueue<ClassLoader> queue = new ReferenceQueue<>();
+
+    // Values referencing their class loader, kept alive by a class of that class loader.
+    private final ClassValue<List<Object>> pinned = new ClassValue<List<Object>>() {
+        @Override
+        protected List<Object> computeValue(Class<?> type) {
+            return new CopyOnWriteArrayList<>();
+        }
+    };
+
+    /**
+     * @param classesOfValue The classes of the value (like the class of the discovered instances), to determine if it
+     *                       references the class loader.
+     */
+    public ClassLoaderCache(Function<V, Collection<Class<?>>> classesOfValue) {
+        this.classesOfValue = classesOfValue;
+    }
+
+    /**
+     * The value for the class loader, determined with the discovery function by the first caller. A null value isn't
+     * kept. The system class loader is used when the class loader is null.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(ClassLoader classLoader, Function<ClassLoader, V> discovery) {
+        ClassLoader loader = classLoader == null ? ClassLoader.getSystemClassLoader() : classLoader;
+        Object stored = values.get(new Lookup(loader));
+        if (stored != null) {
+            V result = stored instanceof WeakValue ? ((WeakValue<V>) stored).get() : (V) stored;
+            if (result != null) {
+                return result;
+            }
+        }
+        expungeStaleEntries();
+
+        V value = discovery.apply(loader);
+        if (value == null) {
+            return null;
+        }
+        Class<?> anchor = findClassOf(value, loader);
+        if (anchor == null) {
+            values.put(new LoaderKey(loader, queue), value);
+        } else {
+            pinned.get(anchor).add(value);
+            Object previous = values.put(new LoaderKey(loader, queue), new WeakValue<>(value));
+            unpin(previous, loader);
+        }
+        return value;
+    }
+
+    /**
+     * Removes the value of the class loader, it is determined again on the next use.
+     */
+    public void remove(ClassLoader classLoader) {
+        ClassLoader loader = classLoader == null ? ClassLoader.getSystemClassLoader() : classLoader;
+        unpin(values.remove(new Lookup(loader)), loader);
+        expungeStaleEntries();
+    }
+
+    /**
+     * Removes the values of all class loaders.
+     */
+    public void clear() {
+        for (Object key : values.keySet()) {
+            ClassLoader loader = ((LoaderKey) key).get();
+            Object stored = values.remove(key);
+            if (loader != null) {
+                unpin(stored, loader);
+            }
+        }
+        expungeStaleEntries();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void unpin(Object stored, ClassLoader loader) {
+        if (stored instanceof WeakValue) {
+            V value = ((WeakValue<V>) stored).get();
+            if (value != null) {
+                Class<?> anchor = findClassOf(value, loader);
+                if (anchor != null) {
+                    pinned.get(anchor).remove(value);
+                }
+            }
+        }
+    }
+
+    /**
+     * A class of the value which is defined by the class loader, null when the value doesn't reference the class
+     * loader (discovered classes are defined by the class loader or one of its parents).
+     */
+    private Class<?> findClassOf(V value, ClassLoader loader) {
+        for (Class<?> type : classesOfValue.apply(value)) {
+            if (type.getClassLoader() == loader) {
+                return type;
+            }
+        }
+        return null;
+    }
+
+    private void expungeStaleEntries() {
+        Object key;
+        while ((key = queue.poll()) != null) {
+            values.remove(key);
+        }
+    }
+
+    private static final class LoaderKey extends WeakReference<ClassLoader> {
+
+        private final int hash;
+
+        private LoaderKey(ClassLoader loader, ReferenceQueue<ClassLoader> queue) {
+            super(loader, queue);
+            hash = System.identityHashCode(loader);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (other instanceof Lookup) {
+                return ((Lookup) other).loader == get();
+            }
+            return other instanceof LoaderKey && ((LoaderKey) other).get() != null && ((LoaderKey) other).get() == get();
+        }
+    }
+
+    // Key for the lookups, without creating a reference.
+    private static final class Lookup {
+
+        private final ClassLoader loader;
+
+        private Lookup(ClassLoader loader) {
+            this.loader = loader;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(loader);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof LoaderKey && ((LoaderKey) other).get() == loader;
+        }
+    }
+
+    private static final class WeakValue<V> extends WeakReference<V> {
+
+        private WeakValue(V value) {
+            super(value);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client;
+
+import be.atbash.mp.rest_client.uri.UriTemplate;
+import org.eclipse.microprofile.rest.client.RestClientDefinitionException;
+
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.*;
+
+/**
+ * What is determined from the annotations of a rest client interface, once for each interface: the result of the
+ * verification and the parsed path templates of its methods. Kept in a {@code ClassValue} so that it doesn't prevent
+ * the class loader of the interface from being unloaded.
+ */
+public final class InterfaceDefinition {
+
+    private static final ClassValue<InterfaceDefinition> DEFINITIONS = new ClassValue<InterfaceDefinition>() {
+        @Override
+        protected InterfaceDefinition computeValue(Class<?> type) {
+            return new InterfaceDefinition(type);
+        }
+    };
+
+    // Message of the violation, null when the interface is valid.
+    private final String problem;
+    // Path of the class and the method, for the methods declared by the interface.
+    private final Map<Method, UriTemplate> pathTemplates;
+
+    private InterfaceDefinition(Class<?> type) {
+        problem = determineProblem(type);
+        Map<Method, UriTemplate> templates = new HashMap<>();
+        for (Method method : type.getDeclaredMethods()) {
+            templates.put(method, UriTemplate.parse(determinePath(method)));
+        }
+        pathTemplates = templates;
+    }
+
+    public static InterfaceDefinition of(Class<?> type) {
+        return DEFINITIONS.get(type);
+    }
+
+    /**
+     * Throws the {@code RestClientDefinitionException} when the interface isn't valid.
+     */
+    public void verify() {
+        if (problem != null) {
+            // A new instance each time, so that the stack trace points to the caller.
+            throw new RestClientDefinitionException(problem);
+        }
+    }
+
+    /**
+     * The parsed template of the class and method {@code Path} (relative to the base URI).
+     */
+    static UriTemplate getPathTemplate(Method method) {
+        UriTemplate result = of(method.getDeclaringClass()).pathTemplates.get(method);
+        if (result == null) {
+            // Not a method declared by an interface, like a method of Object.
+            result = UriTemplate.parse(determinePath(method));
+        }
+        return result;
+    }
+
+    private static String determinePath(Method method) {
+        StringBuilder result = new StringBuilder();
+
+        Path classPathAnnotation = method.getDeclaringClass().getAnnotation(Path.class);
+        if (classPathAnnotation != null) {
+            String value = classPathAnnotation.value();
+            if (!value.startsWith("/")) {
+                result.append('/');
+            }
+            result.append(value);
+        }
+
+        Path methodPathAnnotation = method.getAnnotation(Path.class);
+        if (methodPathAnnotation != null) {
+            String value = methodPathAnnotation.value();
+            if (!value.startsWith("/")) {
+                result.append('/');
+            }
+            result.append(value);
+        }
+        return result.toString();
+    }
+
+    /**
+     * The same rules are applied at compile time by {@code be.atbash.mp.rest_client.processor.InterfaceVerifier}, a rule
+     * changed here must be changed there as well.
+     */
+    private static String determineProblem(Class<?> typeDef) {
+
+        Method[] methods = typeDef.getMethods();
+
+        // multiple verbs
+        for (Method method : methods) {
+            boolean hasHttpMethod = false;
+            for (Annotation annotation : method.getAnnotations()) {
+                boolean isHttpMethod = (annotation.annotationType().getAnnotation(HttpMethod.class) != null);
+                if (!hasHttpMethod && isHttpMethod) {
+                    hasHttpMethod = true;
+                } else if (hasHttpMethod && isHttpMethod) {
+                    return "Ambiguous @Httpmethod defintion on type " + typeDef;
+                }
+            }
+        }
+
+        // invalid parameter
+        Path classPathAnno = typeDef.getAnnotation(Path.class);
+
+        Set<String> classLevelVariables = new HashSet<>();
+        if (classPathAnno != null) {
+            classLevelVariables.addAll(UriTemplate.parse(classPathAnno.value()).getVariableNames());
+        }
+
+        for (Method method : methods) {
+
+            Path methodPathAnno = method.getAnnotation(Path.class);
+            if (methodPathAnno == null) {
+                continue;
+            }
+
+            Set<String> allVariables = new HashSet<>(classLevelVariables);
+            allVariables.addAll(UriTemplate.parse(methodPathAnno.value()).getVariableNames());
+
+            Set<String> parameterNames = new HashSet<>();
+            for (Annotation[] annotations : method.getParameterAnnotations()) {
+                for (Annotation annotation : annotations) {
+                    if (PathParam.class.equals(annotation.annotationType())) {
+                        parameterNames.add(((PathParam) annotation).value());
+                    }
+                }
+            }
+
+            if (allVariables.size() != parameterNames.size()) {
+                return String.format("Parameters and variables don't match on %s::%s", typeDef, method.getName());
+            }
+
+            parameterNames.removeAll(allVariables);
+            if (!parameterNames.isEmpty()) {
+                return String.format("Parameter names don't match variable names on %s::%s", typeDef, method.getName());
+            }
+        }
+
+        // TODO More and better checks
+        return null;
+    }
+}
@@ -0,0 +1,355 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client;
+
+import be.atbash.mp.rest_client.metrics.CallTiming;
+import be.atbash.mp.rest_client.metrics.CallTimingListener;
+import be.atbash.mp.rest_client.metrics.MethodMetrics;
+import be.atbash.mp.rest_client.metrics.RestClientMetrics;
+import be.atbash.mp.rest_client.uri.UriTemplate;
+
+import javax.ws.rs.*;
+import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.Response;
+import java.io.InputStream;
+import java.io.Reader;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.*;
+import java.net.URI;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Immutable description of how a method of the rest client interface is invoked. It is determined once per method when
+ * the client is built so that an invocation only needs to bind the arguments.
+ */
+final class MethodPlan {
+
+    private final Method method;
+    private final String httpMethod;
+    private final UriTemplate uriTemplate;
+    private final String[] queryParameterNames;
+    private final ParameterBinder[] parameterBinders;
+    private final List<Class<?>> exceptionTypes;
+    private final Class<?> returnType;
+    private final boolean async;
+    private final boolean optional;
+    private final Class<?> entityType;
+    // Only when the entity type has type arguments, otherwise the entity is read with the Class.
+    private final GenericType<?> genericEntityType;
+    private final boolean streaming;
+    // Only when the URL has no path and query parameters, it is the same for every call.
+    private final String fixedURL;
+    private final URI fixedURI;
+    // Null when metrics aren't enabled.
+    private final MethodMetrics metrics;
+    private final List<CallTimingListener> timingListeners;
+
+    private MethodPlan(String httpMethod, UriTemplate uriTemplate, String[] queryParameterNames, ParameterBinder[] parameterBinders, List<Class<?>> exceptionTypes, Method method) {
+        this.method = method;
+        this.httpMethod = httpMethod;
+        this.uriTemplate = uriTemplate;
+        this.queryParameterNames = queryParameterNames;
+        this.parameterBinders = parameterBinders;
+        this.exceptionTypes = exceptionTypes;
+        this.returnType = method.getReturnType();
+        this.async = CompletionStage.class.equals(returnType) || CompletableFuture.class.equals(returnType);
+
+        Type type = async ? getTypeArgument(method.getGenericReturnType()) : method.getGenericReturnType();
+        this.optional = Optional.class.equals(getRawType(type));
+        if (optional) {
+            type = getTypeArgument(type);
+        }
+        this.entityType = getRawType(type);
+        this.genericEntityType = type instanceof ParameterizedType || type instanceof GenericArrayType ? new GenericType<>(type) : null;
+        this.streaming = !optional && (InputStream.class.equals(entityType) || Reader.class.equals(entityType) || Response.class.equals(entityType));
+
+        this.fixedURL = uriTemplate.getVariableNames().isEmpty() && queryParameterNames.length == 0 ? uriTemplate.expand(new Object[0], null, null) : null;
+        this.fixedURI = fixedURL == null ? null : toURI(fixedURL);
+        this.metrics = httpMethod == null ? null : RestClientMetrics.getInstance().forMethod(method);
+        this.timingListeners = httpMethod == null ? Collections.<CallTimingListener>emptyList() : RestClientMetrics.getInstance().discoverTimingListeners();
+    }
+
+    /**
+     * Null when the URL is invalid, the error is then reported by the call.
+     */
+    private static URI toURI(String url) {
+        try {
+            return URI.create(url);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * The HTTP verb of the method or null when the method has no JAX-RS HTTP method annotation.
+     */
+    String getHttpMethod() {
+        return httpMethod;
+    }
+
+    List<Class<?>> getExceptionTypes() {
+        return exceptionTypes;
+    }
+
+    Class<?> getReturnType() {
+        return returnType;
+    }
+
+    /**
+     * Is the method returning a {@code CompletionStage} (or {@code CompletableFuture})?
+     */
+    boolean isAsync() {
+        return async;
+    }
+
+    /**
+     * Is the entity wrapped in an {@code Optional}, which is empty when the response has no entity.
+     */
+    boolean isOptional() {
+        return optional;
+    }
+
+    /**
+     * The type of the response entity, this is the return type or the type argument of the {@code CompletionStage}
+     * and/or {@code Optional}.
+     */
+    Class<?> getEntityType() {
+        return entityType;
+    }
+
+    /**
+     * The entity type including its type arguments (like {@code List<Data>}), null when the entity type is a
+     * non-generic class and {@link #getEntityType()} is sufficient.
+     */
+    GenericType<?> getGenericEntityType() {
+        return genericEntityType;
+    }
+
+    /**
+     * Is the entity type {@code InputStream}, {@code Reader} or {@code Response}? The response isn't read in memory and
+     * must be closed by the caller.
+     */
+    boolean isStreaming() {
+        return streaming;
+    }
+
+    /**
+     * The metrics of the method, null when metrics aren't enabled (see {@link RestClientMetrics}).
+     */
+    MethodMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Starts measuring the phases of a call, null when no one is interested in them (see {@link CallTiming}).
+     */
+    CallTiming startTiming() {
+        return RestClientMetrics.getInstance().startTiming(method, metrics, timingListeners);
+    }
+
+    ParameterInfo bind(Object[] args) {
+        if (parameterBinders.length == 0) {
+            return ParameterInfo.EMPTY;
+        }
+        ParameterInfo result = new ParameterInfo(uriTemplate.getVariableNames().size(), queryParameterNames.length);
+        for (ParameterBinder binder : parameterBinders) {
+            binder.bind(result, args);
+        }
+        return result;
+    }
+
+    /**
+     * Determines the URL for the call based on the parameter values.
+     */
+    String expandURL(ParameterInfo parameterInfo) {
+        if (fixedURL != null) {
+            return fixedURL;
+        }
+        return uriTemplate.expand(parameterInfo.getPathParameterValues(), queryParameterNames, parameterInfo.getQueryParameterValues());
+    }
+
+    /**
+     * {@link #expandURL(ParameterInfo)} as {@code URI}.
+     */
+    URI expandURI(ParameterInfo parameterInfo) {
+        if (fixedURI != null) {
+            return fixedURI;
+        }
+        return URI.create(expandURL(parameterInfo));
+    }
+
+    @Override
+    public String toString() {
+        return httpMethod + ' ' + uriTemplate.getTemplate();
+    }
+
+    static MethodPlan of(String baseURI, Method method) {
+        UriTemplate uriTemplate = determineEndpointTemplate(baseURI, method);
+        List<String> queryParameterNames = new ArrayList<>();
+        ParameterBinder[] parameterBinders = determineParameterBinders(method, uriTemplate, queryParameterNames);
+
+        List<Class<?>> exceptionTypes = Collections.unmodifiableList(Arrays.<Class<?>>asList(method.getExceptionTypes()));
+        return new MethodPlan(determineMethod(method), uriTemplate, queryParameterNames.toArray(new String[queryParameterNames.size()]),
+                parameterBinders, exceptionTypes, method);
+    }
+
+    /**
+     * The type argument of a wrapper type like {@code CompletionStage<T>} or {@code Optional<T>}, {@code Object} when
+     * the raw type is used.
+     */
+    private static Type getTypeArgument(Type type) {
+        if (type instanceof ParameterizedType) {
+            return resolve(((ParameterizedType) type).getActualTypeArguments()[0]);
+        }
+        return Object.class;
+    }
+
+    /**
+     * Replaces wildcards and type variables by their (first) upper bound, as the entity must be read as that type.
+     */
+    private static Type resolve(Type type) {
+        if (type instanceof WildcardType) {
+            return resolve(((WildcardType) type).getUpperBounds()[0]);
+        }
+        if (type instanceof TypeVariable) {
+            return resolve(((TypeVariable<?>) type).getBounds()[0]);
+        }
+        return type;
+    }
+
+    private static Class<?> getRawType(Type type) {
+        if (type instanceof Class) {
+            return (Class<?>) type;
+        }
+        if (type instanceof ParameterizedType) {
+            return (Class<?>) ((ParameterizedType) type).getRawType();
+        }
+        if (type instanceof GenericArrayType) {
+            return Array.newInstance(getRawType(((GenericArrayType) type).getGenericComponentType()), 0).getClass();
+        }
+        Type resolved = resolve(type);
+        return resolved == type ? Object.class : getRawType(resolved);
+    }
+
+    private static String determineMethod(Method method) {
+        if (method.getAnnotation(GET.class) != null) {
+            return HttpMethod.GET;
+        }
+        if (method.getAnnotation(PUT.class) != null) {
+            return HttpMethod.PUT;
+        }
+        if (method.getAnnotation(POST.class) != null) {
+            return HttpMethod.POST;
+        }
+        if (method.getAnnotation(DELETE.class) != null) {
+            return HttpMethod.DELETE;
+        }
+        return null;
+    }
+
+    private static ParameterBinder[] determineParameterBinders(Method method, UriTemplate uriTemplate, List<String> queryParameterNames) {
+        List<ParameterBinder> result = new ArrayList<>();
+        int paramIndex = 0;
+        for (Annotation[] annotations : method.getParameterAnnotations()) {
+
+            boolean jaxrsAnnotationFound = false;
+            for (Annotation annotation : annotations) {
+                if (PathParam.class.equals(annotation.annotationType())) {
+                    int slot = uriTemplate.getSlot(((PathParam) annotation).value());
+                    result.add(new ParameterBinder(ParameterBinder.Kind.PATH, null, slot, paramIndex));
+                    jaxrsAnnotationFound = true;
+                }
+                if (QueryParam.class.equals(annotation.annotationType())) {
+                    queryParameterNames.add(((QueryParam) annotation).value());
+                    result.add(new ParameterBinder(ParameterBinder.Kind.QUERY, null, queryParameterNames.size() - 1, paramIndex));
+                    jaxrsAnnotationFound = true;
+                }
+                if (HeaderParam.class.equals(annotation.annotationType())) {
+                    result.add(new ParameterBinder(ParameterBinder.Kind.HEADER, ((HeaderParam) annotation).value(), -1, paramIndex));
+                    jaxrsAnnotationFound = true;
+                }
+            }
+            if (!jaxrsAnnotationFound) {
+                result.add(new ParameterBinder(ParameterBinder.Kind.PAYLOAD, null, -1, paramIndex));
+            }
+
+            paramIndex++;
+        }
+        return result.toArray(new ParameterBinder[result.size()]);
+    }
+
+    private static UriTemplate determineEndpointTemplate(String baseURI, Method method) {
+        UriTemplate pathTemplate = InterfaceDefinition.getPathTemplate(method);
+        if (baseURI.indexOf('{') != -1) {
+            // The base URI has variables itself.
+            return UriTemplate.parse(baseURI + pathTemplate.getTemplate());
+        }
+        return pathTemplate.withPrefix(baseURI);
+    }
+
+    /**
+     * Binds the argument at a certain position of the method call to the {@code ParameterInfo}.
+     */
+    private static final class ParameterBinder {
+
+        enum Kind {
+            PATH, QUERY, HEADER, PAYLOAD
+        }
+
+        private final Kind kind;
+        private final String name;
+        private final int slot;
+        private final int index;
+
+        /**
+         * @param kind  Where the argument goes.
+         * @param name  The name of the header.
+         * @param slot  The slot within the path or query parameter values.
+         * @param index The position of the argument.
+         */
+        ParameterBinder(Kind kind, String name, int slot, int index) {
+            this.kind = kind;
+            this.name = name;
+            this.slot = slot;
+            this.index = index;
+        }
+
+        void bind(ParameterInfo parameterInfo, Object[] args) {
+            Object value = args[index];
+            switch (kind) {
+                case PATH:
+                    // slot is -1 when the parameter isn't used within the path.
+                    if (slot != -1) {
+                        parameterInfo.setPathParameterValue(slot, value);
+                    }
+                    break;
+                case QUERY:
+                    parameterInfo.setQueryParameterValue(slot, value);
+                    break;
+                case HEADER:
+                    parameterInfo.addHeaderValue(name, value);
+                    break;
+                case PAYLOAD:
+                    parameterInfo.setPayload(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException(String.format("Unsupported parameter kind %s", kind));
+            }
+        }
+    }
+}
@@ -15,31 +15,53 @@
  */
 package be.atbash.mp.rest_client;
 
+import javax.ws.rs.core.AbstractMultivaluedMap;
 import javax.ws.rs.core.MultivaluedHashMap;
 import javax.ws.rs.core.MultivaluedMap;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Collections;
+import java.util.List;
 
 /**
- * Keeps parameter info of a method which will be delegated to the MP Rest client and remote endpoint.
+ * Keeps parameter info of a method which will be delegated to the MP Rest client and remote endpoint. Only what the
+ * method uses is allocated, the arrays and header map are shared (empty) instances otherwise.
  */
 class ParameterInfo {
 
-    private Map<String, Object> pathParameterValues = new HashMap<>();
-    private Map<String, Object> queryParameterValues = new HashMap<>();
-    private MultivaluedMap<String, Object> headerValues = new MultivaluedHashMap<>();
+    private static final Object[] NO_VALUES = new Object[0];
+
+    /**
+     * Immutable, used for the methods without headers.
+     */
+    static final MultivaluedMap<String, Object> NO_HEADERS = new AbstractMultivaluedMap<String, Object>(Collections.<String, List<Object>>emptyMap()) {
+    };
+
+    /**
+     * For the methods without parameters, nothing is bound so the instance can be shared.
+     */
+    static final ParameterInfo EMPTY = new ParameterInfo(0, 0);
+
+    private Object[] pathParameterValues;
+    private Object[] queryParameterValues;
+    private MultivaluedMap<String, Object> headerValues = NO_HEADERS;
     private Object payload = null;
 
+    ParameterInfo(int pathParameterSlots, int queryParameterCount) {
+        pathParameterValues = pathParameterSlots == 0 ? NO_VALUES : new Object[pathParameterSlots];
+        queryParameterValues = queryParameterCount == 0 ? NO_VALUES : new Object[queryParameterCount];
+    }
 
-    void addPathParameterValue(String name, Object value) {
-        pathParameterValues.put(name, value);
+    void setPathParameterValue(int slot, Object value) {
+        pathParameterValues[slot] = value;
     }
 
-    void addQueryParameterValue(String name, Object value) {
-        queryParameterValues.put(name, value);
+    void setQueryParameterValue(int index, Object value) {
+        queryParameterValues[index] = value;
     }
 
     void addHeaderValue(String name, Object value) {
+        if (headerValues == NO_HEADERS) {
+            headerValues = new MultivaluedHashMap<>();
+        }
         headerValues.add(name, value);
     }
 
@@ -47,11 +69,11 @@ class ParameterInfo {
         this.payload = payload;
     }
 
-    Map<String, Object> getPathParameterValues() {
+    Object[] getPathParameterValues() {
         return pathParameterValues;
     }
 
-    Map<String, Object> getQueryParameterValues() {
+    Object[] getQueryParameterValues() {
         return queryParameterValues;
     }
 
@@ -15,84 +15,431 @@
  */
 package be.atbash.mp.rest_client;
 
+import be.atbash.mp.rest_client.client.ClientRegistry;
+import be.atbash.mp.rest_client.metrics.CallPhase;
+import be.atbash.mp.rest_client.metrics.CallTiming;
+import be.atbash.mp.rest_client.metrics.MethodMetrics;
+import be.atbash.mp.rest_client.stream.StreamingResponses;
+import be.atbash.mp.rest_client.transport.MessageBodyWorkers;
+import be.atbash.mp.rest_client.transport.RequestBody;
+import be.atbash.mp.rest_client.transport.Transport;
+import be.atbash.mp.rest_client.transport.TransportRequest;
+import be.atbash.mp.rest_client.transport.TransportResponse;
+import be.atbash.mp.rest_client.transport.Transports;
 import org.eclipse.microprofile.rest.client.ext.ResponseExceptionMapper;
 
-import javax.ws.rs.*;
 import javax.ws.rs.client.Client;
 import javax.ws.rs.client.Entity;
 import javax.ws.rs.client.Invocation;
+import javax.ws.rs.core.AbstractMultivaluedMap;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedHashMap;
 import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.Response;
-import javax.ws.rs.core.UriBuilder;
-import java.lang.annotation.Annotation;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
-import java.util.Arrays;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
- * Invokes the endpoints using JAX-RS rest client. Instances are used as proxy invocation handler created by the RestClientBuilderResolver implementation.
+ * Invokes the endpoints using JAX-RS rest client, or a {@link Transport} when one is selected for the rest client.
+ * Instances are used as proxy invocation handler created by the RestClientBuilderResolver implementation.
  */
 public class RestClientInvoker implements InvocationHandler {
+
+    // Immutable, for the transport requests without headers.
+    private static final MultivaluedMap<String, String> NO_HEADERS = new AbstractMultivaluedMap<String, String>(Collections.<String, List<String>>emptyMap()) {
+    };
+
     private Client client;
+    private Transport transport;
+    private MessageBodyWorkers messageBodyWorkers;
     private String baseURI;
     private List<LocalProviderInfo> localProviderInstances;
+    private ExecutorService executorService;
+    private ConcurrentMap<Method, MethodPlan> methodPlans = new ConcurrentHashMap<>();
+    private final AtomicBoolean transportReleased = new AtomicBoolean();
 
-    public RestClientInvoker(Client client, String baseURI, List<LocalProviderInfo> localProviderInstances) {
+    /**
+     * @param executorService Executor for the methods returning a {@code CompletionStage}, the other methods are
+     *                        executed on the calling thread.
+     */
+    public RestClientInvoker(Client client, String baseURI, List<LocalProviderInfo> localProviderInstances, Method[] methods,
+                             ExecutorService executorService) {
+        this(baseURI, localProviderInstances, methods, executorService);
         this.client = client;
+    }
+
+    /**
+     * Invoker which performs the requests with the transport instead of a JAX-RS client.
+     *
+     * @param messageBodyWorkers Converts the entities of the requests and responses.
+     */
+    public RestClientInvoker(Transport transport, MessageBodyWorkers messageBodyWorkers, String baseURI, List<LocalProviderInfo> localProviderInstances,
+                             Method[] methods, ExecutorService executorService) {
+        this(baseURI, localProviderInstances, methods, executorService);
+        this.transport = transport;
+        this.messageBodyWorkers = messageBodyWorkers;
+    }
+
+    private RestClientInvoker(String baseURI, List<LocalProviderInfo> localProviderInstances, Method[] methods,
+                              ExecutorService executorService) {
         this.baseURI = baseURI;
         this.localProviderInstances = localProviderInstances;
+        this.executorService = executorService;
+        for (Method method : methods) {
+            methodPlans.put(method, MethodPlan.of(baseURI, method));
+        }
     }
 
     @Override
     public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
 
-        StringBuilder serverURL = determineEndpointURL(method);
+        MethodPlan methodPlan = getMethodPlan(method);
 
-        String httpMethod = determineMethod(method);
+        String httpMethod = methodPlan.getHttpMethod();
         if (httpMethod == null) {
             throw new RuntimeException(String.format("Unknown http method at %s", method));
         }
 
-        ParameterInfo parameterInfo = determineParameterInfo(method, args);
+        MethodMetrics metrics = methodPlan.getMetrics();
+        CallTiming timing = methodPlan.startTiming();
+        if (metrics == null && timing == null) {
+            return invoke(methodPlan, args, null);
+        }
+
+        long start = metrics == null ? 0 : metrics.start();
+        Object result;
+        try {
+            result = invoke(methodPlan, args, timing);
+        } catch (Throwable t) {
+            end(metrics, start, timing, t);
+            throw t;
+        }
+        if (methodPlan.isAsync()) {
+            // The call ends when the CompletionStage completes.
+            ((CompletableFuture<?>) result).whenComplete((value, throwable) -> end(metrics, start, timing, throwable));
+        } else {
+            end(metrics, start, timing, null);
+        }
+        return result;
+    }
+
+    private static void end(MethodMetrics metrics, long start, CallTiming timing, Throwable failure) {
+        if (metrics != null) {
+            metrics.end(start, failure);
+        }
+        if (timing != null) {
+            timing.end(failure);
+        }
+    }
+
+    private static void mark(CallTiming timing, CallPhase phase) {
+        if (timing != null) {
+            timing.mark(phase);
+        }
+    }
+
+    private Object invoke(MethodPlan methodPlan, Object[] args, CallTiming timing) throws Throwable {
+        ParameterInfo parameterInfo = methodPlan.bind(args);
+
+        if (transport != null) {
+            return send(methodPlan, parameterInfo, timing);
+        }
+        if (methodPlan.isAsync()) {
+            return submit(executorService, () -> execute(methodPlan, parameterInfo, timing));
+        }
+        return execute(methodPlan, parameterInfo, timing);
+    }
+
+    /**
+     * Opens a connection to the base URI ahead of the first call. Only a transport which keeps its connections does
+     * something, the connections of the JAX-RS client can't be opened upfront.
+     */
+    public CompletableFuture<Void> connect() {
+        if (transport == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return transport.connect(URI.create(baseURI));
+    }
+
+    /**
+     * Does {@link #connect()} open a connection, false when the JAX-RS client is used.
+     */
+    public boolean canConnect() {
+        return transport != null;
+    }
+
+    /**
+     * Releases the JAX-RS client or the transport used by this invoker (it is closed when no other rest client shares
+     * it). Without a call to this method, the client is released when the invoker is garbage collected and the
+     * transport stays open until {@code Transports.closeAll()}.
+     */
+    public void close() {
+        if (client != null) {
+            ClientRegistry.getInstance().releaseOwner(this);
+        }
+        if (transport != null && transportReleased.compareAndSet(false, true)) {
+            Transports.releaseTransport(transport);
+        }
+    }
+
+    private static <T> T await(CompletableFuture<T> future) throws Throwable {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+    }
+
+    private static CompletableFuture<Object> submit(ExecutorService executorService, Step step) {
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        submit(executorService, step, result);
+        return result;
+    }
+
+    private static void submit(ExecutorService executorService, Step step, CompletableFuture<Object> result) {
+        try {
+            executorService.execute(() -> {
+                try {
+                    result.complete(step.execute());
+                } catch (Throwable t) {
+                    result.completeExceptionally(t);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(e);
+        }
+    }
+
+    private Object send(MethodPlan methodPlan, ParameterInfo parameterInfo, CallTiming timing) throws Throwable {
+        if (!methodPlan.isAsync()) {
+            TransportResponse transportResponse = await(transport.send(createTransportRequest(methodPlan, parameterInfo, timing)));
+            mark(timing, CallPhase.NETWORK);
+            return processResponse(methodPlan, transportResponse);
+        }
+
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        CompletableFuture<TransportResponse> response;
+        try {
+            response = transport.send(createTransportRequest(methodPlan, parameterInfo, timing));
+        } catch (Throwable t) {
+            result.completeExceptionally(t);
+            return result;
+        }
+        // The future is completed on a thread of the transport, the response is processed on the executor.
+        response.whenComplete((transportResponse, throwable) -> {
+            if (throwable != null) {
+                result.completeExceptionally(throwable);
+            } else {
+                submit(executorService, () -> {
+                    mark(timing, CallPhase.NETWORK);
+                    return processResponse(methodPlan, transportResponse);
+                }, result);
+            }
+        });
+        return result;
+    }
+
+    private TransportRequest createTransportRequest(MethodPlan methodPlan, ParameterInfo parameterInfo, CallTiming timing) {
+        URI uri = methodPlan.expandURI(parameterInfo);
+        mark(timing, CallPhase.URL);
+
+        // Only allocated when the request has headers.
+        MultivaluedMap<String, String> headers = null;
+        for (Map.Entry<String, List<Object>> entry : parameterInfo.getHeaderValues().entrySet()) {
+            for (Object value : entry.getValue()) {
+                headers = add(headers, entry.getKey(), String.valueOf(value));
+            }
+        }
 
-        UriBuilder uriBuilder = UriBuilder.fromUri(serverURL.toString());
-        for (Map.Entry<String, Object> entry : parameterInfo.getQueryParameterValues().entrySet()) {
-            uriBuilder.queryParam(entry.getKey(), entry.getValue());
+        RequestBody body = null;
+        Object payload = parameterInfo.getPayload();
+        if (isBinaryPayload(payload)) {
+            body = createBinaryBody(payload);
+            if (getContentType(parameterInfo) == null) {
+                headers = add(headers, HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_OCTET_STREAM);
+            }
+        } else if (payload != null) {
+            MultivaluedMap<String, Object> entityHeaders = new MultivaluedHashMap<>();
+            entityHeaders.putSingle(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON);
+            body = RequestBody.of(messageBodyWorkers.write(payload, payload.getClass(), MediaType.APPLICATION_JSON_TYPE, entityHeaders));
+            // Writers are allowed to add or change headers
+            for (Map.Entry<String, List<Object>> entry : entityHeaders.entrySet()) {
+                if (headers != null) {
+                    headers.remove(entry.getKey());
+                }
+                for (Object value : entry.getValue()) {
+                    headers = add(headers, entry.getKey(), String.valueOf(value));
+                }
+            }
         }
-        String url = uriBuilder
-                .buildFromMap(parameterInfo.getPathParameterValues())
-                .toString();
+        if (body != null && methodPlan.getMetrics() != null) {
+            methodPlan.getMetrics().request(body.getContentLength());
+        }
+        mark(timing, CallPhase.REQUEST);
+        return new TransportRequest(methodPlan.getHttpMethod(), uri, headers == null ? NO_HEADERS : headers, body, methodPlan.isStreaming(),
+                messageBodyWorkers, timing);
+    }
+
+    private static MultivaluedMap<String, String> add(MultivaluedMap<String, String> headers, String name, String value) {
+        MultivaluedMap<String, String> result = headers == null ? new MultivaluedHashMap<String, String>() : headers;
+        result.add(name, value);
+        return result;
+    }
+
+    private Object execute(MethodPlan methodPlan, ParameterInfo parameterInfo, CallTiming timing) throws Throwable {
+        String url = methodPlan.expandURL(parameterInfo);
+        mark(timing, CallPhase.URL);
 
-        Invocation.Builder request = client.target(url).request().headers(parameterInfo.getHeaderValues());
+        Invocation.Builder request = client.target(url).request();
+        if (!parameterInfo.getHeaderValues().isEmpty()) {
+            request.headers(parameterInfo.getHeaderValues());
+        }
 
+        String httpMethod = methodPlan.getHttpMethod();
         Invocation invocation;
-        if (parameterInfo.getPayload() != null) {
-            invocation = request.build(httpMethod, Entity.entity(parameterInfo.getPayload(), MediaType.APPLICATION_JSON));
+        Object payload = parameterInfo.getPayload();
+        if (isBinaryPayload(payload)) {
+            String contentType = getContentType(parameterInfo);
+            invocation = request.build(httpMethod, Entity.entity(toBinaryEntity(payload), contentType == null ? MediaType.APPLICATION_OCTET_STREAM : contentType));
+        } else if (payload != null) {
+            invocation = request.build(httpMethod, Entity.entity(payload, MediaType.APPLICATION_JSON));
         } else {
             invocation = request.build(httpMethod);
         }
+        mark(timing, CallPhase.REQUEST);
+        // The JAX-RS client doesn't expose when it has a connection.
+        mark(timing, CallPhase.CONNECTION);
 
-        Object result = null;
         Response response = invocation.invoke();
+        mark(timing, CallPhase.NETWORK);
+        return processResponse(methodPlan, response);
+    }
+
+    /**
+     * Payloads which are sent as is, without a {@code MessageBodyWriter} (and thus without copying them into memory).
+     */
+    private static boolean isBinaryPayload(Object payload) {
+        return payload instanceof File || payload instanceof Path || payload instanceof ByteBuffer || payload instanceof InputStream;
+    }
+
+    private static RequestBody createBinaryBody(Object payload) {
+        if (payload instanceof File) {
+            return RequestBody.of(((File) payload).toPath());
+        }
+        if (payload instanceof Path) {
+            return RequestBody.of((Path) payload);
+        }
+        if (payload instanceof ByteBuffer) {
+            return RequestBody.of((ByteBuffer) payload);
+        }
+        return RequestBody.of((InputStream) payload);
+    }
+
+    /**
+     * Converts the payload to a type for which JAX-RS has a standard {@code MessageBodyWriter}.
+     */
+    private static Object toBinaryEntity(Object payload) {
+        if (payload instanceof Path) {
+            return ((Path) payload).toFile();
+        }
+        if (payload instanceof ByteBuffer) {
+            ByteBuffer buffer = (ByteBuffer) payload;
+            if (buffer.hasArray()) {
+                return new ByteArrayInputStream(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            }
+            return new ByteBufferInputStream(buffer);
+        }
+        return payload;
+    }
+
+    /**
+     * The Content-Type defined with a {@code @HeaderParam}, null when not specified.
+     */
+    private static String getContentType(ParameterInfo parameterInfo) {
+        for (Map.Entry<String, List<Object>> entry : parameterInfo.getHeaderValues().entrySet()) {
+            if (HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(entry.getKey()) && !entry.getValue().isEmpty()) {
+                return String.valueOf(entry.getValue().get(0));
+            }
+        }
+        return null;
+    }
+
+    private Object processResponse(MethodPlan methodPlan, Response response) throws Throwable {
+        MethodMetrics metrics = methodPlan.getMetrics();
+        if (metrics != null) {
+            metrics.response(response.getStatus(), response.getLength());
+        }
+        if (methodPlan.isStreaming()) {
+            return processStreamingResponse(methodPlan, response);
+        }
+        Object result = null;
         try {
 
-            handleExceptionMapping(response, Arrays.asList(method.getExceptionTypes()));
+            handleExceptionMapping(response, methodPlan);
 
-            if (!void.class.equals(method.getReturnType())) {
-                result = response.readEntity(method.getReturnType());
+            Class<?> entityType = methodPlan.getEntityType();
+            if (methodPlan.isOptional() && !response.hasEntity()) {
+                result = null;
+            } else if (methodPlan.getGenericEntityType() != null) {
+                result = response.readEntity(methodPlan.getGenericEntityType());
+            } else if (!void.class.equals(entityType) && !Void.class.equals(entityType)) {
+                result = response.readEntity(entityType);
             }
         } finally {
-            if (response != null) {
+            response.close();
+        }
+        return methodPlan.isOptional() ? Optional.ofNullable(result) : result;
+    }
+
+    /**
+     * The response stays open when the call was successful, closing it is the responsibility of the caller.
+     */
+    private Object processStreamingResponse(MethodPlan methodPlan, Response response) throws Throwable {
+        boolean success = false;
+        try {
+            handleExceptionMapping(response, methodPlan);
+            Object result = StreamingResponses.open(methodPlan.getEntityType(), response, methodPlan.toString());
+            success = true;
+            return result;
+        } finally {
+            if (!success) {
                 response.close();
             }
         }
+    }
+
+    private MethodPlan getMethodPlan(Method method) {
+        // The proxy passes a copy of the Method instance, so lookup is based on equals() and not identity.
+        MethodPlan result = methodPlans.get(method);
+        if (result == null) {
+            // Method which wasn't known when client was built (like a method from Object)
+            MethodPlan plan = MethodPlan.of(baseURI, method);
+            result = methodPlans.putIfAbsent(method, plan);
+            if (result == null) {
+                result = plan;
+            }
+        }
         return result;
     }
 
-    private void handleExceptionMapping(Response response, List<Class<?>> exceptionTypes) throws Throwable {
+    private void handleExceptionMapping(Response response, MethodPlan methodPlan) throws Throwable {
         int status = response.getStatus();
         MultivaluedMap<String, Object> headers = response.getHeaders();
 
@@ -102,7 +449,11 @@ public class RestClientInvoker implements InvocationHandler {
                 if (mapper.handles(status, headers)) {
                     Throwable throwable = mapper.toThrowable(response);
                     if (throwable != null) {
-                        throwExceptionIfAppropriate(throwable, exceptionTypes);
+                        if (methodPlan.isAsync()) {
+                            // Every exception completes the CompletionStage exceptionally.
+                            throw throwable;
+                        }
+                        throwExceptionIfAppropriate(throwable, methodPlan.getExceptionTypes());
                     }
                 }
             }
@@ -123,73 +474,10 @@ public class RestClientInvoker implements InvocationHandler {
         }
     }
 
-    private String determineMethod(Method method) {
-        if (method.getAnnotation(GET.class) != null) {
-            return HttpMethod.GET;
-        }
-        if (method.getAnnotation(PUT.class) != null) {
-            return HttpMethod.PUT;
-        }
-        if (method.getAnnotation(POST.class) != null) {
-            return HttpMethod.POST;
-        }
-        if (method.getAnnotation(DELETE.class) != null) {
-            return HttpMethod.DELETE;
-        }
-        return null;
-    }
-
-    private ParameterInfo determineParameterInfo(Method method, Object[] args) {
-        ParameterInfo result = new ParameterInfo();
-        int paramIndex = 0;
-        for (Annotation[] annotations : method.getParameterAnnotations()) {
-
-            boolean jaxrsAnnotationFound = false;
-            for (Annotation annotation : annotations) {
-                if (PathParam.class.equals(annotation.annotationType())) {
-                    result.addPathParameterValue(((PathParam) annotation).value(), args[paramIndex]);
-                    jaxrsAnnotationFound = true;
-                }
-                if (QueryParam.class.equals(annotation.annotationType())) {
-                    result.addQueryParameterValue(((QueryParam) annotation).value(), args[paramIndex]);
-                    jaxrsAnnotationFound = true;
-                }
-                if (HeaderParam.class.equals(annotation.annotationType())) {
-                    result.addHeaderValue(((HeaderParam) annotation).value(), args[paramIndex]);
-                    jaxrsAnnotationFound = true;
-                }
-            }
-            if (!jaxrsAnnotationFound) {
-                result.setPayload(args[paramIndex]);
-            }
-
-            paramIndex++;
-        }
-        return result;
-    }
-
-    private StringBuilder determineEndpointURL(Method method) {
-        StringBuilder serverURL = new StringBuilder();
-        serverURL.append(baseURI);
-
-        Path classPathAnnotation = method.getDeclaringClass().getAnnotation(Path.class);
-        if (classPathAnnotation != null) {
-            String value = classPathAnnotation.value();
-            if (!value.startsWith("/")) {
-                serverURL.append('/');
-            }
-            serverURL.append(value);
-        }
-
-        Path methodPathAnnotation = method.getAnnotation(Path.class);
-        if (methodPathAnnotation != null) {
-            String value = methodPathAnnotation.value();
-            if (!value.startsWith("/")) {
-                serverURL.append('/');
-            }
-            serverURL.append(value);
-        }
-        return serverURL;
+    /**
+     * Part of the invocation which is executed on an executor.
+     */
+    private interface Step {
+        Object execute() throws Throwable;
     }
-
 }
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client;
+
+/**
+ * Names of the Atbash specific properties which can be set with {@code RestClientBuilder.property()}.
+ */
+public final class RestClientProperties {
+
+    /**
+     * When {@code true}, the asynchronous methods of the rest client are executed on a virtual thread (or a bounded
+     * pool of platform threads when the JVM has no support for virtual threads). The other methods are executed on the
+     * calling thread. Can also be defined with the {@code <interface>/mp-rest/virtualThreads} configuration key.
+     */
+    public static final String VIRTUAL_THREADS = "be.atbash.rest_client.virtualThreads";
+
+    /**
+     * Name of the transport which performs the HTTP requests, {@code jaxrs} (the default) uses the JAX-RS client and
+     * {@code nio} the non-blocking HTTP/1.1 transport. Can also be defined with the {@code <interface>/mp-rest/transport}
+     * configuration key.
+     */
+    public static final String TRANSPORT = "be.atbash.rest_client.transport";
+
+    private RestClientProperties() {
+    }
+}
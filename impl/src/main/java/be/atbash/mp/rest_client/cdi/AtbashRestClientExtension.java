@@ -15,6 +15,11 @@
  */
 package be.atbash.mp.rest_client.cdi;
 
+import be.atbash.config.ConfigOptionalValue;
+import be.atbash.mp.rest_client.metrics.MicroProfileMetrics;
+import be.atbash.mp.rest_client.metrics.RestClientMetrics;
+import be.atbash.mp.rest_client.spec.BuilderResolver;
+import be.atbash.util.reflection.ClassUtils;
 import org.apache.deltaspike.core.util.bean.BeanBuilder;
 import org.apache.deltaspike.partialbean.impl.PartialBeanProxyFactory;
 import org.apache.deltaspike.proxy.api.DeltaSpikeProxyContextualLifecycle;
@@ -30,7 +35,18 @@ import java.util.List;
  */
 public class AtbashRestClientExtension implements Extension {
 
+    private static final String EAGER_CONFIG = "atbash.rest.client.eager";
+    private static final String EAGER_CONNECT_CONFIG = "atbash.rest.client.eager.connect";
+    private static final String EAGER_CONNECT_TIMEOUT_CONFIG = "atbash.rest.client.eager.connectTimeout";
+    private static final long DEFAULT_EAGER_CONNECT_TIMEOUT = 5000;
+    private static final String METRIC_REGISTRY_CLASS = "org.eclipse.microprofile.metrics.MetricRegistry";
+
     private List<Bean<?>> restClientBeans = new ArrayList<>();
+    private List<Class<?>> restClientInterfaces = new ArrayList<>();
+
+    private final RestClientInvokerRegistry invokerRegistry = new RestClientInvokerRegistry();
+
+    private MicroProfileMetrics microProfileMetrics;
 
     /**
      * Search for all
@@ -58,6 +74,7 @@ public class AtbashRestClientExtension implements Extension {
 
         // Keep bean definition in a list for the moment
         restClientBeans.add(beanBuilder.create());
+        restClientInterfaces.add(javaClass);
 
 
     }
@@ -70,4 +87,49 @@ public class AtbashRestClientExtension implements Extension {
 
     }
 
+    /**
+     * Publishes the metrics in MicroProfile Metrics when they are enabled and the application has a metric registry.
+     * Creates the rest clients (and optionally opens a connection) at deployment when configured with the parameter
+     * {@code atbash.rest.client.eager} (and {@code atbash.rest.client.eager.connect}). An invalid rest client fails the
+     * deployment.
+     */
+    public void afterDeploymentValidation(@Observes AfterDeploymentValidation afterDeploymentValidation, BeanManager beanManager) {
+        if (RestClientMetrics.getInstance().isEnabled() && ClassUtils.isAvailable(METRIC_REGISTRY_CLASS)) {
+            microProfileMetrics = MicroProfileMetrics.register(beanManager);
+        }
+        if (restClientInterfaces.isEmpty() || !isEnabled(EAGER_CONFIG)) {
+            return;
+        }
+        Long connectTimeout = ConfigOptionalValue.getValue(EAGER_CONNECT_TIMEOUT_CONFIG, Long.class);
+        EagerRestClientInitializer initializer = new EagerRestClientInitializer(invokerRegistry, isEnabled(EAGER_CONNECT_CONFIG),
+                connectTimeout == null ? DEFAULT_EAGER_CONNECT_TIMEOUT : connectTimeout);
+        for (Throwable problem : initializer.initialize(restClientInterfaces)) {
+            afterDeploymentValidation.addDeploymentProblem(problem);
+        }
+    }
+
+    private static boolean isEnabled(String key) {
+        Boolean value = ConfigOptionalValue.getValue(key, Boolean.class);
+        return value != null && value;
+    }
+
+    /**
+     * Closes the rest clients of the application when the container shuts down, the JAX-RS clients and transports are
+     * closed when no other application is using them. The implementations discovered for the class loader of the
+     * application, and the metrics of the application, are forgotten so that a redeploy discovers them again.
+     */
+    public void beforeShutdown(@Observes BeforeShutdown beforeShutdown) {
+        invokerRegistry.close();
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        BuilderResolver.clearCaches(classLoader);
+        if (microProfileMetrics != null) {
+            microProfileMetrics.unregister();
+            microProfileMetrics = null;
+        }
+        RestClientMetrics.getInstance().clear(classLoader);
+    }
+
+    RestClientInvokerRegistry getInvokerRegistry() {
+        return invokerRegistry;
+    }
 }
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.cdi;
+
+import be.atbash.mp.rest_client.RestClientInvoker;
+import be.atbash.mp.rest_client.executor.ExecutorServices;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Creates the rest clients at deployment instead of at their first call, all interfaces in parallel. When requested,
+ * a connection to the URL of each rest client is opened as well (only by the transports keeping their connections).
+ */
+class EagerRestClientInitializer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EagerRestClientInitializer.class);
+
+    private final RestClientInvokerRegistry invokerRegistry;
+    private final boolean connect;
+    private final long connectTimeout;
+
+    /**
+     * @param connectTimeout Maximum time in milliseconds the deployment waits for the connection of a rest client.
+     */
+    EagerRestClientInitializer(RestClientInvokerRegistry invokerRegistry, boolean connect, long connectTimeout) {
+        this.invokerRegistry = invokerRegistry;
+        this.connect = connect;
+        this.connectTimeout = connectTimeout;
+    }
+
+    /**
+     * @return The problems of the interfaces which can't be created, like a definition or configuration error.
+     */
+    List<Throwable> initialize(List<Class<?>> restClientInterfaces) {
+        long start = System.nanoTime();
+        // The configuration and the implementations are found with the context class loader of the application.
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (Class<?> restClientInterface : restClientInterfaces) {
+            futures.add(CompletableFuture.runAsync(() -> initialize(restClientInterface, classLoader), ExecutorServices.getDefault()));
+        }
+
+        List<Throwable> result = new ArrayList<>();
+        for (CompletableFuture<Void> future : futures) {
+            try {
+                future.join();
+            } catch (CompletionException e) {
+                result.add(e.getCause());
+            }
+        }
+        LOGGER.info(String.format("Initialized %s rest clients in %s ms", restClientInterfaces.size() - result.size(), elapsedMillis(start)));
+        return result;
+    }
+
+    private void initialize(Class<?> restClientInterface, ClassLoader classLoader) {
+        Thread thread = Thread.currentThread();
+        ClassLoader previous = thread.getContextClassLoader();
+        thread.setContextClassLoader(classLoader);
+        try {
+            initialize(restClientInterface);
+        } finally {
+            thread.setContextClassLoader(previous);
+        }
+    }
+
+    private void initialize(Class<?> restClientInterface) {
+        long start = System.nanoTime();
+        RestClientInvoker invoker = invokerRegistry.getInvoker(restClientInterface, InjectableRestClient::createInvoker);
+        long created = elapsedMillis(start);
+        if (!connect || !invoker.canConnect()) {
+            // The JAX-RS client can't open its connections upfront.
+            LOGGER.info(String.format("Rest client %s created in %s ms", restClientInterface.getName(), created));
+            return;
+        }
+
+        long connectStart = System.nanoTime();
+        CompletableFuture<Void> connection = invoker.connect();
+        try {
+            connection.get(connectTimeout, TimeUnit.MILLISECONDS);
+            LOGGER.info(String.format("Rest client %s created in %s ms, connected in %s ms", restClientInterface.getName(), created, elapsedMillis(connectStart)));
+        } catch (ExecutionException e) {
+            // The endpoint can be started after this application, the first call opens the connection then.
+            LOGGER.warn(String.format("Rest client %s created in %s ms, opening connection failed: %s", restClientInterface.getName(), created, e.getCause()));
+        } catch (TimeoutException e) {
+            // The connection attempt continues, the deployment doesn't wait for it.
+            LOGGER.warn(String.format("Rest client %s created in %s ms, not connected within %s ms", restClientInterface.getName(), created, connectTimeout));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static long elapsedMillis(long start) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+}
@@ -15,49 +15,73 @@
  */
 package be.atbash.mp.rest_client.cdi;
 
+import be.atbash.mp.rest_client.RestClientInvoker;
+import be.atbash.mp.rest_client.spec.RestClientInvokers;
 import org.eclipse.microprofile.rest.client.AbstractRestClientBuilder;
 import org.eclipse.microprofile.rest.client.RestClientBuilder;
 import org.eclipse.microprofile.rest.client.annotation.RegisterProvider;
 import org.eclipse.microprofile.rest.client.annotation.RegisterProviders;
+import org.eclipse.microprofile.rest.client.inject.RegisterRestClient;
 
 import javax.annotation.Priority;
 import javax.enterprise.context.Dependent;
+import javax.inject.Inject;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
-import java.util.HashMap;
-import java.util.Map;
 
 /**
- * Proxy behind the interface which delegates execution to microprofile {@code RestClientBuilder} created instances.
- * It is also responsible for adding the Provider classes defined with the {@code RegisterProvider} annotations.
+ * Invocation handler behind the CDI bean of the interface (the proxy of the bean handles the interceptors). It calls
+ * the {@code RestClientInvoker} created with the microprofile {@code RestClientBuilder} directly, without a second
+ * proxy in between. It is also responsible for adding the Provider classes defined with the {@code RegisterProvider} annotations.
  */
 @Dependent
 public class InjectableRestClient implements InvocationHandler {
-    private Map<Class, Object> restClientInvokerCache = new HashMap<>();
 
-    @Override
-    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+    @Inject
+    private AtbashRestClientExtension restClientExtension;
 
-        Object restClientInvoker = restClientInvokerCache.get(method.getDeclaringClass());
-        if (restClientInvoker == null) {
-            RestClientBuilder restClientBuilder = AbstractRestClientBuilder.newBuilder();
+    // One instance for each bean instance, the invoker itself is shared by all beans of the interface.
+    private volatile RestClientInvoker restClientInvoker;
 
-            registerProviders(restClientBuilder, method);
-            restClientInvoker = restClientBuilder.build(method.getDeclaringClass());
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        RestClientInvoker invoker = restClientInvoker;
+        if (invoker == null) {
+            invoker = restClientExtension.getInvokerRegistry().getInvoker(determineRestClientInterface(proxy, method), InjectableRestClient::createInvoker);
+            restClientInvoker = invoker;
+        }
+        return invoker.invoke(proxy, method, args);
+    }
 
-            restClientInvokerCache.put(method.getDeclaringClass(), restClientInvoker);
+    /**
+     * The interface of the bean, the method can be declared in an interface it extends.
+     */
+    private static Class<?> determineRestClientInterface(Object proxy, Method method) {
+        for (Class<?> implementedInterface : proxy.getClass().getInterfaces()) {
+            if (implementedInterface.isAnnotationPresent(RegisterRestClient.class)) {
+                return implementedInterface;
+            }
         }
+        return method.getDeclaringClass();
+    }
+
+    /**
+     * Creates the invoker for the interface, with the providers defined by the {@code RegisterProvider} annotations.
+     */
+    static RestClientInvoker createInvoker(Class<?> restClientInterface) {
+        RestClientBuilder restClientBuilder = AbstractRestClientBuilder.newBuilder();
 
-        return method.invoke(restClientInvoker, args);
+        registerProviders(restClientBuilder, restClientInterface);
+        return RestClientInvokers.build(restClientBuilder, restClientInterface);
     }
 
-    private void registerProviders(RestClientBuilder restClientBuilder, Method method) {
-        RegisterProvider provider = method.getDeclaringClass().getAnnotation(RegisterProvider.class);
+    private static void registerProviders(RestClientBuilder restClientBuilder, Class<?> restClientInterface) {
+        RegisterProvider provider = restClientInterface.getAnnotation(RegisterProvider.class);
         if (provider != null) {
             registerSingleProvider(restClientBuilder, provider);
         }
 
-        RegisterProviders registerProviders = method.getDeclaringClass().getAnnotation(RegisterProviders.class);
+        RegisterProviders registerProviders = restClientInterface.getAnnotation(RegisterProviders.class);
         if (registerProviders != null) {
             for (RegisterProvider registerProvider : registerProviders.value()) {
                 registerSingleProvider(restClientBuilder, registerProvider);
@@ -67,7 +91,7 @@ public class InjectableRestClient implements InvocationHandler {
         // TODO Providers from config com.mycompany.remoteServices.MyServiceClient/mp-rest/providers
     }
 
-    private void registerSingleProvider(RestClientBuilder restClientBuilder, RegisterProvider provider) {
+    private static void registerSingleProvider(RestClientBuilder restClientBuilder, RegisterProvider provider) {
         Class<?> providerClass = provider.value();
         int priority = provider.priority();
         if (priority == -1) {
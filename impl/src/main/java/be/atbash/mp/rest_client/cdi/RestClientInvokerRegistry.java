@@ -0,0 +1,73 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.cdi;
+
+import be.atbash.mp.rest_client.RestClientInvoker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The {@code RestClientInvoker}s of the injected rest clients, one for each interface and shared by all injection
+ * points of the application. The beans of the interfaces only have the {@code @RestClient} qualifier, so the
+ * interface identifies the configuration.
+ */
+final class RestClientInvokerRegistry {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RestClientInvokerRegistry.class);
+
+    interface InvokerFactory {
+        RestClientInvoker create(Class<?> restClientInterface);
+    }
+
+    private final ConcurrentMap<Class<?>, RestClientInvoker> invokers = new ConcurrentHashMap<>();
+    private volatile boolean closed;
+
+    /**
+     * Returns the invoker for the interface, created with the factory by the first caller. Concurrent first calls wait
+     * for that invoker instead of creating their own.
+     */
+    RestClientInvoker getInvoker(Class<?> restClientInterface, InvokerFactory factory) {
+        if (closed) {
+            throw new IllegalStateException("Rest clients are closed, the application is shutting down");
+        }
+        RestClientInvoker result = invokers.get(restClientInterface);
+        if (result == null) {
+            result = invokers.computeIfAbsent(restClientInterface, factory::create);
+        }
+        return result;
+    }
+
+    /**
+     * Closes the invokers (releasing their JAX-RS clients and transports), called when the container shuts down.
+     */
+    void close() {
+        closed = true;
+        List<RestClientInvoker> toClose = new ArrayList<>(invokers.values());
+        invokers.clear();
+        for (RestClientInvoker invoker : toClose) {
+            try {
+                invoker.close();
+            } catch (RuntimeException e) {
+                LOGGER.warn("Closing rest client failed", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.client;
+
+import java.net.URI;
+import java.util.*;
+
+/**
+ * Identifies the effective configuration of a JAX-RS {@code Client}; the registered providers, the properties and the
+ * authority of the base URL. Rest clients with an equal key can share the same JAX-RS {@code Client} (and thus the
+ * connection pool).
+ * <p>
+ * Providers registered as a class are compared by class, providers registered as an instance are compared by identity
+ * since they can have state.
+ */
+public final class ClientKey {
+
+    private final List<Registration> registrations;
+    private final Map<String, Object> properties;
+    private final String authority;
+    private final int hashCode;
+
+    private ClientKey(List<Registration> registrations, Map<String, Object> properties, String authority) {
+        this.registrations = registrations;
+        this.properties = properties;
+        this.authority = authority;
+        hashCode = Objects.hash(registrations, properties, authority);
+    }
+
+    String getAuthority() {
+        return authority;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ClientKey)) {
+            return false;
+        }
+        ClientKey clientKey = (ClientKey) o;
+        return hashCode == clientKey.hashCode
+                && authority.equals(clientKey.authority)
+                && registrations.equals(clientKey.registrations)
+                && properties.equals(clientKey.properties);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        return "ClientKey{authority='" + authority + "', registrations=" + registrations + ", properties=" + properties.keySet() + '}';
+    }
+
+    /**
+     * Collects the configuration of a {@code RestClientBuilder}.
+     */
+    public static class Builder {
+
+        private List<Registration> registrations = new ArrayList<>();
+        private Map<String, Object> properties = new HashMap<>();
+
+        public void registerClass(Class<?> componentClass, Integer priority, Class<?>[] contracts) {
+            registrations.add(new Registration(componentClass, priority, contracts));
+        }
+
+        public void registerInstance(Object component, Integer priority, Class<?>[] contracts) {
+            registrations.add(new Registration(new InstanceReference(component), priority, contracts));
+        }
+
+        public void property(String name, Object value) {
+            if (value == null) {
+                properties.remove(name);
+            } else {
+                properties.put(name, value);
+            }
+        }
+
+        public ClientKey build(String baseURI) {
+            URI uri = URI.create(baseURI);
+            String authority = uri.getScheme() + "://" + uri.getRawAuthority();
+            return new ClientKey(new ArrayList<>(registrations), new HashMap<>(properties), authority);
+        }
+    }
+
+    private static final class Registration {
+        private final Object component;
+        private final Integer priority;
+        private final List<Class<?>> contracts;
+
+        Registration(Object component, Integer priority, Class<?>[] contracts) {
+            this.component = component;
+            this.priority = priority;
+            this.contracts = contracts == null ? null : Arrays.asList(contracts);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Registration)) {
+                return false;
+            }
+            Registration that = (Registration) o;
+            return component.equals(that.component)
+                    && Objects.equals(priority, that.priority)
+                    && Objects.equals(contracts, that.contracts);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(component, priority, contracts);
+        }
+
+        @Override
+        public String toString() {
+            return component.toString();
+        }
+    }
+
+    /**
+     * Compares the provider instance by identity.
+     */
+    private static final class InstanceReference {
+        private final Object instance;
+
+        InstanceReference(Object instance) {
+            this.instance = instance;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof InstanceReference && ((InstanceReference) o).instance == instance;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(instance);
+        }
+
+        @Override
+        public String toString() {
+            return instance.getClass().getName() + '@' + Integer.toHexString(hashCode());
+        }
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.client;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the JAX-RS {@code Client}s which are shared between the rest clients created from an equivalent
+ * configuration (see {@link ClientKey}). A {@code Client} is reference counted and closed when the last rest client
+ * using it is released or garbage collected.
+ * <p>
+ * The {@code Client}s of garbage collected rest clients are released by a daemon thread which waits on the
+ * {@code ReferenceQueue} of the owners. The thread only runs while owners are registered, so it doesn't keep the class
+ * loader of an undeployed application alive.
+ */
+public final class ClientRegistry {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ClientRegistry.class);
+
+    private static final ClientRegistry INSTANCE = new ClientRegistry();
+
+    private static final long CLEANER_IDLE_MILLIS = TimeUnit.SECONDS.toMillis(60);
+
+    // Guarded by this
+    private final Map<ClientKey, SharedClient> clients = new HashMap<>();
+
+    private final ReferenceQueue<Object> ownerQueue = new ReferenceQueue<>();
+    // Keep the references reachable until they are enqueued, looked up by the identity of the owner.
+    private final ConcurrentMap<Object, OwnerReference> ownerReferences = new ConcurrentHashMap<>();
+
+    // Guarded by this
+    private boolean cleanerRunning;
+
+    private ClientRegistry() {
+    }
+
+    public static ClientRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the {@code Client} for the configuration, built with the {@code ClientBuilder} when there is no
+     * {@code Client} yet for an equal key. Every call must be balanced by a call to {@link #release(ClientKey)}
+     * (or use {@link #releaseWhenUnreachable(Object, ClientKey)}).
+     */
+    public synchronized Client acquire(ClientKey key, ClientBuilder clientBuilder) {
+        SharedClient sharedClient = clients.get(key);
+        if (sharedClient == null) {
+            sharedClient = new SharedClient(clientBuilder.build());
+            clients.put(key, sharedClient);
+            LOGGER.debug(String.format("Created JAX-RS client for %s", key));
+        }
+        sharedClient.referenceCount++;
+        return sharedClient.client;
+    }
+
+    public void release(ClientKey key) {
+        Client toClose = null;
+        synchronized (this) {
+            SharedClient sharedClient = clients.get(key);
+            if (sharedClient != null) {
+                sharedClient.referenceCount--;
+                if (sharedClient.referenceCount <= 0) {
+                    clients.remove(key);
+                    toClose = sharedClient.client;
+                }
+            }
+        }
+        if (toClose != null) {
+            closeClient(key, toClose);
+        }
+    }
+
+    /**
+     * Releases the {@code Client} for the key when the owner (the invoker of the rest client) is garbage collected.
+     */
+    public void releaseWhenUnreachable(Object owner, ClientKey key) {
+        OwnerReference ownerReference = new OwnerReference(owner, key, ownerQueue);
+        ownerReferences.put(ownerReference, ownerReference);
+        startCleaner();
+    }
+
+    /**
+     * Releases the {@code Client} registered with {@link #releaseWhenUnreachable(Object, ClientKey)} now, because the
+     * owner is closed explicitly. Nothing happens when the owner isn't registered (anymore).
+     */
+    public void releaseOwner(Object owner) {
+        OwnerReference ownerReference = ownerReferences.remove(new OwnerLookup(owner));
+        if (ownerReference != null) {
+            ownerReference.clear();
+            release(ownerReference.key);
+        }
+    }
+
+    private synchronized void startCleaner() {
+        if (!cleanerRunning) {
+            cleanerRunning = true;
+            Thread cleaner = new Thread(this::expungeUnreachableOwners, "atbash-rest-client-cleaner");
+            cleaner.setDaemon(true);
+            // Don't pin the class loader of the application which happens to create the thread.
+            cleaner.setContextClassLoader(ClientRegistry.class.getClassLoader());
+            cleaner.start();
+        }
+    }
+
+    private void expungeUnreachableOwners() {
+        try {
+            while (true) {
+                Reference<?> reference = ownerQueue.remove(CLEANER_IDLE_MILLIS);
+                if (reference != null) {
+                    OwnerReference ownerReference = (OwnerReference) reference;
+                    if (ownerReferences.remove(ownerReference) != null) {
+                        release(ownerReference.key);
+                    }
+                } else if (stopCleanerWhenIdle()) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            synchronized (this) {
+                cleanerRunning = false;
+            }
+        }
+    }
+
+    private synchronized boolean stopCleanerWhenIdle() {
+        // An owner registered after this check starts a new thread.
+        if (ownerReferences.isEmpty()) {
+            cleanerRunning = false;
+        }
+        return !cleanerRunning;
+    }
+
+    private static void closeClient(ClientKey key, Client client) {
+        try {
+            client.close();
+            LOGGER.debug(String.format("Closed JAX-RS client for %s", key));
+        } catch (RuntimeException e) {
+            LOGGER.warn(String.format("Closing JAX-RS client for %s failed", key), e);
+        }
+    }
+
+    private static final class SharedClient {
+        private final Client client;
+        private int referenceCount;
+
+        SharedClient(Client client) {
+            this.client = client;
+        }
+    }
+
+    private static final class OwnerReference extends WeakReference<Object> {
+        private final ClientKey key;
+        private final int hash;
+
+        OwnerReference(Object owner, ClientKey key, ReferenceQueue<Object> queue) {
+            super(owner, queue);
+            this.key = key;
+            hash = System.identityHashCode(owner);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            Object owner = get();
+            return owner != null && o instanceof OwnerLookup && ((OwnerLookup) o).owner == owner;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class OwnerLookup {
+        private final Object owner;
+
+        OwnerLookup(Object owner) {
+            this.owner = owner;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof OwnerReference && ((OwnerReference) o).get() == owner;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(owner);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.executor;
+
+import be.atbash.util.reflection.ClassUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Provides the {@code ExecutorService}s used for the asynchronous methods of the rest clients.
+ */
+public final class ExecutorServices {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExecutorServices.class);
+
+    private static final ConcurrentMap<String, ExecutorService> CONFIGURED_EXECUTORS = new ConcurrentHashMap<>();
+
+    // Number of threads of the platform pool used when virtual threads are not supported by the JVM.
+    private static final int PLATFORM_POOL_SIZE = Math.max(16, Runtime.getRuntime().availableProcessors() * 4);
+
+    private ExecutorServices() {
+    }
+
+    /**
+     * The executor used when nothing is specified on the builder or within the configuration. It uses daemon threads
+     * so that it doesn't prevent the JVM from stopping.
+     */
+    public static ExecutorService getDefault() {
+        return DefaultExecutorHolder.INSTANCE;
+    }
+
+    /**
+     * Returns the executor defined by the class name (of an {@code ExecutorService} implementation with a public no-arg
+     * constructor). One instance for each class name is created and shared by all rest clients.
+     */
+    public static ExecutorService getConfigured(String className) {
+        ExecutorService result = CONFIGURED_EXECUTORS.get(className);
+        if (result == null) {
+            result = CONFIGURED_EXECUTORS.computeIfAbsent(className, ExecutorServices::newExecutorService);
+        }
+        return result;
+    }
+
+    /**
+     * The executor which runs each task on a new virtual thread (Java 21+). When the JVM has no support for virtual
+     * threads, a bounded pool of platform (daemon) threads is used.
+     */
+    public static ExecutorService getVirtualThreadExecutor() {
+        return VirtualThreadExecutorHolder.INSTANCE;
+    }
+
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+            LOGGER.info(String.format("Virtual threads are not supported by the JVM, using a pool of %s platform threads", PLATFORM_POOL_SIZE));
+            ThreadPoolExecutor result = new ThreadPoolExecutor(PLATFORM_POOL_SIZE, PLATFORM_POOL_SIZE, 60L, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(), new DaemonThreadFactory("atbash-rest-client-platform-"));
+            result.allowCoreThreadTimeOut(true);
+            return result;
+        }
+    }
+
+    private static ExecutorService newExecutorService(String className) {
+        Object instance = ClassUtils.newInstance(className);
+        if (!(instance instanceof ExecutorService)) {
+            throw new IllegalArgumentException(String.format("Class %s is not a %s", className, ExecutorService.class.getName()));
+        }
+        return (ExecutorService) instance;
+    }
+
+    /**
+     * ThreadFactory creating daemon threads with a recognizable name.
+     */
+    static final class DaemonThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+        private final String prefix;
+
+        DaemonThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, prefix + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    private static final class DefaultExecutorHolder {
+        private static final ExecutorService INSTANCE = Executors.newCachedThreadPool(new DaemonThreadFactory("atbash-rest-client-async-"));
+    }
+
+    private static final class VirtualThreadExecutorHolder {
+        private static final ExecutorService INSTANCE = newVirtualThreadExecutor();
+    }
+}
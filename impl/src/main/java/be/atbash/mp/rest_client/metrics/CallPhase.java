@@ -0,0 +1,51 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.metrics;
+
+/**
+ * The consecutive parts of a call, see {@link CallTiming}.
+ */
+public enum CallPhase {
+
+    /**
+     * Binding the arguments of the method and determining the URL. For methods returning a {@code CompletionStage}
+     * with the JAX-RS client, including waiting for the executor.
+     */
+    URL,
+
+    /**
+     * Preparing the request: headers and writing the entity with the {@code MessageBodyWriter}. With the JAX-RS
+     * client, the writers and filters run when the request is sent, and are part of {@link #NETWORK}.
+     */
+    REQUEST,
+
+    /**
+     * Waiting for a connection of the transport (or a stream of an HTTP/2 connection) and opening one. Not measured
+     * with the JAX-RS client, it is part of {@link #NETWORK}.
+     */
+    CONNECTION,
+
+    /**
+     * Sending the request until the response is received, including the entity unless the response is streamed. For
+     * methods returning a {@code CompletionStage}, including handing the response to the executor.
+     */
+    NETWORK,
+
+    /**
+     * Exception mapping and reading the entity with the {@code MessageBodyReader} ({@code readEntity}).
+     */
+    READ_ENTITY
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+/**
+ * The moments at which a call finished each {@link CallPhase}. Only created when a {@link CallTimingListener} is
+ * present or the phases are aggregated in the {@link MethodMetrics}. The {@code RestClientInvoker} and the transports
+ * mark the end of the phases, a phase which isn't marked (like {@link CallPhase#CONNECTION} with a transport which
+ * doesn't report it) has a duration of 0 and is part of the next phase.
+ */
+public final class CallTiming {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CallTiming.class);
+
+    private static final CallPhase[] PHASES = CallPhase.values();
+
+    private final Method method;
+    private final MethodMetrics metrics;
+    private final List<CallTimingListener> listeners;
+    private final long start;
+    // 0 when the phase isn't marked.
+    private final long[] ends = new long[PHASES.length];
+    private long end;
+    private Throwable failure;
+
+    CallTiming(Method method, MethodMetrics metrics, List<CallTimingListener> listeners) {
+        this.method = method;
+        this.metrics = metrics;
+        this.listeners = listeners;
+        start = System.nanoTime();
+    }
+
+    /**
+     * The method of the rest client interface.
+     */
+    public Method getMethod() {
+        return method;
+    }
+
+    /**
+     * The phase ends now, called by the invoker and the transports.
+     */
+    public void mark(CallPhase phase) {
+        ends[phase.ordinal()] = System.nanoTime();
+    }
+
+    /**
+     * The call ends, the last phase which is reached ends as well. Records the durations in the metrics and calls the
+     * listeners.
+     *
+     * @param failure The exception of the call, null when successful.
+     */
+    public void end(Throwable failure) {
+        end = System.nanoTime();
+        this.failure = failure;
+        if (metrics != null) {
+            metrics.recordPhases(this);
+        }
+        for (CallTimingListener listener : listeners) {
+            notify(listener);
+        }
+        for (CallTimingListener listener : RestClientMetrics.getInstance().getTimingListeners()) {
+            notify(listener);
+        }
+    }
+
+    private void notify(CallTimingListener listener) {
+        try {
+            listener.onCall(this);
+        } catch (RuntimeException e) {
+            // The call itself succeeded or has its own exception.
+            LOGGER.warn(String.format("CallTimingListener %s failed", listener.getClass().getName()), e);
+        }
+    }
+
+    /**
+     * Duration of the phase in nanoseconds, 0 when the phase isn't measured or reached. The phase after the last marked
+     * one ends with the call, this is {@link CallPhase#READ_ENTITY} or the phase in progress when the call failed.
+     */
+    public long getDuration(CallPhase phase) {
+        int index = phase.ordinal();
+        long phaseEnd = ends[index];
+        if (phaseEnd == 0) {
+            if (index != getLastMarked() + 1) {
+                return 0;
+            }
+            phaseEnd = end;
+        }
+        long phaseStart = start;
+        for (int i = index - 1; i >= 0; i--) {
+            if (ends[i] != 0) {
+                phaseStart = ends[i];
+                break;
+            }
+        }
+        return phaseEnd - phaseStart;
+    }
+
+    private int getLastMarked() {
+        for (int i = ends.length - 1; i >= 0; i--) {
+            if (ends[i] != 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Duration of the call in nanoseconds.
+     */
+    public long getTotal() {
+        return end - start;
+    }
+
+    /**
+     * The exception of the call, null when successful.
+     */
+    public Throwable getFailure() {
+        return failure;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder(method.getDeclaringClass().getSimpleName()).append('.').append(method.getName());
+        for (CallPhase phase : PHASES) {
+            result.append(' ').append(phase).append('=').append(getDuration(phase) / 1000).append("us");
+        }
+        return result.append(" total=").append(getTotal() / 1000).append("us").toString();
+    }
+}
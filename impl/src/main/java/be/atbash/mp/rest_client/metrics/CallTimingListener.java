@@ -0,0 +1,27 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.metrics;
+
+/**
+ * Receives the duration of the phases of each call. Implementations are discovered with the {@code ServiceLoader}
+ * (META-INF/services/be.atbash.mp.rest_client.metrics.CallTimingListener) when a rest client is built, or added with
+ * {@link RestClientMetrics#addTimingListener(CallTimingListener)}. Called on the thread which finishes the call, so it
+ * must return quickly.
+ */
+public interface CallTimingListener {
+
+    void onCall(CallTiming timing);
+}
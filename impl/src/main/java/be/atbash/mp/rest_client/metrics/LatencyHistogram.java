@@ -0,0 +1,156 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of durations in nanoseconds with log-linear buckets: each power of two is divided in 8 buckets, so a value
+ * is known within 12.5%. Durations below 1 microsecond share the first bucket, durations above 2^40 nanoseconds
+ * (about 18 minutes) the last. Recording doesn't lock and threads don't contend, the counts are {@code LongAdder}s.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int LOWEST_EXPONENT = 10;
+    private static final int HIGHEST_EXPONENT = 40;
+    // One bucket below the lowest and one above the highest exponent.
+    private static final int BUCKETS = (HIGHEST_EXPONENT - LOWEST_EXPONENT) * SUB_BUCKETS + 2;
+
+    private final LongAdder[] counts = new LongAdder[BUCKETS];
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * @param duration Duration in nanoseconds.
+     */
+    public void record(long duration) {
+        long value = Math.max(duration, 0);
+        counts[getBucket(value)].increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    private static int getBucket(long value) {
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent < LOWEST_EXPONENT) {
+            return 0;
+        }
+        if (exponent >= HIGHEST_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - LOWEST_EXPONENT) * SUB_BUCKETS + subBucket + 1;
+    }
+
+    /**
+     * The highest value which is counted in the bucket.
+     */
+    private static long getHighestValue(int bucket) {
+        if (bucket == 0) {
+            return (1L << LOWEST_EXPONENT) - 1;
+        }
+        if (bucket == BUCKETS - 1) {
+            return Long.MAX_VALUE;
+        }
+        int exponent = (bucket - 1) / SUB_BUCKETS + LOWEST_EXPONENT;
+        int subBucket = (bucket - 1) % SUB_BUCKETS;
+        return (1L << exponent) + ((long) (subBucket + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+
+    /**
+     * The number of recorded values.
+     */
+    public long getCount() {
+        long result = 0;
+        for (LongAdder bucketCount : counts) {
+            result += bucketCount.sum();
+        }
+        return result;
+    }
+
+    /**
+     * The counts at this moment. Values recorded while the snapshot is taken can be partially included.
+     */
+    public Snapshot getSnapshot() {
+        long[] values = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            values[i] = counts[i].sum();
+            count += values[i];
+        }
+        return new Snapshot(values, count, sum.sum(), max.get());
+    }
+
+    /**
+     * The counts of a {@link LatencyHistogram} at a certain moment, durations in nanoseconds.
+     */
+    public static final class Snapshot {
+
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        private Snapshot(long[] counts, long count, long sum, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getMean() {
+            return count == 0 ? 0 : (double) sum / count;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        /**
+         * The duration which is not exceeded by the percentage of the values, as the highest value of the bucket
+         * (and never above the maximum).
+         *
+         * @param percentile Between 0 and 100.
+         */
+        public long getValueAtPercentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long target = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+            long total = 0;
+            for (int i = 0; i < counts.length; i++) {
+                total += counts[i];
+                if (total >= target) {
+                    return Math.min(getHighestValue(i), max);
+                }
+            }
+            return max;
+        }
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.metrics;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of the calls of a method of a rest client interface. The recording methods are called by the
+ * {@code RestClientInvoker}, they don't lock and threads don't contend.
+ */
+public final class MethodMetrics {
+
+    private static final CallPhase[] PHASES = CallPhase.values();
+
+    private final String interfaceName;
+    private final String methodName;
+
+    // The finished calls are counted by the histogram, the calls in flight are the difference.
+    private final LongAdder started = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    // Index is status class - 1 (1xx to 5xx)
+    private final LongAdder[] responses = new LongAdder[5];
+    private final LongAdder requestBytes = new LongAdder();
+    private final LongAdder responseBytes = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+    // Index is the ordinal of the CallPhase, null when phases aren't aggregated.
+    private final LatencyHistogram[] phaseLatency;
+
+    MethodMetrics(Method method) {
+        interfaceName = method.getDeclaringClass().getName();
+        methodName = method.getName();
+        for (int i = 0; i < responses.length; i++) {
+            responses[i] = new LongAdder();
+        }
+        if (RestClientMetrics.getInstance().isPhasesEnabled()) {
+            phaseLatency = new LatencyHistogram[PHASES.length];
+            for (int i = 0; i < phaseLatency.length; i++) {
+                phaseLatency[i] = new LatencyHistogram();
+            }
+        } else {
+            phaseLatency = null;
+        }
+    }
+
+    public String getInterfaceName() {
+        return interfaceName;
+    }
+
+    public String getMethodName() {
+        return methodName;
+    }
+
+    /**
+     * The call starts.
+     *
+     * @return The start time, to pass to {@link #end(long, Throwable)}.
+     */
+    public long start() {
+        started.increment();
+        return System.nanoTime();
+    }
+
+    /**
+     * The call ended, the result is returned or the {@code CompletionStage} completed.
+     *
+     * @param start   The value returned by {@link #start()}.
+     * @param failure The exception of the call, null when successful.
+     */
+    public void end(long start, Throwable failure) {
+        latency.record(System.nanoTime() - start);
+        if (failure != null) {
+            errors.increment();
+        }
+    }
+
+    /**
+     * @param length The length of the request entity, -1 when unknown.
+     */
+    public void request(long length) {
+        if (length > 0) {
+            requestBytes.add(length);
+        }
+    }
+
+    /**
+     * @param status The status of the response.
+     * @param length The length of the response entity (Content-Length), -1 when unknown.
+     */
+    public void response(int status, long length) {
+        int statusClass = status / 100;
+        if (statusClass >= 1 && statusClass <= responses.length) {
+            responses[statusClass - 1].increment();
+        }
+        if (length > 0) {
+            responseBytes.add(length);
+        }
+    }
+
+    void recordPhases(CallTiming timing) {
+        for (CallPhase phase : PHASES) {
+            phaseLatency[phase.ordinal()].record(timing.getDuration(phase));
+        }
+    }
+
+    /**
+     * Number of finished calls.
+     */
+    public long getCalls() {
+        return latency.getCount();
+    }
+
+    /**
+     * Number of calls which ended with an exception, like a mapped error status or a connection failure.
+     */
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    /**
+     * Number of calls which are started and not yet ended.
+     */
+    public long getInFlight() {
+        // Finished calls first, so that a call ending in between isn't counted as finished but not started.
+        long calls = latency.getCount();
+        return started.sum() - calls;
+    }
+
+    /**
+     * Number of responses within the status class.
+     *
+     * @param statusClass 1 to 5, like 5 for the 5xx statuses.
+     */
+    public long getResponses(int statusClass) {
+        if (statusClass < 1 || statusClass > responses.length) {
+            throw new IllegalArgumentException(String.format("Status class must be between 1 and %s", responses.length));
+        }
+        return responses[statusClass - 1].sum();
+    }
+
+    /**
+     * Bytes of the request entities, when their length is known before they are sent (only with a transport).
+     */
+    public long getRequestBytes() {
+        return requestBytes.sum();
+    }
+
+    /**
+     * Bytes of the response entities, as indicated by the Content-Length header.
+     */
+    public long getResponseBytes() {
+        return responseBytes.sum();
+    }
+
+    /**
+     * Duration of the calls, in nanoseconds. For methods returning a {@code CompletionStage}, until the stage is
+     * completed. For a streamed entity ({@code InputStream}, {@code Reader} or {@code Response}), until the headers
+     * are received.
+     */
+    public LatencyHistogram.Snapshot getLatency() {
+        return latency.getSnapshot();
+    }
+
+    /**
+     * Are the durations of the phases of the calls kept (parameter {@code atbash.rest.client.metrics.phases})?
+     */
+    public boolean hasPhases() {
+        return phaseLatency != null;
+    }
+
+    /**
+     * Duration of a phase of the calls, in nanoseconds. Null when the phases aren't kept.
+     */
+    public LatencyHistogram.Snapshot getPhaseLatency(CallPhase phase) {
+        return phaseLatency == null ? null : phaseLatency[phase.ordinal()].getSnapshot();
+    }
+
+    @Override
+    public String toString() {
+        return interfaceName + '.' + methodName;
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.metrics;
+
+import org.eclipse.microprofile.metrics.Gauge;
+import org.eclipse.microprofile.metrics.Metadata;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.MetricType;
+import org.eclipse.microprofile.metrics.MetricUnits;
+import org.eclipse.microprofile.metrics.annotation.RegistryType;
+
+import javax.enterprise.inject.spi.Bean;
+import javax.enterprise.inject.spi.BeanManager;
+import javax.enterprise.util.AnnotationLiteral;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * Publishes the {@link MethodMetrics} as gauges in the vendor registry of MicroProfile Metrics. Only used when the
+ * MicroProfile Metrics API is available in the application.
+ */
+public final class MicroProfileMetrics {
+
+    private static final String PREFIX = "atbash.rest.client.";
+
+    private final Consumer<MethodMetrics> listener;
+
+    private MicroProfileMetrics(MetricRegistry registry) {
+        listener = metrics -> register(registry, metrics);
+    }
+
+    /**
+     * Registers the gauges of the current and future rest client methods, until {@link #unregister()} is called.
+     *
+     * @return null when the application has no vendor {@code MetricRegistry}.
+     */
+    public static MicroProfileMetrics register(BeanManager beanManager) {
+        Set<Bean<?>> beans = beanManager.getBeans(MetricRegistry.class, new VendorRegistryLiteral());
+        if (beans.isEmpty()) {
+            return null;
+        }
+        Bean<?> bean = beanManager.resolve(beans);
+        MetricRegistry registry = (MetricRegistry) beanManager.getReference(bean, MetricRegistry.class, beanManager.createCreationalContext(bean));
+        MicroProfileMetrics result = new MicroProfileMetrics(registry);
+        RestClientMetrics.getInstance().addListener(result.listener);
+        return result;
+    }
+
+    /**
+     * Stops registering the gauges of new rest client methods, so that the registry of the application is no longer
+     * referenced.
+     */
+    public void unregister() {
+        RestClientMetrics.getInstance().removeListener(listener);
+    }
+
+    private static void register(MetricRegistry registry, MethodMetrics metrics) {
+        String name = PREFIX + metrics.getInterfaceName() + '.' + metrics.getMethodName() + '.';
+        register(registry, name + "calls", "Number of finished calls", MetricUnits.NONE, metrics, MethodMetrics::getCalls);
+        register(registry, name + "errors", "Number of calls ended with an exception", MetricUnits.NONE, metrics, MethodMetrics::getErrors);
+        register(registry, name + "inFlight", "Number of running calls", MetricUnits.NONE, metrics, MethodMetrics::getInFlight);
+        register(registry, name + "requestBytes", "Bytes of the request entities", MetricUnits.BYTES, metrics, MethodMetrics::getRequestBytes);
+        register(registry, name + "responseBytes", "Bytes of the response entities", MetricUnits.BYTES, metrics, MethodMetrics::getResponseBytes);
+        for (int statusClass = 1; statusClass <= 5; statusClass++) {
+            int value = statusClass;
+            register(registry, name + "responses." + statusClass + "xx", "Number of responses with status " + statusClass + "xx",
+                    MetricUnits.NONE, metrics, m -> m.getResponses(value));
+        }
+        register(registry, name + "latency.mean", "Mean duration of the calls", MetricUnits.NANOSECONDS, metrics,
+                m -> (long) m.getLatency().getMean());
+        register(registry, name + "latency.p50", "Median duration of the calls", MetricUnits.NANOSECONDS, metrics,
+                m -> m.getLatency().getValueAtPercentile(50));
+        register(registry, name + "latency.p99", "99th percentile of the duration of the calls", MetricUnits.NANOSECONDS, metrics,
+                m -> m.getLatency().getValueAtPercentile(99));
+        register(registry, name + "latency.max", "Maximum duration of the calls", MetricUnits.NANOSECONDS, metrics,
+                m -> m.getLatency().getMax());
+        if (metrics.hasPhases()) {
+            for (CallPhase phase : CallPhase.values()) {
+                String phaseName = name + "phase." + phase.name().toLowerCase(Locale.ENGLISH) + '.';
+                register(registry, phaseName + "mean", "Mean duration of the " + phase + " phase", MetricUnits.NANOSECONDS, metrics,
+                        m -> (long) m.getPhaseLatency(phase).getMean());
+                register(registry, phaseName + "p99", "99th percentile of the duration of the " + phase + " phase", MetricUnits.NANOSECONDS, metrics,
+                        m -> m.getPhaseLatency(phase).getValueAtPercentile(99));
+            }
+        }
+    }
+
+    private static void register(MetricRegistry registry, String name, String description, String unit, MethodMetrics metrics,
+                                 ToLongFunction<MethodMetrics> value) {
+        if (registry.getNames().contains(name)) {
+            // Metrics of a previous deployment.
+            registry.remove(name);
+        }
+        Gauge<Long> gauge = () -> value.applyAsLong(metrics);
+        registry.register(new Metadata(name, name, description, MetricType.GAUGE, unit), gauge);
+    }
+
+    private static class VendorRegistryLiteral extends AnnotationLiteral<RegistryType> implements RegistryType {
+
+        @Override
+        public MetricRegistry.Type type() {
+            return MetricRegistry.Type.VENDOR;
+        }
+    }
+}
@@ -0,0 +1,269 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.metrics;
+
+import be.atbash.config.ConfigOptionalValue;
+import be.atbash.mp.rest_client.ClassLoaderCache;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * The {@link MethodMetrics} of all rest client methods. Metrics are only kept when enabled with the configuration
+ * parameter {@code atbash.rest.client.metrics=true} or with {@link #setEnabled(boolean)}, for the rest clients built
+ * afterwards. The rest clients of the same interface share the metrics, which are kept with the interface (in a
+ * {@code ClassValue}) so that they don't prevent the class loader of the application from being unloaded.
+ * <p>
+ * The duration of the phases of the calls ({@link CallTiming}) are passed to the {@link CallTimingListener}s, and
+ * aggregated in the metrics with the parameter {@code atbash.rest.client.metrics.phases=true}.
+ */
+public final class RestClientMetrics {
+
+    private static final String METRICS_CONFIG = "atbash.rest.client.metrics";
+    private static final String PHASES_CONFIG = "atbash.rest.client.metrics.phases";
+
+    private static final RestClientMetrics INSTANCE = new RestClientMetrics();
+
+    private final ClassValue<ConcurrentMap<Method, MethodMetrics>> methodMetrics = new ClassValue<ConcurrentMap<Method, MethodMetrics>>() {
+        @Override
+        protected ConcurrentMap<Method, MethodMetrics> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+    // The interfaces having metrics, to find all metrics. Only weak references to the classes.
+    private final Set<Class<?>> interfaces = Collections.newSetFromMap(new WeakHashMap<Class<?>, Boolean>());
+    private final List<Consumer<MethodMetrics>> listeners = new CopyOnWriteArrayList<>();
+    private final List<CallTimingListener> timingListeners = new CopyOnWriteArrayList<>();
+    private final ClassLoaderCache<List<CallTimingListener>> discoveredTimingListeners = new ClassLoaderCache<>(RestClientMetrics::classesOf);
+
+    private volatile Boolean enabled;
+    private volatile Boolean phasesEnabled;
+
+    private RestClientMetrics() {
+    }
+
+    public static RestClientMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    public boolean isEnabled() {
+        Boolean result = enabled;
+        if (result == null) {
+            Boolean value = ConfigOptionalValue.getValue(METRICS_CONFIG, Boolean.class);
+            result = value != null && value;
+            enabled = result;
+        }
+        return result;
+    }
+
+    /**
+     * Overrules the configuration parameter, for the rest clients which are built afterwards.
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Are the durations of the phases of the calls aggregated in the {@link MethodMetrics} (when metrics are enabled)?
+     */
+    public boolean isPhasesEnabled() {
+        Boolean result = phasesEnabled;
+        if (result == null) {
+            Boolean value = ConfigOptionalValue.getValue(PHASES_CONFIG, Boolean.class);
+            result = value != null && value;
+            phasesEnabled = result;
+        }
+        return result;
+    }
+
+    /**
+     * Overrules the configuration parameter, for the methods of which the metrics are created afterwards.
+     */
+    public void setPhasesEnabled(boolean phasesEnabled) {
+        this.phasesEnabled = phasesEnabled;
+    }
+
+    /**
+     * The metrics of the method, null when metrics aren't enabled.
+     */
+    public MethodMetrics forMethod(Method method) {
+        if (!isEnabled()) {
+            return null;
+        }
+        Class<?> type = method.getDeclaringClass();
+        ConcurrentMap<Method, MethodMetrics> metricsOfType = methodMetrics.get(type);
+        MethodMetrics result = metricsOfType.get(method);
+        if (result == null) {
+            MethodMetrics created = new MethodMetrics(method);
+            result = metricsOfType.putIfAbsent(method, created);
+            if (result == null) {
+                result = created;
+                synchronized (interfaces) {
+                    interfaces.add(type);
+                }
+                for (Consumer<MethodMetrics> listener : listeners) {
+                    listener.accept(created);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The metrics of all methods which are part of a rest client built since metrics are enabled.
+     */
+    public Collection<MethodMetrics> getAll() {
+        List<MethodMetrics> result = new ArrayList<>();
+        for (Class<?> type : getInterfaces()) {
+            result.addAll(methodMetrics.get(type).values());
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    private List<Class<?>> getInterfaces() {
+        synchronized (interfaces) {
+            return new ArrayList<>(interfaces);
+        }
+    }
+
+    /**
+     * The listener is called for the existing metrics and each time metrics for another method are created, to
+     * publish them in a metrics system.
+     */
+    public void addListener(Consumer<MethodMetrics> listener) {
+        listeners.add(listener);
+        for (MethodMetrics metrics : getAll()) {
+            listener.accept(metrics);
+        }
+    }
+
+    public void removeListener(Consumer<MethodMetrics> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * The listener receives the timing of all calls, from now on.
+     */
+    public void addTimingListener(CallTimingListener listener) {
+        timingListeners.add(listener);
+    }
+
+    public void removeTimingListener(CallTimingListener listener) {
+        timingListeners.remove(listener);
+    }
+
+    /**
+     * The listeners added with {@link #addTimingListener(CallTimingListener)}.
+     */
+    public List<CallTimingListener> getTimingListeners() {
+        return timingListeners;
+    }
+
+    /**
+     * The {@link CallTimingListener}s defined with the {@code ServiceLoader} mechanism, discovered once for each
+     * context class loader.
+     */
+    public List<CallTimingListener> discoverTimingListeners() {
+        return discoveredTimingListeners.get(Thread.currentThread().getContextClassLoader(), classLoader -> {
+            List<CallTimingListener> discovered = new ArrayList<>();
+            for (CallTimingListener listener : ServiceLoader.load(CallTimingListener.class, classLoader)) {
+                discovered.add(listener);
+            }
+            return discovered.isEmpty() ? Collections.<CallTimingListener>emptyList() : Collections.unmodifiableList(discovered);
+        });
+    }
+
+    private static Collection<Class<?>> classesOf(List<?> instances) {
+        List<Class<?>> result = new ArrayList<>();
+        for (Object instance : instances) {
+            result.add(instance.getClass());
+        }
+        return result;
+    }
+
+    /**
+     * Starts the timing of a call, null when there is no listener and the phases aren't aggregated in the metrics.
+     *
+     * @param metrics   The metrics of the method, null when metrics aren't enabled.
+     * @param listeners The listeners discovered when the rest client was built.
+     */
+    public CallTiming startTiming(Method method, MethodMetrics metrics, List<CallTimingListener> listeners) {
+        MethodMetrics phaseMetrics = metrics != null && metrics.hasPhases() ? metrics : null;
+        if (phaseMetrics == null && listeners.isEmpty() && timingListeners.isEmpty()) {
+            return null;
+        }
+        return new CallTiming(method, phaseMetrics, listeners);
+    }
+
+    /**
+     * Removes the metrics of the interfaces, and the listeners, of the class loader (or one of its children). To be
+     * called when the application with that class loader is undeployed (the CDI extension does this when the container
+     * shuts down). The rest clients built before keep updating their metrics but these are no longer returned.
+     *
+     * @param classLoader The (context) class loader of the application.
+     */
+    public void clear(ClassLoader classLoader) {
+        synchronized (interfaces) {
+            Iterator<Class<?>> iterator = interfaces.iterator();
+            while (iterator.hasNext()) {
+                Class<?> type = iterator.next();
+                if (isLoadedBy(type, classLoader)) {
+                    methodMetrics.remove(type);
+                    iterator.remove();
+                }
+            }
+        }
+        listeners.removeIf(listener -> isLoadedBy(listener.getClass(), classLoader));
+        timingListeners.removeIf(listener -> isLoadedBy(listener.getClass(), classLoader));
+        discoveredTimingListeners.remove(classLoader);
+    }
+
+    private static boolean isLoadedBy(Class<?> type, ClassLoader classLoader) {
+        for (ClassLoader loader = type.getClassLoader(); loader != null; loader = loader.getParent()) {
+            if (loader == classLoader) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes the metrics and listeners of all applications, the rest clients built before keep updating their metrics
+     * but these are no longer returned.
+     */
+    public void clear() {
+        listeners.clear();
+        timingListeners.clear();
+        discoveredTimingListeners.clear();
+        synchronized (interfaces) {
+            for (Class<?> type : interfaces) {
+                methodMetrics.remove(type);
+            }
+            interfaces.clear();
+        }
+    }
+}
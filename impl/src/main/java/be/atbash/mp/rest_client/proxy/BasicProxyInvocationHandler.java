@@ -15,13 +15,10 @@
  */
 package be.atbash.mp.rest_client.proxy;
 
-import org.apache.deltaspike.core.util.ReflectionUtils;
-import org.apache.deltaspike.proxy.api.DeltaSpikeProxyFactory;
 import org.apache.deltaspike.proxy.spi.DeltaSpikeProxy;
 import org.apache.deltaspike.proxy.spi.invocation.DeltaSpikeProxyInvocationHandler;
 
 import java.lang.reflect.InvocationHandler;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 
 /**
@@ -35,35 +32,16 @@ import java.lang.reflect.Method;
 
 public class BasicProxyInvocationHandler extends DeltaSpikeProxyInvocationHandler {
 
-    @Override
-    public Object invoke(Object proxy, Method method, Object[] parameters) throws Throwable {
-
-        DeltaSpikeProxy deltaSpikeProxy = (DeltaSpikeProxy) proxy;
-
-        if (contains(deltaSpikeProxy.getDelegateMethods(), method)) {
-            return deltaSpikeProxy.getDelegateInvocationHandler().invoke(proxy, method, parameters);
-        } else {
-            try {
-                Method superAccessorMethod = DeltaSpikeProxyFactory.getSuperAccessorMethod(proxy, method);
-                return superAccessorMethod.invoke(proxy, parameters);
-            } catch (InvocationTargetException e) {
-                // rethrow original exception
-                throw e.getCause();
-            }
+    // The dispatch of each method is determined once for each proxy class.
+    private static final ClassValue<ProxyDispatchTable> DISPATCH_TABLES = new ClassValue<ProxyDispatchTable>() {
+        @Override
+        protected ProxyDispatchTable computeValue(Class<?> type) {
+            return new ProxyDispatchTable();
         }
-    }
+    };
 
-    protected boolean contains(Method[] methods, Method method) {
-        if (methods == null || methods.length == 0) {
-            return false;
-        }
-
-        for (Method current : methods) {
-            if (ReflectionUtils.hasSameSignature(method, current)) {
-                return true;
-            }
-        }
-
-        return false;
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] parameters) throws Throwable {
+        return DISPATCH_TABLES.get(proxy.getClass()).getDispatch((DeltaSpikeProxy) proxy, method).invoke(proxy, method, parameters);
     }
 }
@@ -36,6 +36,8 @@ public class BasicRestClientProxyFactory {
     private static final BasicRestClientProxyFactory INSTANCE = new BasicRestClientProxyFactory();
     private static final String SUPER_ACCESSOR_METHOD_SUFFIX = "$super";
 
+    private final ProxyClassCache proxyClassCache = new ProxyClassCache(this::collectDelegateMethods);
+
     public static BasicRestClientProxyFactory getInstance() {
         return INSTANCE;
     }
@@ -61,6 +63,10 @@ public class BasicRestClientProxyFactory {
     }
 
     public <T> Class<T> getProxyClass(Class<T> targetClass) {
+        return proxyClassCache.getProxyClass(targetClass, this::resolveProxyClass);
+    }
+
+    private <T> Class<T> resolveProxyClass(Class<T> targetClass) {
         Class<T> proxyClass = this.resolveAlreadyDefinedProxyClass(targetClass);
         if (proxyClass == null) {
             proxyClass = this.createProxyClass(targetClass.getClassLoader(), targetClass);
@@ -69,7 +75,8 @@ public class BasicRestClientProxyFactory {
         return proxyClass;
     }
 
-    private synchronized <T> Class<T> createProxyClass(ClassLoader classLoader, Class<T> targetClass) {
+    // Called while holding the lock of the interface in the ProxyClassCache, proxies of other interfaces are generated concurrently.
+    private <T> Class<T> createProxyClass(ClassLoader classLoader, Class<T> targetClass) {
         Class<T> proxyClass = this.resolveAlreadyDefinedProxyClass(targetClass);
         if (proxyClass == null) {
             ArrayList<Method> allMethods = this.collectAllMethods(targetClass);
@@ -210,6 +217,10 @@ public class BasicRestClientProxyFactory {
     }
 
     public Method[] getDelegateMethods(Class<?> targetClass) {
+        return proxyClassCache.getDelegateMethods(targetClass);
+    }
+
+    private Method[] collectDelegateMethods(Class<?> targetClass) {
         ArrayList<Method> allMethods = this.collectAllMethods(targetClass);
         ArrayList<Method> delegateMethods = this.getDelegateMethods(targetClass, allMethods);
         return delegateMethods == null ? new Method[0] : delegateMethods.toArray(new Method[delegateMethods.size()]);
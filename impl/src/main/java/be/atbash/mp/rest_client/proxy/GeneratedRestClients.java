@@ -0,0 +1,97 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.proxy;
+
+import be.atbash.mp.rest_client.RestClientInvoker;
+import org.eclipse.microprofile.rest.client.RestClientDefinitionException;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Access to the implementations of the rest client interfaces generated at compile time by the annotation processor of
+ * the artifact {@code atbash-rest-client-processor}. Such an implementation is a plain class, named after the
+ * interface with the suffix {@value #SUFFIX}, which calls the {@link RestClientInvoker} directly. The interface is
+ * verified by the processor, so verification and proxy generation are skipped at runtime.
+ */
+public final class GeneratedRestClients {
+
+    public static final String SUFFIX = "$$AtbashRestClient";
+
+    // Only looked up once for each interface, also when there is no generated implementation.
+    private static final ClassValue<Constructor<?>> CONSTRUCTORS = new ClassValue<Constructor<?>>() {
+        @Override
+        protected Constructor<?> computeValue(Class<?> type) {
+            return findConstructor(type);
+        }
+    };
+
+    private GeneratedRestClients() {
+    }
+
+    /**
+     * Is there an implementation generated at compile time for the interface?
+     */
+    public static boolean isAvailable(Class<?> restClientInterface) {
+        return CONSTRUCTORS.get(restClientInterface) != null;
+    }
+
+    /**
+     * Creates the generated implementation of the interface which uses the invoker, null when there is none.
+     */
+    public static <T> T newInstance(Class<T> restClientInterface, RestClientInvoker invoker) {
+        Constructor<?> constructor = CONSTRUCTORS.get(restClientInterface);
+        if (constructor == null) {
+            return null;
+        }
+        try {
+            return restClientInterface.cast(constructor.newInstance(invoker));
+        } catch (InstantiationException | IllegalAccessException e) {
+            throw new IllegalStateException(String.format("Can't create generated rest client %s", constructor.getDeclaringClass().getName()), e);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException(String.format("Can't create generated rest client %s", constructor.getDeclaringClass().getName()), e.getCause());
+        }
+    }
+
+    /**
+     * Used by the generated implementations to look up the methods of the interface, once when the class is initialized.
+     */
+    public static Method method(Class<?> restClientInterface, String name, Class<?>... parameterTypes) {
+        try {
+            return restClientInterface.getMethod(name, parameterTypes);
+        } catch (NoSuchMethodException e) {
+            throw new RestClientDefinitionException(String.format("Generated rest client for %s is out of date, method %s not found", restClientInterface.getName(), name));
+        }
+    }
+
+    private static Constructor<?> findConstructor(Class<?> restClientInterface) {
+        Class<?> generatedClass;
+        try {
+            generatedClass = Class.forName(restClientInterface.getName() + SUFFIX, false, restClientInterface.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+        if (!restClientInterface.isAssignableFrom(generatedClass)) {
+            return null;
+        }
+        try {
+            return generatedClass.getConstructor(RestClientInvoker.class);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,305 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.proxy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Calls a method on a target with the arguments as an array, like {@code Method.invoke} but without the access check
+ * and {@code InvocationTargetException} for each call. Exceptions of the method are thrown as is.
+ * <p>
+ * For methods with a return value and up to {@value #MAX_GENERATED_ARITY} parameters, a class calling the method
+ * directly is generated with {@code LambdaMetafactory}, so that the JIT can inline the call. Other methods are
+ * called through a {@code MethodHandle} bound once per method.
+ */
+abstract class MethodInvoker {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodInvoker.class);
+
+    private static final int MAX_GENERATED_ARITY = 4;
+
+    private static final Object[] NO_ARGUMENTS = new Object[0];
+
+    // The methods are grouped by declaring class, so that they don't keep the class loader of an application alive.
+    private static final ClassValue<ConcurrentMap<Method, MethodInvoker>> INVOKERS = new ClassValue<ConcurrentMap<Method, MethodInvoker>>() {
+        @Override
+        protected ConcurrentMap<Method, MethodInvoker> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    public abstract Object invoke(Object target, Object[] args) throws Throwable;
+
+    /**
+     * The invoker for the method, created at the first call and shared afterwards. Lookup is based on
+     * {@code Method.equals()} so that copies of the {@code Method} result in the same invoker.
+     */
+    static MethodInvoker of(Method method) {
+        ConcurrentMap<Method, MethodInvoker> invokers = INVOKERS.get(method.getDeclaringClass());
+        MethodInvoker result = invokers.get(method);
+        if (result == null) {
+            MethodInvoker invoker = create(method);
+            result = invokers.putIfAbsent(method, invoker);
+            if (result == null) {
+                result = invoker;
+            }
+        }
+        return result;
+    }
+
+    private static MethodInvoker create(Method method) {
+        if (canGenerate(method)) {
+            try {
+                return generate(method);
+            } catch (Throwable e) {
+                // Use the MethodHandle
+                LOGGER.debug(String.format("Generating the invoker of %s failed, using a MethodHandle", method), e);
+            }
+        }
+        MethodHandle methodHandle;
+        try {
+            methodHandle = MethodHandles.publicLookup().unreflect(method);
+        } catch (IllegalAccessException e) {
+            // Method of a non public interface
+            try {
+                method.setAccessible(true);
+                methodHandle = MethodHandles.lookup().unreflect(method);
+            } catch (IllegalAccessException | RuntimeException e2) {
+                LOGGER.debug(String.format("No MethodHandle for %s, using reflection", method), e2);
+                return new ReflectionInvoker(method);
+            }
+        }
+        MethodHandle spreader = methodHandle.asSpreader(Object[].class, method.getParameterTypes().length)
+                .asType(MethodType.methodType(Object.class, Object.class, Object[].class));
+        return new MethodHandleInvoker(spreader);
+    }
+
+    /**
+     * The generated class is defined next to this class, so it must be able to access all types of the signature.
+     */
+    private static boolean canGenerate(Method method) {
+        if (method.getParameterTypes().length > MAX_GENERATED_ARITY || void.class.equals(method.getReturnType())
+                || Modifier.isStatic(method.getModifiers()) || !Modifier.isPublic(method.getModifiers())) {
+            return false;
+        }
+        if (!isAccessible(method.getDeclaringClass()) || !isAccessible(method.getReturnType())) {
+            return false;
+        }
+        for (Class<?> parameterType : method.getParameterTypes()) {
+            if (!isAccessible(parameterType)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isAccessible(Class<?> type) {
+        Class<?> elementType = type;
+        while (elementType.isArray()) {
+            elementType = elementType.getComponentType();
+        }
+        if (elementType.isPrimitive()) {
+            return true;
+        }
+        for (Class<?> current = elementType; current != null; current = current.getEnclosingClass()) {
+            if (!Modifier.isPublic(current.getModifiers())) {
+                return false;
+            }
+        }
+        try {
+            return Class.forName(type.getName(), false, MethodInvoker.class.getClassLoader()) == type;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    private static MethodInvoker generate(Method method) throws Throwable {
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        Class<?>[] instantiatedTypes = new Class<?>[parameterTypes.length + 1];
+        instantiatedTypes[0] = method.getDeclaringClass();
+        for (int i = 0; i < parameterTypes.length; i++) {
+            instantiatedTypes[i + 1] = wrap(parameterTypes[i]);
+        }
+        Class<?>[] erasedTypes = new Class<?>[parameterTypes.length + 1];
+        Arrays.fill(erasedTypes, Object.class);
+
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        Class<?> functionType = FUNCTION_TYPES[parameterTypes.length];
+        CallSite callSite = LambdaMetafactory.metafactory(lookup, "call", MethodType.methodType(functionType),
+                MethodType.methodType(Object.class, erasedTypes), lookup.unreflect(method),
+                MethodType.methodType(wrap(method.getReturnType()), instantiatedTypes));
+        Object function = callSite.getTarget().invoke();
+        switch (parameterTypes.length) {
+            case 0:
+                return new Invoker0((Call0) function);
+            case 1:
+                return new Invoker1((Call1) function);
+            case 2:
+                return new Invoker2((Call2) function);
+            case 3:
+                return new Invoker3((Call3) function);
+            default:
+                return new Invoker4((Call4) function);
+        }
+    }
+
+    private static Class<?> wrap(Class<?> type) {
+        return MethodType.methodType(type).wrap().returnType();
+    }
+
+    private static final Class<?>[] FUNCTION_TYPES = {Call0.class, Call1.class, Call2.class, Call3.class, Call4.class};
+
+    interface Call0 {
+        Object call(Object target);
+    }
+
+    interface Call1 {
+        Object call(Object target, Object arg0);
+    }
+
+    interface Call2 {
+        Object call(Object target, Object arg0, Object arg1);
+    }
+
+    interface Call3 {
+        Object call(Object target, Object arg0, Object arg1, Object arg2);
+    }
+
+    interface Call4 {
+        Object call(Object target, Object arg0, Object arg1, Object arg2, Object arg3);
+    }
+
+    private static final class Invoker0 extends MethodInvoker {
+
+        private final Call0 function;
+
+        private Invoker0(Call0 function) {
+            this.function = function;
+        }
+
+        @Override
+        public Object invoke(Object target, Object[] args) {
+            return function.call(target);
+        }
+    }
+
+    private static final class Invoker1 extends MethodInvoker {
+
+        private final Call1 function;
+
+        private Invoker1(Call1 function) {
+            this.function = function;
+        }
+
+        @Override
+        public Object invoke(Object target, Object[] args) {
+            return function.call(target, args[0]);
+        }
+    }
+
+    private static final class Invoker2 extends MethodInvoker {
+
+        private final Call2 function;
+
+        private Invoker2(Call2 function) {
+            this.function = function;
+        }
+
+        @Override
+        public Object invoke(Object target, Object[] args) {
+            return function.call(target, args[0], args[1]);
+        }
+    }
+
+    private static final class Invoker3 extends MethodInvoker {
+
+        private final Call3 function;
+
+        private Invoker3(Call3 function) {
+            this.function = function;
+        }
+
+        @Override
+        public Object invoke(Object target, Object[] args) {
+            return function.call(target, args[0], args[1], args[2]);
+        }
+    }
+
+    private static final class Invoker4 extends MethodInvoker {
+
+        private final Call4 function;
+
+        private Invoker4(Call4 function) {
+            this.function = function;
+        }
+
+        @Override
+        public Object invoke(Object target, Object[] args) {
+            return function.call(target, args[0], args[1], args[2], args[3]);
+        }
+    }
+
+    private static final class MethodHandleInvoker extends MethodInvoker {
+
+        // Type (Object, Object[])Object, so that it can be called with invokeExact.
+        private final MethodHandle methodHandle;
+
+        private MethodHandleInvoker(MethodHandle methodHandle) {
+            this.methodHandle = methodHandle;
+        }
+
+        @Override
+        public Object invoke(Object target, Object[] args) throws Throwable {
+            // The static types at the call site must match the type of the handle exactly.
+            Object[] arguments = args == null ? NO_ARGUMENTS : args;
+            return (Object) methodHandle.invokeExact(target, arguments);
+        }
+    }
+
+    /**
+     * Fallback when the JVM doesn't allow a handle for the method (module restrictions).
+     */
+    private static final class ReflectionInvoker extends MethodInvoker {
+
+        private final Method method;
+
+        private ReflectionInvoker(Method method) {
+            this.method = method;
+        }
+
+        @Override
+        public Object invoke(Object target, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
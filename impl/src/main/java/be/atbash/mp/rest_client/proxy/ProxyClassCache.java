@@ -0,0 +1,79 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.proxy;
+
+import java.lang.reflect.Method;
+import java.util.function.Function;
+
+/**
+ * The proxy class and delegate methods of each rest client interface, determined once. A {@code ClassValue} is used so
+ * that the entries are bound to the interface (and thus its class loader) and don't prevent an application from being
+ * unloaded.
+ */
+final class ProxyClassCache {
+
+    private final ClassValue<Entry> entries;
+
+    /**
+     * @param delegateMethodsResolver Determines the methods of the interface which are handled by the invocation handler.
+     */
+    ProxyClassCache(Function<Class<?>, Method[]> delegateMethodsResolver) {
+        entries = new ClassValue<Entry>() {
+            @Override
+            protected Entry computeValue(Class<?> type) {
+                return new Entry(delegateMethodsResolver.apply(type));
+            }
+        };
+    }
+
+    /**
+     * A copy, as the caller is allowed to change the array.
+     */
+    Method[] getDelegateMethods(Class<?> targetClass) {
+        return entries.get(targetClass).delegateMethods.clone();
+    }
+
+    /**
+     * @param proxyClassResolver Loads the proxy class when already defined or generates it, only called once for each
+     *                           interface. Concurrent calls for the same interface wait for that call, calls for other
+     *                           interfaces aren't blocked.
+     */
+    @SuppressWarnings("unchecked")
+    <T> Class<T> getProxyClass(Class<T> targetClass, Function<Class<?>, Class<?>> proxyClassResolver) {
+        Entry entry = entries.get(targetClass);
+        Class<?> result = entry.proxyClass;
+        if (result == null) {
+            // ClassValue hands the same entry to all threads, so it is the lock for this interface only.
+            synchronized (entry) {
+                result = entry.proxyClass;
+                if (result == null) {
+                    result = proxyClassResolver.apply(targetClass);
+                    entry.proxyClass = result;
+                }
+            }
+        }
+        return (Class<T>) result;
+    }
+
+    private static final class Entry {
+        private final Method[] delegateMethods;
+        private volatile Class<?> proxyClass;
+
+        private Entry(Method[] delegateMethods) {
+            this.delegateMethods = delegateMethods;
+        }
+    }
+}
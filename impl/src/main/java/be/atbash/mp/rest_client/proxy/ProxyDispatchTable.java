@@ -0,0 +1,91 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.proxy;
+
+import org.apache.deltaspike.core.util.ReflectionUtils;
+import org.apache.deltaspike.proxy.api.DeltaSpikeProxyFactory;
+import org.apache.deltaspike.proxy.spi.DeltaSpikeProxy;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Decides once per proxy class how a method call is handled: forwarded to the delegate invocation handler (the rest
+ * client methods) or to the {@code $super} accessor of the proxy (default methods and methods of Object).
+ * <p>
+ * The generated proxy passes a new copy of the {@code Method} for each call, so the lookup is based on
+ * {@code Method.equals()} (declaring class, name and parameter types) and not on identity.
+ */
+final class ProxyDispatchTable {
+
+    private final ConcurrentMap<Method, MethodDispatch> dispatches = new ConcurrentHashMap<>();
+
+    MethodDispatch getDispatch(DeltaSpikeProxy proxy, Method method) throws NoSuchMethodException {
+        MethodDispatch result = dispatches.get(method);
+        if (result == null) {
+            // First call of the method on this proxy class. All instances of a proxy class have the same delegate methods.
+            result = isDelegateMethod(proxy.getDelegateMethods(), method) ? DelegateDispatch.INSTANCE
+                    : new SuperAccessorDispatch(MethodInvoker.of(DeltaSpikeProxyFactory.getSuperAccessorMethod(proxy, method)));
+            MethodDispatch existing = dispatches.putIfAbsent(method, result);
+            if (existing != null) {
+                result = existing;
+            }
+        }
+        return result;
+    }
+
+    private static boolean isDelegateMethod(Method[] delegateMethods, Method method) {
+        if (delegateMethods == null) {
+            return false;
+        }
+        for (Method delegateMethod : delegateMethods) {
+            if (ReflectionUtils.hasSameSignature(method, delegateMethod)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    abstract static class MethodDispatch {
+
+        abstract Object invoke(Object proxy, Method method, Object[] parameters) throws Throwable;
+    }
+
+    private static final class DelegateDispatch extends MethodDispatch {
+
+        private static final DelegateDispatch INSTANCE = new DelegateDispatch();
+
+        @Override
+        Object invoke(Object proxy, Method method, Object[] parameters) throws Throwable {
+            return ((DeltaSpikeProxy) proxy).getDelegateInvocationHandler().invoke(proxy, method, parameters);
+        }
+    }
+
+    private static final class SuperAccessorDispatch extends MethodDispatch {
+
+        private final MethodInvoker superAccessor;
+
+        private SuperAccessorDispatch(MethodInvoker superAccessor) {
+            this.superAccessor = superAccessor;
+        }
+
+        @Override
+        Object invoke(Object proxy, Method method, Object[] parameters) throws Throwable {
+            return superAccessor.invoke(proxy, parameters);
+        }
+    }
+}
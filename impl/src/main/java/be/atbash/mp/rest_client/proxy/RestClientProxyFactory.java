@@ -17,6 +17,8 @@ package be.atbash.mp.rest_client.proxy;
 
 import org.apache.deltaspike.proxy.api.DeltaSpikeProxyFactory;
 
+import javax.enterprise.inject.spi.BeanManager;
+
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
@@ -28,10 +30,22 @@ import java.util.ArrayList;
 public class RestClientProxyFactory extends DeltaSpikeProxyFactory {
     private static final RestClientProxyFactory INSTANCE = new RestClientProxyFactory();
 
+    private final ProxyClassCache proxyClassCache = new ProxyClassCache(super::getDelegateMethods);
+
     public static RestClientProxyFactory getInstance() {
         return INSTANCE;
     }
 
+    @Override
+    public <T> Class<T> getProxyClass(BeanManager beanManager, Class<T> targetClass) {
+        return proxyClassCache.getProxyClass(targetClass, type -> super.getProxyClass(beanManager, type));
+    }
+
+    @Override
+    public Method[] getDelegateMethods(Class<?> targetClass) {
+        return proxyClassCache.getDelegateMethods(targetClass);
+    }
+
     @Override
     protected String getProxyClassSuffix() {
         return "$$AtbashRestClientProxy";
@@ -16,12 +16,21 @@
 package be.atbash.mp.rest_client.spec;
 
 import be.atbash.config.ConfigOptionalValue;
+import be.atbash.mp.rest_client.InterfaceDefinition;
 import be.atbash.mp.rest_client.LocalProviderInfo;
 import be.atbash.mp.rest_client.RestClientInvoker;
+import be.atbash.mp.rest_client.RestClientProperties;
+import be.atbash.mp.rest_client.client.ClientKey;
+import be.atbash.mp.rest_client.client.ClientRegistry;
 import be.atbash.mp.rest_client.exception.DefaultResponseExceptionMapper;
+import be.atbash.mp.rest_client.executor.ExecutorServices;
 import be.atbash.mp.rest_client.proxy.BasicProxyInvocationHandler;
 import be.atbash.mp.rest_client.proxy.BasicRestClientProxyFactory;
+import be.atbash.mp.rest_client.proxy.GeneratedRestClients;
 import be.atbash.mp.rest_client.proxy.RestClientProxyFactory;
+import be.atbash.mp.rest_client.transport.MessageBodyWorkers;
+import be.atbash.mp.rest_client.transport.Transport;
+import be.atbash.mp.rest_client.transport.Transports;
 import be.atbash.util.CDIUtils;
 import be.atbash.util.reflection.CDICheck;
 import org.apache.deltaspike.core.api.provider.BeanProvider;
@@ -37,20 +46,18 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.enterprise.inject.spi.BeanManager;
-import javax.ws.rs.HttpMethod;
-import javax.ws.rs.Path;
-import javax.ws.rs.PathParam;
 import javax.ws.rs.Priorities;
+import javax.ws.rs.client.Client;
 import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.ClientRequestFilter;
+import javax.ws.rs.client.ClientResponseFilter;
 import javax.ws.rs.core.Configuration;
 import javax.ws.rs.ext.ParamConverterProvider;
-import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ExecutorService;
 
 /**
  * Implementation of the MicroProfile {@code RestClientBuilder} API class.
@@ -62,25 +69,24 @@ class BuilderImpl extends AbstractRestClientBuilder {
 
     private static final String DEFAULT_MAPPER_PROP = "microprofile.rest.client.disable.default.mapper";
 
-    private static final String URI_PARAM_NAME_REGEX = "\\w[\\w\\.-]*";
-    private static final String URI_PARAM_REGEX_REGEX = "[^{}][^{}]*";
-    private static final String URI_PARAM_REGEX = "\\{\\s*(" + URI_PARAM_NAME_REGEX + ")\\s*(:\\s*(" + URI_PARAM_REGEX_REGEX + "))?\\}";
-    private static final Pattern URI_PARAM_PATTERN = Pattern.compile(URI_PARAM_REGEX);
-
-    private static final char openCurlyReplacement = 6;
-    private static final char closeCurlyReplacement = 7;
+    private static final String EXECUTOR_SERVICE_CONFIG = "/mp-rest/executorService";
+    private static final String VIRTUAL_THREADS_CONFIG = "/mp-rest/virtualThreads";
+    private static final String TRANSPORT_CONFIG = "/mp-rest/transport";
 
     private ClientBuilder clientBuilder;
+    private ClientKey.Builder clientKeyBuilder = new ClientKey.Builder();
     private DeltaSpikeProxyInvocationHandler deltaSpikeProxyInvocationHandler;
 
     private BeanManager beanManager;
 
     private String baseURI;
 
+    private ExecutorService executorService;
+
     private Set<LocalProviderInfo> localProviderInstances = new HashSet<>();
 
     BuilderImpl() {
-        clientBuilder = ClientBuilder.newBuilder();
+        clientBuilder = ClientBuilders.newClientBuilder();
     }
 
     @Override
@@ -93,9 +99,24 @@ class BuilderImpl extends AbstractRestClientBuilder {
         }
     }
 
+    @Override
+    public RestClientBuilder executorService(ExecutorService executor) {
+        if (executor == null) {
+            throw new IllegalArgumentException("ExecutorService can't be null");
+        }
+        this.executorService = executor;
+        return this;
+    }
+
     @Override
     public <T> T build(Class<T> targetClass) throws IllegalStateException, RestClientDefinitionException {
 
+        if (GeneratedRestClients.isAvailable(targetClass) && !CDICheck.withinContainer()) {
+            // Implementation generated (and interface verified) at compile time, no proxy needed.
+            Method[] delegateMethods = BasicRestClientProxyFactory.getInstance().getDelegateMethods(targetClass);
+            return GeneratedRestClients.newInstance(targetClass, createInvoker(targetClass, delegateMethods));
+        }
+
         verifyInterface(targetClass);
 
         Class<T> proxyClass;
@@ -127,14 +148,7 @@ class BuilderImpl extends AbstractRestClientBuilder {
             deltaSpikeProxy.setInvocationHandler(deltaSpikeProxyInvocationHandler);
 
             deltaSpikeProxy.setDelegateMethods(delegateMethods);
-
-            if (baseURI == null) {
-                baseUrl(ConfigProvider.getConfig().getValue(targetClass.getName() + "/mp-rest/url", URL.class));
-            }
-
-            // A RestClientInvoker uses the Rest client to invoke the endpoints
-            RestClientInvoker restClientInvoker = new RestClientInvoker(clientBuilder.build(), baseURI, defineLocalProviderInstances());
-            deltaSpikeProxy.setDelegateInvocationHandler(restClientInvoker);
+            deltaSpikeProxy.setDelegateInvocationHandler(createInvoker(targetClass, delegateMethods));
 
             return instance;
         } catch (Exception e) {
@@ -145,6 +159,107 @@ class BuilderImpl extends AbstractRestClientBuilder {
         return null;
     }
 
+    /**
+     * Creates only the invoker, for callers which have their own proxy for the interface (like the CDI beans).
+     */
+    RestClientInvoker buildInvoker(Class<?> targetClass) {
+        if (!GeneratedRestClients.isAvailable(targetClass)) {
+            verifyInterface(targetClass);
+        }
+        return createInvoker(targetClass, BasicRestClientProxyFactory.getInstance().getDelegateMethods(targetClass));
+    }
+
+    private RestClientInvoker createInvoker(Class<?> targetClass, Method[] delegateMethods) {
+        if (baseURI == null) {
+            baseUrl(ConfigProvider.getConfig().getValue(targetClass.getName() + "/mp-rest/url", URL.class));
+        }
+
+        boolean virtualThreads = isVirtualThreadsEnabled(targetClass);
+        ExecutorService asyncExecutorService = defineExecutorService(targetClass, virtualThreads);
+
+        RestClientInvoker restClientInvoker;
+        Transport transport = defineTransport(targetClass);
+        if (transport == null) {
+            // JAX-RS client (and his connection pool) is shared with the rest clients having the same configuration.
+            ClientKey clientKey = clientKeyBuilder.build(baseURI);
+            ClientRegistry clientRegistry = ClientRegistry.getInstance();
+            Client client = clientRegistry.acquire(clientKey, clientBuilder);
+
+            // A RestClientInvoker uses the Rest client to invoke the endpoints
+            restClientInvoker = new RestClientInvoker(client, baseURI, defineLocalProviderInstances(), delegateMethods,
+                    asyncExecutorService);
+            // The proxy references the invoker, so the invoker is unreachable when no proxy uses it anymore.
+            clientRegistry.releaseWhenUnreachable(restClientInvoker, clientKey);
+        } else {
+            warnIgnoredFilters(targetClass, transport);
+            MessageBodyWorkers messageBodyWorkers = MessageBodyWorkers.of(clientBuilder.getConfiguration().getInstances());
+            restClientInvoker = new RestClientInvoker(transport, messageBodyWorkers, baseURI, defineLocalProviderInstances(), delegateMethods,
+                    asyncExecutorService);
+        }
+        return restClientInvoker;
+    }
+
+    private ExecutorService defineExecutorService(Class<?> targetClass, boolean virtualThreads) {
+        if (executorService != null) {
+            return executorService;
+        }
+        String executorClassName = ConfigOptionalValue.getValue(targetClass.getName() + EXECUTOR_SERVICE_CONFIG, String.class);
+        if (executorClassName != null && !executorClassName.trim().isEmpty()) {
+            return ExecutorServices.getConfigured(executorClassName.trim());
+        }
+        if (virtualThreads) {
+            return ExecutorServices.getVirtualThreadExecutor();
+        }
+        return ExecutorServices.getDefault();
+    }
+
+    /**
+     * The transport selected for the rest client, null when the JAX-RS client must be used.
+     */
+    private Transport defineTransport(Class<?> targetClass) {
+        Object property = clientBuilder.getConfiguration().getProperty(RestClientProperties.TRANSPORT);
+        String name = property != null ? property.toString() : ConfigOptionalValue.getValue(targetClass.getName() + TRANSPORT_CONFIG, String.class);
+        if (name == null || name.trim().isEmpty() || Transports.JAXRS.equals(name.trim())) {
+            return null;
+        }
+        return Transports.acquireTransport(name.trim());
+    }
+
+    /**
+     * The client filters are executed by the JAX-RS client only, a transport sends the request without them.
+     */
+    private void warnIgnoredFilters(Class<?> targetClass, Transport transport) {
+        Configuration configuration = clientBuilder.getConfiguration();
+        List<String> filters = new ArrayList<>();
+        for (Class<?> providerClass : configuration.getClasses()) {
+            if (isClientFilter(providerClass)) {
+                filters.add(providerClass.getName());
+            }
+        }
+        for (Object provider : configuration.getInstances()) {
+            if (isClientFilter(provider.getClass())) {
+                filters.add(provider.getClass().getName());
+            }
+        }
+        if (!filters.isEmpty()) {
+            LOGGER.warn(String.format("The filters %s registered for %s are not executed by the transport %s, use the transport '%s' for filters",
+                    filters, targetClass.getName(), transport.getClass().getName(), Transports.JAXRS));
+        }
+    }
+
+    private static boolean isClientFilter(Class<?> providerClass) {
+        return ClientRequestFilter.class.isAssignableFrom(providerClass) || ClientResponseFilter.class.isAssignableFrom(providerClass);
+    }
+
+    private boolean isVirtualThreadsEnabled(Class<?> targetClass) {
+        Object property = clientBuilder.getConfiguration().getProperty(RestClientProperties.VIRTUAL_THREADS);
+        if (property != null) {
+            return Boolean.parseBoolean(property.toString());
+        }
+        Boolean virtualThreads = ConfigOptionalValue.getValue(targetClass.getName() + VIRTUAL_THREADS_CONFIG, Boolean.class);
+        return virtualThreads != null && virtualThreads;
+    }
+
     private List<LocalProviderInfo> defineLocalProviderInstances() {
         // Default exception mapper
         if (!isMapperDisabled()) {
@@ -208,91 +323,8 @@ class BuilderImpl extends AbstractRestClientBuilder {
     }
 
     private <T> void verifyInterface(Class<T> typeDef) {
-
-        Method[] methods = typeDef.getMethods();
-
-        // multiple verbs
-        for (Method method : methods) {
-            boolean hasHttpMethod = false;
-            for (Annotation annotation : method.getAnnotations()) {
-                boolean isHttpMethod = (annotation.annotationType().getAnnotation(HttpMethod.class) != null);
-                if (!hasHttpMethod && isHttpMethod) {
-                    hasHttpMethod = true;
-                } else if (hasHttpMethod && isHttpMethod) {
-                    throw new RestClientDefinitionException("Ambiguous @Httpmethod defintion on type " + typeDef);
-                }
-            }
-        }
-
-        // invalid parameter
-        Path classPathAnno = typeDef.getAnnotation(Path.class);
-
-        Set<String> classLevelVariables = new HashSet<>();
-        if (classPathAnno != null) {
-            classLevelVariables.addAll(getPathParamList(classPathAnno.value()));
-        }
-
-        for (Method method : methods) {
-
-            Path methodPathAnno = method.getAnnotation(Path.class);
-            if (methodPathAnno == null) {
-                continue;
-            }
-
-            Set<String> allVariables = new HashSet<>(classLevelVariables);
-            allVariables.addAll(getPathParamList(methodPathAnno.value()));
-
-            Set<String> parameterNames = new HashSet<>();
-            for (Annotation[] annotations : method.getParameterAnnotations()) {
-                for (Annotation annotation : annotations) {
-                    if (PathParam.class.equals(annotation.annotationType())) {
-                        parameterNames.add(((PathParam) annotation).value());
-                    }
-                }
-            }
-
-            if (allVariables.size() != parameterNames.size()) {
-                throw new RestClientDefinitionException(String.format("Parameters and variables don't match on %s::%s", typeDef, method.getName()));
-            }
-
-            parameterNames.removeAll(allVariables);
-            if (!parameterNames.isEmpty()) {
-                throw new RestClientDefinitionException(String.format("Parameter names don't match variable names on %s::%s", typeDef, method.getName()));
-            }
-        }
-
-        // TODO More and better checks
-
-    }
-
-    private List<String> getPathParamList(String string) {
-        List<String> params = new ArrayList<>();
-        Matcher matcher = URI_PARAM_PATTERN.matcher(replaceEnclosedCurlyBraces(string));
-        while (matcher.find()) {
-            String param = matcher.group(1);
-            params.add(param);
-        }
-        return params;
-    }
-
-    private CharSequence replaceEnclosedCurlyBraces(String str) {
-
-        char[] chars = str.toCharArray();
-        int open = 0;
-        for (int i = 0; i < chars.length; i++) {
-            if (chars[i] == '{') {
-                if (open != 0) {
-                    chars[i] = openCurlyReplacement;
-                }
-                open++;
-            } else if (chars[i] == '}') {
-                open--;
-                if (open != 0) {
-                    chars[i] = closeCurlyReplacement;
-                }
-            }
-        }
-        return new String(chars);
+        // Verified once for each interface, the result is cached.
+        InterfaceDefinition.of(typeDef).verify();
     }
 
     @Override
@@ -303,6 +335,7 @@ class BuilderImpl extends AbstractRestClientBuilder {
     @Override
     public RestClientBuilder property(String name, Object value) {
         clientBuilder.property(name, value);
+        clientKeyBuilder.property(name, value);
         return this;
     }
 
@@ -316,20 +349,20 @@ class BuilderImpl extends AbstractRestClientBuilder {
 
     @Override
     public RestClientBuilder register(Class<?> aClass) {
-        register(newInstanceOf(aClass));
+        registerProvider(newInstanceOf(aClass), aClass);
         return this;
     }
 
     @Override
     public RestClientBuilder register(Class<?> aClass, int i) {
 
-        register(newInstanceOf(aClass), i);
+        registerProvider(newInstanceOf(aClass), i, aClass);
         return this;
     }
 
     @Override
     public RestClientBuilder register(Class<?> aClass, Class<?>[] classes) {
-        register(newInstanceOf(aClass), classes);
+        registerProvider(newInstanceOf(aClass), classes, aClass);
         return this;
     }
 
@@ -341,21 +374,46 @@ class BuilderImpl extends AbstractRestClientBuilder {
 
     @Override
     public RestClientBuilder register(Object o) {
+        registerProvider(o, null);
+        return this;
+    }
+
+    @Override
+    public RestClientBuilder register(Object o, int priority) {
+        registerProvider(o, priority, null);
+        return this;
+    }
+
+    @Override
+    public RestClientBuilder register(Object o, Class<?>[] classes) {
+        registerProvider(o, classes, null);
+        return this;
+    }
+
+    @Override
+    public RestClientBuilder register(Object component, Map<Class<?>, Integer> contracts) {
+
+        // FIXME
+        return this;
+    }
+
+    /**
+     * @param registeredClass The class when the provider is registered by class, null when registered as instance.
+     */
+    private void registerProvider(Object o, Class<?> registeredClass) {
 
         if (o instanceof ResponseExceptionMapper) {
             ResponseExceptionMapper mapper = (ResponseExceptionMapper) o;
-            register(mapper, mapper.getPriority());
+            registerProvider(mapper, mapper.getPriority(), registeredClass);
         } else if (o instanceof ParamConverterProvider) {
-            register(o, Priorities.USER);
+            registerProvider(o, Priorities.USER, registeredClass);
         } else {
             clientBuilder.register(o);
+            recordRegistration(o, registeredClass, null, null);
         }
-
-        return this;
     }
 
-    @Override
-    public RestClientBuilder register(Object o, int priority) {
+    private void registerProvider(Object o, int priority, Class<?> registeredClass) {
         if (o instanceof ResponseExceptionMapper) {
 
             // local
@@ -370,30 +428,31 @@ class BuilderImpl extends AbstractRestClientBuilder {
 
         } else {
             clientBuilder.register(o, priority);
+            recordRegistration(o, registeredClass, priority, null);
         }
-        return this;
     }
 
-    @Override
-    public RestClientBuilder register(Object o, Class<?>[] classes) {
+    private void registerProvider(Object o, Class<?>[] classes, Class<?> registeredClass) {
 
         // local
         for (Class<?> aClass : classes) {
             if (aClass.isAssignableFrom(ResponseExceptionMapper.class)) {
-                register(o);
+                registerProvider(o, registeredClass);
             }
         }
 
         // other
         clientBuilder.register(o, classes);
-        return this;
+        recordRegistration(o, registeredClass, null, classes);
     }
 
-    @Override
-    public RestClientBuilder register(Object component, Map<Class<?>, Integer> contracts) {
-
-        // FIXME
-        return this;
+    private void recordRegistration(Object o, Class<?> registeredClass, Integer priority, Class<?>[] contracts) {
+        // Part of the key to find a JAX-RS client with the same configuration
+        if (registeredClass != null) {
+            clientKeyBuilder.registerClass(registeredClass, priority, contracts);
+        } else {
+            clientKeyBuilder.registerInstance(o, priority, contracts);
+        }
     }
 
     private void registerLocalProviderInstance(Object provider, int priority) {
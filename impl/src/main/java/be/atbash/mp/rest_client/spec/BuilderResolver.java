@@ -27,4 +27,24 @@ public class BuilderResolver extends RestClientBuilderResolver {
     public RestClientBuilder newBuilder() {
         return new BuilderImpl();
     }
+
+    /**
+     * Removes the {@code RestClientBuilderResolver}, {@code RestClientBuilderListener}s and JAX-RS {@code ClientBuilder}
+     * implementation discovered for the class loader. To be called when the application with that class loader is
+     * redeployed (the CDI extension does this when the container shuts down).
+     *
+     * @param classLoader The (context) class loader of the application.
+     */
+    public static void clearCaches(ClassLoader classLoader) {
+        RestClientBuilderResolver.clearCache(classLoader);
+        ClientBuilders.clearCache(classLoader);
+    }
+
+    /**
+     * Removes the discovered implementations for all class loaders.
+     */
+    public static void clearCaches() {
+        RestClientBuilderResolver.clearCache();
+        ClientBuilders.clearCache();
+    }
 }
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.spec;
+
+import be.atbash.mp.rest_client.ClassLoaderCache;
+
+import javax.ws.rs.client.ClientBuilder;
+import java.lang.reflect.Constructor;
+import java.util.Collections;
+
+/**
+ * Creates the JAX-RS {@code ClientBuilder} for the {@code BuilderImpl}. {@code ClientBuilder.newBuilder()} searches the
+ * implementation (system property, jaxrs.properties and ServiceLoader) on each call, the implementation found is kept
+ * here for each context class loader.
+ */
+final class ClientBuilders {
+
+    private static final ClassLoaderCache<Constructor<? extends ClientBuilder>> CONSTRUCTORS =
+            new ClassLoaderCache<>(constructor -> Collections.<Class<?>>singletonList(constructor.getDeclaringClass()));
+
+    private ClientBuilders() {
+    }
+
+    static ClientBuilder newClientBuilder() {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        Constructor<? extends ClientBuilder> constructor = CONSTRUCTORS.get(classLoader, ClientBuilders::discoverConstructor);
+        if (constructor != null) {
+            try {
+                return constructor.newInstance();
+            } catch (ReflectiveOperationException e) {
+                // Fall back to the discovery of JAX-RS which reports the problem.
+                clearCache(classLoader);
+            }
+        }
+        return ClientBuilder.newBuilder();
+    }
+
+    /**
+     * The constructor of the implementation found by JAX-RS, null when it has no public constructor and the discovery
+     * of JAX-RS must be used each time.
+     */
+    private static Constructor<? extends ClientBuilder> discoverConstructor(ClassLoader classLoader) {
+        try {
+            return ClientBuilder.newBuilder().getClass().getConstructor();
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    static void clearCache(ClassLoader classLoader) {
+        CONSTRUCTORS.remove(classLoader);
+    }
+
+    static void clearCache() {
+        CONSTRUCTORS.clear();
+    }
+}
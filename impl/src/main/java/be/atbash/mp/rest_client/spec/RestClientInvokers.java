@@ -0,0 +1,40 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.spec;
+
+import be.atbash.mp.rest_client.RestClientInvoker;
+import org.eclipse.microprofile.rest.client.RestClientBuilder;
+
+/**
+ * Creates the {@link RestClientInvoker} of a rest client interface without a proxy around it. Used when the caller
+ * already has a proxy for the interface, like the CDI beans, so that the calls don't pass through a second proxy.
+ */
+public final class RestClientInvokers {
+
+    private RestClientInvokers() {
+    }
+
+    /**
+     * @param restClientBuilder A builder obtained with {@code RestClientBuilder.newBuilder()}, with the providers and
+     *                          properties for the rest client.
+     */
+    public static RestClientInvoker build(RestClientBuilder restClientBuilder, Class<?> targetClass) {
+        if (!(restClientBuilder instanceof BuilderImpl)) {
+            throw new IllegalArgumentException(String.format("RestClientBuilder %s is not the Atbash implementation", restClientBuilder.getClass().getName()));
+        }
+        return ((BuilderImpl) restClientBuilder).buildInvoker(targetClass);
+    }
+}
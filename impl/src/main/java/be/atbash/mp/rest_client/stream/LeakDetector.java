@@ -0,0 +1,130 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.stream;
+
+import be.atbash.config.ConfigOptionalValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.ws.rs.core.Response;
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Reports the streamed responses which are garbage collected without being closed, and closes the {@code Response}
+ * so that the connection is released. The check is performed each time a new streamed response is tracked.
+ * <p>
+ * Configured with the key {@code atbash.rest.client.leakDetection}: {@code off}, {@code on} (default) or
+ * {@code trace} (also records where the stream was created, which has a cost for each call).
+ */
+public final class LeakDetector {
+
+    static final String LEAK_DETECTION = "atbash.rest.client.leakDetection";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LeakDetector.class);
+
+    private enum Level {
+        OFF, ON, TRACE
+    }
+
+    private static final Level LEVEL = readLevel();
+
+    private static final ReferenceQueue<Object> QUEUE = new ReferenceQueue<>();
+    // Keep the references reachable until they are enqueued.
+    private static final Set<Tracker> TRACKERS = Collections.synchronizedSet(new HashSet<Tracker>());
+
+    private LeakDetector() {
+    }
+
+    private static Level readLevel() {
+        String value = ConfigOptionalValue.getValue(LEAK_DETECTION, String.class);
+        if (value == null || value.trim().isEmpty()) {
+            return Level.ON;
+        }
+        try {
+            return Level.valueOf(value.trim().toUpperCase(Locale.ENGLISH));
+        } catch (IllegalArgumentException e) {
+            LOGGER.warn(String.format("Unknown value '%s' for parameter %s, using 'on'", value, LEAK_DETECTION));
+            return Level.ON;
+        }
+    }
+
+    /**
+     * Starts tracking the stream (or {@code Response}) given to the caller. Returns null when leak detection is off.
+     *
+     * @param owner       The object the caller must close.
+     * @param response    The response which is closed when the owner is found to be leaked.
+     * @param description Identifies the call in the report.
+     */
+    static Tracker track(Object owner, Response response, String description) {
+        expungeLeaked();
+        if (LEVEL == Level.OFF) {
+            return null;
+        }
+        Throwable creation = LEVEL == Level.TRACE ? new Throwable("Created at") : null;
+        Tracker result = new Tracker(owner, response, description, creation);
+        TRACKERS.add(result);
+        return result;
+    }
+
+    private static void expungeLeaked() {
+        Reference<?> reference;
+        while ((reference = QUEUE.poll()) != null) {
+            Tracker tracker = (Tracker) reference;
+            if (TRACKERS.remove(tracker)) {
+                tracker.reportLeak();
+            }
+        }
+    }
+
+    /**
+     * Tracks one stream, {@link #close()} must be called when the stream is closed by the caller.
+     */
+    static final class Tracker extends PhantomReference<Object> {
+
+        private final Response response;
+        private final String description;
+        private final Throwable creation;
+
+        private Tracker(Object owner, Response response, String description, Throwable creation) {
+            super(owner, QUEUE);
+            this.response = response;
+            this.description = description;
+            this.creation = creation;
+        }
+
+        void close() {
+            TRACKERS.remove(this);
+            clear();
+        }
+
+        private void reportLeak() {
+            String message = String.format("Response of %s was not closed before it was garbage collected. Close the returned stream or Response to release the connection.%s",
+                    description, creation == null ? String.format(" Set %s=trace to find out where it was created.", LEAK_DETECTION) : "");
+            LOGGER.error(message, creation);
+            try {
+                response.close();
+            } catch (RuntimeException e) {
+                // The response is gone anyway
+            }
+        }
+    }
+}
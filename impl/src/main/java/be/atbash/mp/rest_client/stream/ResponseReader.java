@@ -0,0 +1,57 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.stream;
+
+import javax.ws.rs.core.Response;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Entity reader returned to the caller. Closing it closes the {@code Response} (and releases the connection).
+ */
+final class ResponseReader extends FilterReader {
+
+    private final Response response;
+    private final LeakDetector.Tracker tracker;
+    private boolean closed;
+
+    ResponseReader(Reader entityReader, Response response, String description) {
+        super(entityReader);
+        this.response = response;
+        tracker = LeakDetector.track(this, response, description);
+    }
+
+    LeakDetector.Tracker getTracker() {
+        return tracker;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (tracker != null) {
+            tracker.close();
+        }
+        try {
+            super.close();
+        } finally {
+            response.close();
+        }
+    }
+}
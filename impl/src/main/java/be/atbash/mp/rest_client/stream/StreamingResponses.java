@@ -0,0 +1,59 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.stream;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Creates the value returned by rest client methods with an {@code InputStream}, {@code Reader} or {@code Response}
+ * return type. The response entity isn't read in memory and the caller is responsible for closing the returned value.
+ */
+public final class StreamingResponses {
+
+    private StreamingResponses() {
+    }
+
+    /**
+     * @param entityType  {@code InputStream}, {@code Reader} or {@code Response}.
+     * @param description Identifies the call when the returned value is leaked.
+     */
+    public static Object open(Class<?> entityType, Response response, String description) {
+        if (Response.class.equals(entityType)) {
+            TrackedResponse result = new TrackedResponse(response);
+            if (response.hasEntity()) {
+                // Without entity, nothing holds the connection.
+                result.track(description);
+            }
+            return result;
+        }
+        InputStream entityStream = new ResponseInputStream(response.readEntity(InputStream.class), response, description);
+        if (Reader.class.equals(entityType)) {
+            return new InputStreamReader(entityStream, getCharset(response.getMediaType()));
+        }
+        return entityStream;
+    }
+
+    private static Charset getCharset(MediaType mediaType) {
+        String charset = mediaType == null ? null : mediaType.getParameters().get(MediaType.CHARSET_PARAMETER);
+        return charset == null ? StandardCharsets.UTF_8 : Charset.forName(charset);
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.stream;
+
+import javax.ws.rs.core.*;
+import java.io.InputStream;
+import java.io.Reader;
+import java.lang.annotation.Annotation;
+import java.net.URI;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * {@code Response} returned to the caller, delegates to the actual response and reports when it is never closed.
+ */
+final class TrackedResponse extends Response {
+
+    private final Response delegate;
+    private String description;
+    private LeakDetector.Tracker tracker;
+
+    TrackedResponse(Response delegate) {
+        this.delegate = delegate;
+    }
+
+    void track(String description) {
+        this.description = description;
+        tracker = LeakDetector.track(this, delegate, description);
+    }
+
+    boolean isTracked() {
+        return tracker != null;
+    }
+
+    @Override
+    public void close() {
+        release();
+        delegate.close();
+    }
+
+    private void release() {
+        if (tracker != null) {
+            tracker.close();
+            tracker = null;
+        }
+    }
+
+    /**
+     * An entity other than a stream is completely read, and the response released, by the {@code readEntity()}. A
+     * stream is wrapped so that it is tracked instead of this response, as the caller can keep only the stream.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T read(Class<?> entityType, T entity) {
+        if (tracker == null) {
+            return entity;
+        }
+        if (InputStream.class.equals(entityType) && entity instanceof InputStream) {
+            release();
+            ResponseInputStream result = new ResponseInputStream((InputStream) entity, delegate, description);
+            // Closing this response closes the stream, and thus its tracker, as well.
+            tracker = result.getTracker();
+            return (T) result;
+        }
+        if (Reader.class.equals(entityType) && entity instanceof Reader) {
+            release();
+            ResponseReader result = new ResponseReader((Reader) entity, delegate, description);
+            tracker = result.getTracker();
+            return (T) result;
+        }
+        if (!(entity instanceof InputStream || entity instanceof Reader)) {
+            release();
+        }
+        return entity;
+    }
+
+    @Override
+    public int getStatus() {
+        return delegate.getStatus();
+    }
+
+    @Override
+    public StatusType getStatusInfo() {
+        return delegate.getStatusInfo();
+    }
+
+    @Override
+    public Object getEntity() {
+        return delegate.getEntity();
+    }
+
+    @Override
+    public <T> T readEntity(Class<T> entityType) {
+        return read(entityType, delegate.readEntity(entityType));
+    }
+
+    @Override
+    public <T> T readEntity(GenericType<T> entityType) {
+        return read(entityType.getRawType(), delegate.readEntity(entityType));
+    }
+
+    @Override
+    public <T> T readEntity(Class<T> entityType, Annotation[] annotations) {
+        return read(entityType, delegate.readEntity(entityType, annotations));
+    }
+
+    @Override
+    public <T> T readEntity(GenericType<T> entityType, Annotation[] annotations) {
+        return read(entityType.getRawType(), delegate.readEntity(entityType, annotations));
+    }
+
+    @Override
+    public boolean hasEntity() {
+        return delegate.hasEntity();
+    }
+
+    @Override
+    public boolean bufferEntity() {
+        return delegate.bufferEntity();
+    }
+
+    @Override
+    public MediaType getMediaType() {
+        return delegate.getMediaType();
+    }
+
+    @Override
+    public Locale getLanguage() {
+        return delegate.getLanguage();
+    }
+
+    @Override
+    public int getLength() {
+        return delegate.getLength();
+    }
+
+    @Override
+    public Set<String> getAllowedMethods() {
+        return delegate.getAllowedMethods();
+    }
+
+    @Override
+    public Map<String, NewCookie> getCookies() {
+        return delegate.getCookies();
+    }
+
+    @Override
+    public EntityTag getEntityTag() {
+        return delegate.getEntityTag();
+    }
+
+    @Override
+    public Date getDate() {
+        return delegate.getDate();
+    }
+
+    @Override
+    public Date getLastModified() {
+        return delegate.getLastModified();
+    }
+
+    @Override
+    public URI getLocation() {
+        return delegate.getLocation();
+    }
+
+    @Override
+    public Set<Link> getLinks() {
+        return delegate.getLinks();
+    }
+
+    @Override
+    public boolean hasLink(String relation) {
+        return delegate.hasLink(relation);
+    }
+
+    @Override
+    public Link getLink(String relation) {
+        return delegate.getLink(relation);
+    }
+
+    @Override
+    public Link.Builder getLinkBuilder(String relation) {
+        return delegate.getLinkBuilder(relation);
+    }
+
+    @Override
+    public MultivaluedMap<String, Object> getMetadata() {
+        return delegate.getMetadata();
+    }
+
+    @Override
+    public MultivaluedMap<String, Object> getHeaders() {
+        return delegate.getHeaders();
+    }
+
+    @Override
+    public MultivaluedMap<String, String> getStringHeaders() {
+        return delegate.getStringHeaders();
+    }
+
+    @Override
+    public String getHeaderString(String name) {
+        return delegate.getHeaderString(name);
+    }
+
+    @Override
+    public String toString() {
+        return delegate.toString();
+    }
+}
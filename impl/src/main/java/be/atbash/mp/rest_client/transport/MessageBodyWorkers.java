@@ -0,0 +1,115 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.transport;
+
+import be.atbash.util.reflection.ClassUtils;
+
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyReader;
+import javax.ws.rs.ext.MessageBodyWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Converts entities with the {@code MessageBodyReader}s and {@code MessageBodyWriter}s for a {@link Transport}, as
+ * the JAX-RS client isn't involved in that case. Providers registered on the rest client are used first, followed by
+ * the reader and writer for String, byte[], InputStream and Reader and the Jackson JSON provider when it is available
+ * on the classpath.
+ */
+public final class MessageBodyWorkers {
+
+    private static final String JACKSON_PROVIDER = "com.fasterxml.jackson.jaxrs.json.JacksonJsonProvider";
+
+    private static final Annotation[] NO_ANNOTATIONS = new Annotation[0];
+
+    private final List<MessageBodyReader> readers = new ArrayList<>();
+    private final List<MessageBodyWriter> writers = new ArrayList<>();
+
+    private MessageBodyWorkers(Collection<Object> providers) {
+        for (Object provider : providers) {
+            addProvider(provider);
+        }
+        addProvider(new BasicEntityProvider());
+        if (ClassUtils.isAvailable(JACKSON_PROVIDER)) {
+            addProvider(ClassUtils.newInstance(JACKSON_PROVIDER));
+        }
+    }
+
+    private void addProvider(Object provider) {
+        if (provider instanceof MessageBodyReader) {
+            readers.add((MessageBodyReader) provider);
+        }
+        if (provider instanceof MessageBodyWriter) {
+            writers.add((MessageBodyWriter) provider);
+        }
+    }
+
+    /**
+     * @param providers The providers registered on the rest client, only the readers and writers are retained.
+     */
+    public static MessageBodyWorkers of(Collection<Object> providers) {
+        return new MessageBodyWorkers(providers);
+    }
+
+    /**
+     * Workers with only the default readers and writers.
+     */
+    public static MessageBodyWorkers defaults() {
+        return new MessageBodyWorkers(Collections.emptyList());
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T read(Class<T> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+                      MultivaluedMap<String, String> headers, InputStream entityStream) {
+        Annotation[] safeAnnotations = annotations == null ? NO_ANNOTATIONS : annotations;
+        for (MessageBodyReader reader : readers) {
+            if (reader.isReadable(type, genericType, safeAnnotations, mediaType)) {
+                try {
+                    return (T) reader.readFrom(type, genericType, safeAnnotations, mediaType, headers, entityStream);
+                } catch (IOException e) {
+                    throw new ProcessingException(e);
+                }
+            }
+        }
+        throw new ProcessingException(String.format("No MessageBodyReader found for type %s and media type %s", genericType.getTypeName(), mediaType));
+    }
+
+    @SuppressWarnings("unchecked")
+    public byte[] write(Object entity, Type genericType, MediaType mediaType, MultivaluedMap<String, Object> headers) {
+        Class<?> type = entity.getClass();
+        for (MessageBodyWriter writer : writers) {
+            if (writer.isWriteable(type, genericType, NO_ANNOTATIONS, mediaType)) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                try {
+                    writer.writeTo(entity, type, genericType, NO_ANNOTATIONS, mediaType, headers, out);
+                } catch (IOException e) {
+                    throw new ProcessingException(e);
+                }
+                return out.toByteArray();
+            }
+        }
+        throw new ProcessingException(String.format("No MessageBodyWriter found for type %s and media type %s", genericType.getTypeName(), mediaType));
+    }
+}
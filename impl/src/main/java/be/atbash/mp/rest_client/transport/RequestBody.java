@@ -0,0 +1,147 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.transport;
+
+import javax.ws.rs.ProcessingException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The entity of a {@link TransportRequest}.
+ */
+public abstract class RequestBody {
+
+    /**
+     * The number of bytes of the body, or -1 when unknown (and the body is sent chunked).
+     */
+    public abstract long getContentLength();
+
+    /**
+     * Can the body be sent more than once (for example when the request is retried on another connection).
+     */
+    public boolean isRepeatable() {
+        return true;
+    }
+
+    /**
+     * Body from bytes which are already in memory (for example the result of a {@code MessageBodyWriter}).
+     */
+    public static RequestBody of(byte[] bytes) {
+        return new BytesBody(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Body with the remaining bytes of the buffer (heap or direct), the bytes are not copied. The position of the
+     * buffer is not changed.
+     */
+    public static RequestBody of(ByteBuffer buffer) {
+        return new BytesBody(buffer.duplicate());
+    }
+
+    /**
+     * Body with the contents of the file, the length is determined when the body is created.
+     */
+    public static RequestBody of(Path file) {
+        try {
+            return new FileBody(file, Files.size(file));
+        } catch (IOException e) {
+            throw new ProcessingException(String.format("Unable to determine the size of %s", file), e);
+        }
+    }
+
+    /**
+     * Body read from the stream until its end, it is sent chunked. The stream is closed when it is sent.
+     */
+    public static RequestBody of(InputStream stream) {
+        return new StreamBody(stream);
+    }
+
+    /**
+     * Body with the remaining bytes of the buffer.
+     */
+    public static class BytesBody extends RequestBody {
+
+        private final ByteBuffer buffer;
+
+        BytesBody(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        /**
+         * A read-only view on the bytes so that the body can be written more then once.
+         */
+        public ByteBuffer getBuffer() {
+            return buffer.asReadOnlyBuffer();
+        }
+
+        @Override
+        public long getContentLength() {
+            return buffer.remaining();
+        }
+    }
+
+    /**
+     * Body with the contents of a file.
+     */
+    public static class FileBody extends RequestBody {
+
+        private final Path path;
+        private final long length;
+
+        FileBody(Path path, long length) {
+            this.path = path;
+            this.length = length;
+        }
+
+        public Path getPath() {
+            return path;
+        }
+
+        @Override
+        public long getContentLength() {
+            return length;
+        }
+    }
+
+    /**
+     * Body of unknown length read from a stream, it can only be sent once.
+     */
+    public static class StreamBody extends RequestBody {
+
+        private final InputStream stream;
+
+        StreamBody(InputStream stream) {
+            this.stream = stream;
+        }
+
+        public InputStream getStream() {
+            return stream;
+        }
+
+        @Override
+        public long getContentLength() {
+            return -1;
+        }
+
+        @Override
+        public boolean isRepeatable() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.transport;
+
+import java.net.URI;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Performs the HTTP exchange for the rest clients which don't use the JAX-RS client. A transport is shared by all
+ * rest clients which selected it and must be thread safe.
+ */
+public interface Transport {
+
+    /**
+     * Sends the request. The returned future completes when the response (including the entity) is received, or
+     * completes exceptionally with a {@code javax.ws.rs.ProcessingException} when the exchange failed.
+     * <p>
+     * The future can be completed on an internal thread of the transport, callers should not perform blocking work
+     * in the dependent stages of it.
+     */
+    CompletableFuture<TransportResponse> send(TransportRequest request);
+
+    /**
+     * Opens a connection to the host of the URI which is kept for the next request, so that the first request doesn't
+     * need to wait for it. The returned future completes when the connection is established (or a connection is
+     * available already). Transports without connection pool don't need to do anything.
+     */
+    default CompletableFuture<Void> connect(URI uri) {
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Releases all resources (threads, connections) of the transport.
+     */
+    void close();
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.transport;
+
+/**
+ * SPI to provide a {@link Transport}. Implementations are found through the ServiceLoader mechanism (file
+ * META-INF/services/be.atbash.mp.rest_client.transport.TransportFactory) and selected by their name with the
+ * {@code <interface>/mp-rest/transport} configuration key or the {@code RestClientProperties.TRANSPORT} property.
+ */
+public interface TransportFactory {
+
+    /**
+     * The name used to select the transport.
+     */
+    String getName();
+
+    /**
+     * Creates the transport. Called only once, the instance is shared by all rest clients selecting this transport.
+     */
+    Transport createTransport();
+}
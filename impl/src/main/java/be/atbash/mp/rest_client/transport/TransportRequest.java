@@ -0,0 +1,103 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.transport;
+
+import be.atbash.mp.rest_client.metrics.CallPhase;
+import be.atbash.mp.rest_client.metrics.CallTiming;
+
+import javax.ws.rs.core.MultivaluedMap;
+import java.net.URI;
+
+/**
+ * HTTP request handed to a {@link Transport}. Entities are already converted to bytes, headers to their String value.
+ */
+public final class TransportRequest {
+
+    private final String method;
+    private final URI uri;
+    private final MultivaluedMap<String, String> headers;
+    private final RequestBody body;
+    private final boolean streamingResponse;
+    private final MessageBodyWorkers messageBodyWorkers;
+    private final CallTiming timing;
+
+    /**
+     * @param body               The entity, null when the request has no entity.
+     * @param streamingResponse  Must the response entity be streamed instead of read in memory.
+     * @param messageBodyWorkers Used by the {@link TransportResponse} to convert the received entity.
+     */
+    public TransportRequest(String method, URI uri, MultivaluedMap<String, String> headers, RequestBody body, boolean streamingResponse,
+                            MessageBodyWorkers messageBodyWorkers) {
+        this(method, uri, headers, body, streamingResponse, messageBodyWorkers, null);
+    }
+
+    /**
+     * @param timing The timing of the call, null when the phases aren't measured.
+     */
+    public TransportRequest(String method, URI uri, MultivaluedMap<String, String> headers, RequestBody body, boolean streamingResponse,
+                            MessageBodyWorkers messageBodyWorkers, CallTiming timing) {
+        this.method = method;
+        this.uri = uri;
+        this.headers = headers;
+        this.body = body;
+        this.streamingResponse = streamingResponse;
+        this.messageBodyWorkers = messageBodyWorkers;
+        this.timing = timing;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public URI getUri() {
+        return uri;
+    }
+
+    public MultivaluedMap<String, String> getHeaders() {
+        return headers;
+    }
+
+    public RequestBody getBody() {
+        return body;
+    }
+
+    /**
+     * When true, the future of {@link Transport#send(TransportRequest)} completes when the headers are received and
+     * the entity is read from the stream of the {@link TransportResponse}.
+     */
+    public boolean isStreamingResponse() {
+        return streamingResponse;
+    }
+
+    public MessageBodyWorkers getMessageBodyWorkers() {
+        return messageBodyWorkers;
+    }
+
+    /**
+     * Called by the transport when the request has a connection (or stream) and is about to be written, to measure
+     * the time spent waiting for a connection.
+     */
+    public void connectionAcquired() {
+        if (timing != null) {
+            timing.mark(CallPhase.CONNECTION);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return method + ' ' + uri;
+    }
+}
@@ -0,0 +1,354 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.transport;
+
+import javax.ws.rs.core.*;
+import javax.ws.rs.ext.RuntimeDelegate;
+import javax.ws.rs.ProcessingException;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.util.*;
+
+/**
+ * {@code Response} received by a {@link Transport}. It is also the {@code Response} given to the
+ * {@code ResponseExceptionMapper}s.
+ * <p>
+ * Normally, the entity is completely read in memory so it can be read multiple times and {@link #close()} has nothing
+ * to release. For a streaming response (see {@link TransportRequest#isStreamingResponse()}), the entity is read from
+ * the connection while the caller reads it, and the response must be closed.
+ */
+public class TransportResponse extends Response {
+
+    private final int status;
+    private final String reasonPhrase;
+    private final MultivaluedMap<String, String> headers;
+    private final MessageBodyWorkers messageBodyWorkers;
+    private byte[] entity;
+    private InputStream entityStream;
+    private boolean entityStreamRead;
+    private boolean closed;
+
+    /**
+     * @param headers The headers of the response, created with {@link #newHeaders()}.
+     */
+    public TransportResponse(int status, String reasonPhrase, MultivaluedMap<String, String> headers, byte[] entity,
+                             MessageBodyWorkers messageBodyWorkers) {
+        this.status = status;
+        this.reasonPhrase = reasonPhrase;
+        this.headers = headers;
+        this.entity = entity;
+        this.messageBodyWorkers = messageBodyWorkers;
+    }
+
+    /**
+     * Streaming response, the entity is read from the stream.
+     */
+    public TransportResponse(int status, String reasonPhrase, MultivaluedMap<String, String> headers, InputStream entityStream,
+                             MessageBodyWorkers messageBodyWorkers) {
+        this(status, reasonPhrase, headers, (byte[]) null, messageBodyWorkers);
+        this.entityStream = entityStream;
+    }
+
+    /**
+     * Map for the response headers where the lookup is case insensitive.
+     */
+    public static MultivaluedMap<String, String> newHeaders() {
+        return new AbstractMultivaluedMap<String, String>(new TreeMap<String, List<String>>(String.CASE_INSENSITIVE_ORDER)) {
+        };
+    }
+
+    @Override
+    public int getStatus() {
+        return status;
+    }
+
+    @Override
+    public StatusType getStatusInfo() {
+        Status known = Status.fromStatusCode(status);
+        if (known != null) {
+            return known;
+        }
+        return new StatusType() {
+            @Override
+            public int getStatusCode() {
+                return status;
+            }
+
+            @Override
+            public Status.Family getFamily() {
+                return Status.Family.familyOf(status);
+            }
+
+            @Override
+            public String getReasonPhrase() {
+                return reasonPhrase;
+            }
+        };
+    }
+
+    @Override
+    public Object getEntity() {
+        checkNotClosed();
+        if (entityStream != null) {
+            return entityStream;
+        }
+        return hasEntity() ? new ByteArrayInputStream(entity) : null;
+    }
+
+    @Override
+    public <T> T readEntity(Class<T> entityType) {
+        return readEntity(entityType, entityType, null);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T readEntity(GenericType<T> entityType) {
+        return (T) readEntity(entityType.getRawType(), entityType.getType(), null);
+    }
+
+    @Override
+    public <T> T readEntity(Class<T> entityType, Annotation[] annotations) {
+        return readEntity(entityType, entityType, annotations);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T readEntity(GenericType<T> entityType, Annotation[] annotations) {
+        return (T) readEntity(entityType.getRawType(), entityType.getType(), annotations);
+    }
+
+    private <T> T readEntity(Class<T> type, Type genericType, Annotation[] annotations) {
+        checkNotClosed();
+        MediaType mediaType = getMediaType();
+        if (mediaType == null) {
+            mediaType = MediaType.APPLICATION_OCTET_STREAM_TYPE;
+        }
+        if (entityStream == null) {
+            InputStream stream = new ByteArrayInputStream(entity == null ? new byte[0] : entity);
+            return messageBodyWorkers.read(type, genericType, annotations, mediaType, headers, stream);
+        }
+
+        if (entityStreamRead) {
+            throw new IllegalStateException("Entity stream has already been read, use bufferEntity() to read it multiple times");
+        }
+        entityStreamRead = true;
+        T result = messageBodyWorkers.read(type, genericType, annotations, mediaType, headers, entityStream);
+        if (!(result instanceof InputStream || result instanceof Reader)) {
+            // Entity is completely read, as the JAX-RS client, release the connection.
+            close();
+        }
+        return result;
+    }
+
+    private void checkNotClosed() {
+        if (closed) {
+            throw new IllegalStateException("Response is closed");
+        }
+    }
+
+    @Override
+    public boolean hasEntity() {
+        checkNotClosed();
+        if (entityStream != null) {
+            return getLength() != 0;
+        }
+        return entity != null && entity.length > 0;
+    }
+
+    @Override
+    public boolean bufferEntity() {
+        checkNotClosed();
+        if (entityStream != null && !entityStreamRead) {
+            try {
+                entity = BasicEntityProvider.readAll(entityStream);
+            } catch (IOException e) {
+                throw new ProcessingException(e);
+            }
+            closeEntityStream();
+        }
+        return entityStream == null;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        closeEntityStream();
+    }
+
+    private void closeEntityStream() {
+        if (entityStream != null) {
+            try {
+                entityStream.close();
+            } catch (IOException e) {
+                // Nothing we can do about it.
+            }
+            entityStream = null;
+        }
+    }
+
+    @Override
+    public MediaType getMediaType() {
+        String value = headers.getFirst(HttpHeaders.CONTENT_TYPE);
+        return value == null ? null : MediaType.valueOf(value);
+    }
+
+    @Override
+    public Locale getLanguage() {
+        String value = headers.getFirst(HttpHeaders.CONTENT_LANGUAGE);
+        return value == null ? null : Locale.forLanguageTag(value);
+    }
+
+    @Override
+    public int getLength() {
+        String value = headers.getFirst(HttpHeaders.CONTENT_LENGTH);
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    @Override
+    public Set<String> getAllowedMethods() {
+        String value = headers.getFirst(HttpHeaders.ALLOW);
+        if (value == null || value.isEmpty()) {
+            return Collections.emptySet();
+        }
+        Set<String> result = new HashSet<>();
+        for (String method : value.split(",")) {
+            result.add(method.trim().toUpperCase(Locale.ENGLISH));
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, NewCookie> getCookies() {
+        List<String> values = headers.get(HttpHeaders.SET_COOKIE);
+        if (values == null) {
+            return Collections.emptyMap();
+        }
+        Map<String, NewCookie> result = new HashMap<>();
+        for (String value : values) {
+            NewCookie cookie = NewCookie.valueOf(value);
+            result.put(cookie.getName(), cookie);
+        }
+        return result;
+    }
+
+    @Override
+    public EntityTag getEntityTag() {
+        String value = headers.getFirst(HttpHeaders.ETAG);
+        return value == null ? null : EntityTag.valueOf(value);
+    }
+
+    @Override
+    public Date getDate() {
+        return getDateHeader(HttpHeaders.DATE);
+    }
+
+    @Override
+    public Date getLastModified() {
+        return getDateHeader(HttpHeaders.LAST_MODIFIED);
+    }
+
+    private Date getDateHeader(String name) {
+        String value = headers.getFirst(name);
+        return value == null ? null : RuntimeDelegate.getInstance().createHeaderDelegate(Date.class).fromString(value);
+    }
+
+    @Override
+    public URI getLocation() {
+        String value = headers.getFirst(HttpHeaders.LOCATION);
+        return value == null ? null : URI.create(value);
+    }
+
+    @Override
+    public Set<Link> getLinks() {
+        List<String> values = headers.get(HttpHeaders.LINK);
+        if (values == null) {
+            return Collections.emptySet();
+        }
+        Set<Link> result = new HashSet<>();
+        for (String value : values) {
+            result.add(Link.valueOf(value));
+        }
+        return result;
+    }
+
+    @Override
+    public boolean hasLink(String relation) {
+        return getLink(relation) != null;
+    }
+
+    @Override
+    public Link getLink(String relation) {
+        for (Link link : getLinks()) {
+            if (link.getRels().contains(relation)) {
+                return link;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Link.Builder getLinkBuilder(String relation) {
+        Link link = getLink(relation);
+        return link == null ? null : Link.fromLink(link);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public MultivaluedMap<String, Object> getMetadata() {
+        return (MultivaluedMap) headers;
+    }
+
+    @Override
+    public MultivaluedMap<String, String> getStringHeaders() {
+        return headers;
+    }
+
+    @Override
+    public String getHeaderString(String name) {
+        List<String> values = headers.get(name);
+        if (values == null) {
+            return null;
+        }
+        if (values.size() == 1) {
+            return values.get(0);
+        }
+        StringBuilder result = new StringBuilder();
+        for (String value : values) {
+            if (result.length() > 0) {
+                result.append(',');
+            }
+            result.append(value);
+        }
+        return result.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "TransportResponse{status=" + status + '}';
+    }
+}
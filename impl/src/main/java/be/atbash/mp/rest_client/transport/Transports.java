@@ -0,0 +1,120 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.transport;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+
+/**
+ * Keeps the {@link Transport} instance for each {@link TransportFactory} name. A transport is shared by the rest
+ * clients which selected it and is closed when the last of them releases it, so that an application only closes the
+ * transports it is still using itself.
+ */
+public final class Transports {
+
+    /**
+     * Name of the default transport, which uses the JAX-RS client.
+     */
+    public static final String JAXRS = "jaxrs";
+
+    // Guarded by itself, only used when a rest client is built or closed.
+    private static final Map<String, SharedTransport> TRANSPORTS = new HashMap<>();
+
+    private Transports() {
+    }
+
+    /**
+     * Returns the shared transport with the name, which must be released with {@link #releaseTransport(Transport)}
+     * when the caller no longer uses it.
+     *
+     * @throws IllegalArgumentException when no {@code TransportFactory} with the name is found.
+     */
+    public static Transport acquireTransport(String name) {
+        synchronized (TRANSPORTS) {
+            SharedTransport shared = TRANSPORTS.get(name);
+            if (shared == null) {
+                shared = new SharedTransport(createTransport(name));
+                TRANSPORTS.put(name, shared);
+            }
+            shared.users++;
+            return shared.transport;
+        }
+    }
+
+    /**
+     * Releases the transport acquired with {@link #acquireTransport(String)}, it is closed when no other user is left.
+     */
+    public static void releaseTransport(Transport transport) {
+        Transport toClose = null;
+        synchronized (TRANSPORTS) {
+            for (Map.Entry<String, SharedTransport> entry : TRANSPORTS.entrySet()) {
+                SharedTransport shared = entry.getValue();
+                if (shared.transport == transport) {
+                    shared.users--;
+                    if (shared.users == 0) {
+                        TRANSPORTS.remove(entry.getKey());
+                        toClose = transport;
+                    }
+                    break;
+                }
+            }
+        }
+        if (toClose != null) {
+            toClose.close();
+        }
+    }
+
+    private static Transport createTransport(String name) {
+        List<String> available = new ArrayList<>();
+        for (TransportFactory factory : ServiceLoader.load(TransportFactory.class, Transports.class.getClassLoader())) {
+            if (factory.getName().equals(name)) {
+                return factory.createTransport();
+            }
+            available.add(factory.getName());
+        }
+        throw new IllegalArgumentException(String.format("Unknown transport '%s', available are %s and %s", name, JAXRS, available));
+    }
+
+    /**
+     * Closes all transports which are created, also those still used by rest clients. Intended for Java SE programs
+     * at the end of their run.
+     */
+    public static void closeAll() {
+        List<Transport> toClose = new ArrayList<>();
+        synchronized (TRANSPORTS) {
+            for (SharedTransport shared : TRANSPORTS.values()) {
+                toClose.add(shared.transport);
+            }
+            TRANSPORTS.clear();
+        }
+        for (Transport transport : toClose) {
+            transport.close();
+        }
+    }
+
+    private static final class SharedTransport {
+
+        private final Transport transport;
+        private int users;
+
+        private SharedTransport(Transport transport) {
+            this.transport = transport;
+        }
+    }
+}
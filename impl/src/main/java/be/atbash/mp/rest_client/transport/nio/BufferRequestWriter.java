@@ -0,0 +1,43 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.transport.nio;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Writes a request of which the body is in memory, with a gathering write of head and body.
+ */
+final class BufferRequestWriter extends RequestWriter {
+
+    private final ByteBuffer[] buffers;
+
+    BufferRequestWriter(ByteBuffer... buffers) {
+        this.buffers = buffers;
+    }
+
+    @Override
+    Progress write(SocketChannel channel) throws IOException {
+        channel.write(buffers);
+        return buffers[buffers.length - 1].hasRemaining() ? Progress.BLOCKED : Progress.DONE;
+    }
+
+    @Override
+    boolean isStarted() {
+        return buffers[0].position() > 0;
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.transport.nio;
+
+import javax.ws.rs.ProcessingException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The connections to one host and port. A connection handles one exchange at a time, requests which arrive when all
+ * connections are in use and the maximum is reached, wait until a connection becomes available.
+ */
+final class ConnectionPool {
+
+    private final NioTransport transport;
+    private final String host;
+    private final int port;
+    private final int maxConnections;
+
+    // Most recently used connection first, so that the others can reach the idle timeout.
+    private final Deque<HttpConnection> idle = new ArrayDeque<>();
+    private final Deque<Exchange> waiting = new ArrayDeque<>();
+    private int connectionCount;
+
+    ConnectionPool(NioTransport transport, String host, int port, int maxConnections) {
+        this.transport = transport;
+        this.host = host;
+        this.port = port;
+        this.maxConnections = maxConnections;
+    }
+
+    String getHost() {
+        return host;
+    }
+
+    int getPort() {
+        return port;
+    }
+
+    NioTransportConfiguration getConfiguration() {
+        return transport.getConfiguration();
+    }
+
+    /**
+     * Is the transport closing? The event loops no longer accept work, so no connection is opened or reused.
+     */
+    boolean isClosed() {
+        return transport.isClosed();
+    }
+
+    void submit(Exchange exchange) {
+        if (isClosed()) {
+            exchange.fail(new ProcessingException("Transport is closed"));
+            return;
+        }
+        HttpConnection connection;
+        synchronized (this) {
+            connection = idle.pollFirst();
+            if (connection == null) {
+                if (connectionCount >= maxConnections) {
+                    waiting.addLast(exchange);
+                    return;
+                }
+                connectionCount++;
+            }
+        }
+        if (connection == null) {
+            openConnection(exchange);
+        } else {
+            connection.dispatch(exchange);
+        }
+    }
+
+    /**
+     * Opens a connection which is kept idle for the next exchange, unless a connection is idle already or the maximum
+     * is reached.
+     */
+    CompletableFuture<Void> preconnect() {
+        synchronized (this) {
+            if (!idle.isEmpty() || connectionCount >= maxConnections) {
+                return CompletableFuture.completedFuture(null);
+            }
+            connectionCount++;
+        }
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        EventLoop eventLoop = transport.nextEventLoop();
+        if (!eventLoop.execute(() -> new HttpConnection(this, eventLoop).preconnect(result))) {
+            connectionClosed();
+            result.completeExceptionally(new ProcessingException("Transport is closed"));
+        }
+        return result;
+    }
+
+    private void openConnection(Exchange exchange) {
+        EventLoop eventLoop = transport.nextEventLoop();
+        if (!eventLoop.execute(() -> new HttpConnection(this, eventLoop).connect(exchange))) {
+            connectionClosed();
+            exchange.fail(new ProcessingException("Transport is closed"));
+        }
+    }
+
+    private synchronized void connectionClosed() {
+        connectionCount--;
+    }
+
+    /**
+     * The connection finished its exchange and can be reused. Called on the event loop of the connection.
+     */
+    void release(HttpConnection connection) {
+        if (isClosed()) {
+            // The event loop closes the connection.
+            failWaiting(new ProcessingException("Transport is closed"));
+            synchronized (this) {
+                idle.addFirst(connection);
+            }
+            return;
+        }
+        Exchange next;
+        synchronized (this) {
+            next = waiting.pollFirst();
+            if (next == null) {
+                idle.addFirst(connection);
+                return;
+            }
+        }
+        connection.start(next);
+    }
+
+    /**
+     * The connection is closed. Called on the event loop of the connection.
+     */
+    void closed(HttpConnection connection) {
+        if (isClosed()) {
+            synchronized (this) {
+                idle.remove(connection);
+                connectionCount--;
+            }
+            failWaiting(new ProcessingException("Transport is closed"));
+            return;
+        }
+        Exchange next;
+        synchronized (this) {
+            idle.remove(connection);
+            next = waiting.pollFirst();
+            if (next == null) {
+                connectionCount--;
+                return;
+            }
+        }
+        // The waiting exchange takes over the place of the closed connection.
+        openConnection(next);
+    }
+
+    /**
+     * Fails the exchanges which are waiting for a connection.
+     */
+    void failWaiting(Throwable throwable) {
+        List<Exchange> exchanges;
+        synchronized (this) {
+            exchanges = new ArrayList<>(waiting);
+            waiting.clear();
+        }
+        for (Exchange exchange : exchanges) {
+            exchange.fail(throwable);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.transport.nio;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Thread with a {@code Selector} which performs all I/O of the connections assigned to it. Other threads hand over
+ * work with {@link #execute(Runnable)}, the connections themselves are only touched by the event loop thread.
+ */
+final class EventLoop implements Runnable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EventLoop.class);
+
+    // Resolution of the connect, read and idle timeouts.
+    private static final long TIMEOUT_CHECK_INTERVAL = 100;
+
+    private static final int READ_BUFFER_SIZE = 16384;
+
+    private final Selector selector;
+    private final Thread thread;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final Set<HttpConnection> connections = new HashSet<>();
+    // Shared by all connections of the loop, the parser copies what it needs.
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+    private volatile boolean running = true;
+    // Guarded by tasks, false once the loop is closing its connections and runs the last tasks.
+    private boolean accepting = true;
+
+    EventLoop(String name) throws IOException {
+        selector = Selector.open();
+        thread = new Thread(this, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * @return false when the event loop is shut down, the task will never run.
+     */
+    boolean execute(Runnable task) {
+        synchronized (tasks) {
+            if (!accepting) {
+                return false;
+            }
+            tasks.add(task);
+        }
+        if (Thread.currentThread() != thread) {
+            selector.wakeup();
+        }
+        return true;
+    }
+
+    SelectionKey register(SelectableChannel channel, int operations, HttpConnection connection) throws IOException {
+        connections.add(connection);
+        return channel.register(selector, operations, connection);
+    }
+
+    void deregister(HttpConnection connection) {
+        connections.remove(connection);
+    }
+
+    @Override
+    public void run() {
+        long nextTimeoutCheck = System.currentTimeMillis() + TIMEOUT_CHECK_INTERVAL;
+        while (running) {
+            try {
+                runTasks();
+                selector.select(TIMEOUT_CHECK_INTERVAL);
+                processSelectedKeys();
+
+                long now = System.currentTimeMillis();
+                if (now >= nextTimeoutCheck) {
+                    checkTimeouts(now);
+                    nextTimeoutCheck = now + TIMEOUT_CHECK_INTERVAL;
+                }
+            } catch (Throwable t) {
+                LOGGER.warn(String.format("Unexpected exception in event loop %s", thread.getName()), t);
+            }
+        }
+        closeConnections();
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                LOGGER.warn(String.format("Unexpected exception in event loop %s", thread.getName()), e);
+            }
+        }
+    }
+
+    private void processSelectedKeys() {
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+            SelectionKey key = keys.next();
+            keys.remove();
+            HttpConnection connection = (HttpConnection) key.attachment();
+            try {
+                if (!key.isValid()) {
+                    continue;
+                }
+                if (key.isConnectable()) {
+                    connection.onConnectable();
+                    continue;
+                }
+                if (key.isWritable()) {
+                    connection.onWritable();
+                }
+                if (key.isValid() && key.isReadable()) {
+                    connection.onReadable(readBuffer);
+                }
+            } catch (IOException | RuntimeException e) {
+                connection.fail(e);
+            }
+        }
+    }
+
+    private void checkTimeouts(long now) {
+        for (HttpConnection connection : new ArrayList<>(connections)) {
+            connection.checkTimeout(now);
+        }
+    }
+
+    private void closeConnections() {
+        synchronized (tasks) {
+            accepting = false;
+        }
+        runTasks();
+        for (HttpConnection connection : new ArrayList<>(connections)) {
+            connection.fail(new IOException("Transport is closed"));
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            LOGGER.warn(String.format("Closing selector of event loop %s failed", thread.getName()), e);
+        }
+    }
+
+    void shutdown() {
+        running = false;
+        selector.wakeup();
+    }
+}
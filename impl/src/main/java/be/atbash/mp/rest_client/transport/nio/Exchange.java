@@ -0,0 +1,126 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.transport.nio;
+
+import be.atbash.mp.rest_client.executor.ExecutorServices;
+import be.atbash.mp.rest_client.transport.RequestBody;
+import be.atbash.mp.rest_client.transport.TransportRequest;
+import be.atbash.mp.rest_client.transport.TransportResponse;
+
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.ProcessingException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A request together with the future which receives the response.
+ */
+final class Exchange {
+
+    private final TransportRequest request;
+    private final CompletableFuture<TransportResponse> future;
+    private final byte[] head;
+    private final RequestBody body;
+    private boolean retried;
+
+    Exchange(TransportRequest request, CompletableFuture<TransportResponse> future) {
+        this.request = request;
+        this.future = future;
+        head = RequestEncoder.encodeHead(request);
+        body = request.getBody();
+        if (body != null && !(body instanceof RequestBody.BytesBody || body instanceof RequestBody.FileBody
+                || body instanceof RequestBody.StreamBody)) {
+            throw new ProcessingException(String.format("Request body %s is not supported by the nio transport", body.getClass().getName()));
+        }
+    }
+
+    TransportRequest getRequest() {
+        return request;
+    }
+
+    boolean isHeadRequest() {
+        return HttpMethod.HEAD.equals(request.getMethod());
+    }
+
+    /**
+     * Can the request be sent again without changing the result on the server (RFC 7231 section 4.2.2)?
+     */
+    boolean isIdempotent() {
+        switch (request.getMethod()) {
+            case HttpMethod.GET:
+            case HttpMethod.HEAD:
+            case HttpMethod.OPTIONS:
+            case HttpMethod.PUT:
+            case HttpMethod.DELETE:
+            case "TRACE":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * New writer positioned at the start of the request, so that a request can be written again on another connection.
+     */
+    RequestWriter newRequestWriter(HttpConnection connection) {
+        if (body instanceof RequestBody.FileBody) {
+            RequestBody.FileBody fileBody = (RequestBody.FileBody) body;
+            return new FileRequestWriter(ByteBuffer.wrap(head), fileBody.getPath(), fileBody.getContentLength());
+        }
+        if (body instanceof RequestBody.StreamBody) {
+            // Reading the stream may block, virtual threads (or the bounded fallback pool) are cheap for that.
+            return new StreamRequestWriter(ByteBuffer.wrap(head), ((RequestBody.StreamBody) body).getStream(),
+                    ExecutorServices.getVirtualThreadExecutor(), connection);
+        }
+        if (body == null) {
+            return new BufferRequestWriter(ByteBuffer.wrap(head));
+        }
+        return new BufferRequestWriter(ByteBuffer.wrap(head), ((RequestBody.BytesBody) body).getBuffer());
+    }
+
+    /**
+     * Marks the exchange as retried. Returns false when the exchange was already retried before, or when the body
+     * can't be sent again.
+     */
+    boolean markRetry() {
+        if (retried || (body != null && !body.isRepeatable())) {
+            return false;
+        }
+        retried = true;
+        return true;
+    }
+
+    void complete(TransportResponse response) {
+        future.complete(response);
+    }
+
+    void fail(Throwable throwable) {
+        if (body instanceof RequestBody.StreamBody) {
+            // The stream is handed over to the transport, also close it when the request is never sent.
+            try {
+                ((RequestBody.StreamBody) body).getStream().close();
+            } catch (IOException e) {
+                // Reporting the original failure is more important.
+            }
+        }
+        if (throwable instanceof ProcessingException) {
+            future.completeExceptionally(throwable);
+        } else {
+            future.completeExceptionally(new ProcessingException(String.format("%s failed: %s", request, throwable.getMessage()), throwable));
+        }
+    }
+}
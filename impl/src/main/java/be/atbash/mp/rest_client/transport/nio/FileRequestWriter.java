@@ -0,0 +1,84 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.transport.nio;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes a request with a file as body. The file is transferred with {@code FileChannel.transferTo} so that the
+ * operating system can send it without copying the bytes through the JVM.
+ */
+final class FileRequestWriter extends RequestWriter {
+
+    private final ByteBuffer head;
+    private final Path path;
+    private final long length;
+    private FileChannel file;
+    private long position;
+
+    FileRequestWriter(ByteBuffer head, Path path, long length) {
+        this.head = head;
+        this.path = path;
+        this.length = length;
+    }
+
+    @Override
+    Progress write(SocketChannel channel) throws IOException {
+        if (head.hasRemaining()) {
+            channel.write(head);
+            if (head.hasRemaining()) {
+                return Progress.BLOCKED;
+            }
+        }
+        if (file == null) {
+            file = FileChannel.open(path, StandardOpenOption.READ);
+        }
+        while (position < length) {
+            long transferred = file.transferTo(position, length - position, channel);
+            if (transferred == 0) {
+                if (file.size() <= position) {
+                    throw new IOException(String.format("File %s is shorter than the announced Content-Length %s", path, length));
+                }
+                return Progress.BLOCKED;
+            }
+            position += transferred;
+        }
+        close();
+        return Progress.DONE;
+    }
+
+    @Override
+    boolean isStarted() {
+        return head.position() > 0;
+    }
+
+    @Override
+    void close() {
+        if (file != null) {
+            try {
+                file.close();
+            } catch (IOException e) {
+                // Only read from, nothing is lost.
+            }
+            file = null;
+        }
+    }
+}
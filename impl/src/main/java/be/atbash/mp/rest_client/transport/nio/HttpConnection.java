@@ -0,0 +1,364 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.transport.nio;
+
+import be.atbash.mp.rest_client.transport.TransportResponse;
+
+import javax.ws.rs.ProcessingException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A non-blocking HTTP/1.1 connection which executes one exchange at a time. All methods are called on the event
+ * loop the connection belongs to.
+ */
+final class HttpConnection {
+
+    private final ConnectionPool pool;
+    private final EventLoop eventLoop;
+    private final NioTransportConfiguration configuration;
+
+    private SocketChannel channel;
+    private SelectionKey key;
+    private boolean connected;
+    private boolean closed;
+    // Is the connection used for a previous exchange, the server might have closed it in the meantime.
+    private boolean reused;
+    // Are bytes of the request of the current exchange written?
+    private boolean requestStarted;
+
+    private Exchange exchange;
+    // Completed when a connection opened without exchange is established.
+    private CompletableFuture<Void> preconnected;
+    private RequestWriter writer;
+    private ResponseParser parser;
+    // Entity of a streaming response, the response is handed to the caller as soon as the headers are received.
+    private ResponseBodyStream bodyStream;
+    private boolean responseDelivered;
+    private boolean readPaused;
+
+    // Time (System.currentTimeMillis) of the connect or read timeout, 0 when there is no timeout.
+    private long deadline;
+    private long idleSince;
+
+    HttpConnection(ConnectionPool pool, EventLoop eventLoop) {
+        this.pool = pool;
+        this.eventLoop = eventLoop;
+        configuration = pool.getConfiguration();
+    }
+
+    void connect(Exchange exchange) {
+        this.exchange = exchange;
+        try {
+            channel = SocketChannel.open();
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            channel.setOption(StandardSocketOptions.SO_KEEPALIVE, true);
+            if (channel.connect(new InetSocketAddress(pool.getHost(), pool.getPort()))) {
+                key = eventLoop.register(channel, 0, this);
+                onConnected();
+            } else {
+                key = eventLoop.register(channel, SelectionKey.OP_CONNECT, this);
+                deadline = configuration.getConnectTimeout() > 0 ? System.currentTimeMillis() + configuration.getConnectTimeout() : 0;
+            }
+        } catch (IOException | RuntimeException e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * Opens the connection without exchange, it is added to the idle connections of the pool once established.
+     */
+    void preconnect(CompletableFuture<Void> future) {
+        preconnected = future;
+        connect(null);
+    }
+
+    void onConnectable() throws IOException {
+        if (channel.finishConnect()) {
+            onConnected();
+        }
+    }
+
+    private void onConnected() throws IOException {
+        connected = true;
+        if (exchange != null) {
+            beginExchange();
+            return;
+        }
+        deadline = 0;
+        idleSince = System.currentTimeMillis();
+        key.interestOps(SelectionKey.OP_READ);
+        preconnected.complete(null);
+        pool.release(this);
+    }
+
+    /**
+     * Hands the exchange to this (idle) connection, from any thread.
+     */
+    void dispatch(Exchange exchange) {
+        if (!eventLoop.execute(() -> start(exchange))) {
+            exchange.fail(new ProcessingException("Transport is closed"));
+        }
+    }
+
+    void start(Exchange exchange) {
+        if (closed) {
+            // Closed by the server or idle timeout before the exchange could start.
+            pool.submit(exchange);
+            return;
+        }
+        reused = true;
+        this.exchange = exchange;
+        try {
+            beginExchange();
+        } catch (IOException | RuntimeException e) {
+            fail(e);
+        }
+    }
+
+    private void beginExchange() throws IOException {
+        exchange.getRequest().connectionAcquired();
+        writer = exchange.newRequestWriter(this);
+        requestStarted = false;
+        bodyStream = exchange.getRequest().isStreamingResponse() ? new ResponseBodyStream(this) : null;
+        responseDelivered = false;
+        parser = new ResponseParser(exchange.isHeadRequest(), bodyStream);
+        refreshReadDeadline();
+        onWritable();
+    }
+
+    void onWritable() throws IOException {
+        switch (writer.write(channel)) {
+            case BLOCKED:
+                key.interestOps(SelectionKey.OP_WRITE);
+                break;
+            case WAITING:
+                key.interestOps(0);
+                break;
+            default:
+                requestStarted = true;
+                writer = null;
+                key.interestOps(SelectionKey.OP_READ);
+        }
+    }
+
+    /**
+     * The writer has the next bytes of the body available, from any thread.
+     */
+    void resumeWriting(RequestWriter requestWriter) {
+        eventLoop.execute(() -> {
+            if (requestWriter == writer && !closed) {
+                refreshReadDeadline();
+                try {
+                    onWritable();
+                } catch (IOException | RuntimeException e) {
+                    fail(e);
+                }
+            }
+        });
+    }
+
+    void onReadable(ByteBuffer buffer) throws IOException {
+        buffer.clear();
+        int read = channel.read(buffer);
+        if (read == -1) {
+            onEndOfStream();
+            return;
+        }
+        if (exchange == null) {
+            // Idle connection, the server isn't supposed to send anything.
+            close();
+            return;
+        }
+        buffer.flip();
+        refreshReadDeadline();
+        boolean done = parser.parse(buffer);
+        if (bodyStream != null && !responseDelivered && parser.isHeadersComplete()) {
+            deliverResponse();
+        }
+        if (done) {
+            complete(parser.isKeepAlive());
+        } else if (parser.isPauseRequested()) {
+            // The caller doesn't keep up, stop reading until it has consumed the buffered bytes.
+            readPaused = true;
+            deadline = 0;
+            key.interestOps(0);
+        }
+    }
+
+    private void deliverResponse() {
+        responseDelivered = true;
+        exchange.complete(parser.toResponse(exchange.getRequest().getMessageBodyWorkers()));
+    }
+
+    /**
+     * The caller has consumed enough bytes of the streaming response, from any thread.
+     */
+    void resumeReading(ResponseBodyStream stream) {
+        eventLoop.execute(() -> {
+            if (stream == bodyStream && readPaused && !closed) {
+                readPaused = false;
+                refreshReadDeadline();
+                key.interestOps(SelectionKey.OP_READ);
+            }
+        });
+    }
+
+    /**
+     * The caller closed the streaming response before the complete entity was received, from any thread. The rest
+     * of the entity isn't read and thus the connection can't be reused.
+     */
+    void abortStreaming(ResponseBodyStream stream) {
+        eventLoop.execute(() -> {
+            if (stream == bodyStream) {
+                fail(new IOException("Response entity stream closed before the complete entity was received"));
+            }
+        });
+    }
+
+    private void onEndOfStream() throws IOException {
+        if (exchange == null) {
+            close();
+            return;
+        }
+        if (parser.endOfInput()) {
+            complete(false);
+            return;
+        }
+        if (retryOnNewConnection()) {
+            return;
+        }
+        throw new IOException("Connection closed by server before the complete response was received");
+    }
+
+    /**
+     * When the server closed the kept alive connection before it received our request (we see the end of stream or a
+     * connection reset), the exchange is tried once more on a new connection. Only when the request isn't written yet
+     * or is idempotent, otherwise the server might have processed it (RFC 7230 section 6.3.1). Never when the
+     * transport is closing.
+     */
+    private boolean retryOnNewConnection() {
+        if (!reused || parser == null || parser.isDataReceived() || pool.isClosed()) {
+            return false;
+        }
+        boolean written = requestStarted || (writer != null && writer.isStarted());
+        if ((written && !exchange.isIdempotent()) || !exchange.markRetry()) {
+            return false;
+        }
+        Exchange retry = exchange;
+        exchange = null;
+        close();
+        pool.submit(retry);
+        return true;
+    }
+
+    private void complete(boolean keepAlive) {
+        if (writer != null) {
+            // The server responded before the complete request was sent, the connection can't be reused.
+            writer.close();
+            writer = null;
+            keepAlive = false;
+        }
+        Exchange finished = exchange;
+        TransportResponse response = null;
+        if (bodyStream == null) {
+            response = parser.toResponse(finished.getRequest().getMessageBodyWorkers());
+        } else {
+            if (!responseDelivered) {
+                deliverResponse();
+            }
+            bodyStream.end();
+        }
+        exchange = null;
+        parser = null;
+        bodyStream = null;
+        readPaused = false;
+        deadline = 0;
+        if (keepAlive) {
+            idleSince = System.currentTimeMillis();
+            pool.release(this);
+        } else {
+            close();
+        }
+        if (response != null) {
+            finished.complete(response);
+        }
+    }
+
+    void fail(Throwable throwable) {
+        // Connection reset or broken pipe, but not a timeout.
+        if (exchange != null && throwable instanceof IOException && !(throwable instanceof SocketTimeoutException) && retryOnNewConnection()) {
+            return;
+        }
+        if (preconnected != null && !connected) {
+            preconnected.completeExceptionally(throwable);
+        }
+        Exchange failed = exchange;
+        exchange = null;
+        if (bodyStream != null) {
+            bodyStream.fail(throwable instanceof IOException ? (IOException) throwable : new IOException(throwable.getMessage(), throwable));
+            bodyStream = null;
+        }
+        close();
+        if (failed != null) {
+            failed.fail(throwable);
+        }
+    }
+
+    void checkTimeout(long now) {
+        if (exchange != null || !connected) {
+            if (deadline > 0 && now >= deadline) {
+                fail(new SocketTimeoutException(connected ? "Read timed out" : "Connect timed out"));
+            }
+        } else if (configuration.getIdleTimeout() > 0 && now - idleSince >= configuration.getIdleTimeout()) {
+            close();
+        }
+    }
+
+    private void refreshReadDeadline() {
+        deadline = configuration.getReadTimeout() > 0 ? System.currentTimeMillis() + configuration.getReadTimeout() : 0;
+    }
+
+    private void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+        if (key != null) {
+            key.cancel();
+        }
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Nothing we can do about it.
+            }
+        }
+        eventLoop.deregister(this);
+        pool.closed(this);
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.transport.nio;
+
+import be.atbash.mp.rest_client.transport.Transport;
+import be.atbash.mp.rest_client.transport.TransportRequest;
+import be.atbash.mp.rest_client.transport.TransportResponse;
+
+import javax.ws.rs.ProcessingException;
+import java.io.IOException;
+import java.net.URI;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * HTTP/1.1 transport based on non-blocking sockets. A few event loop threads perform the I/O for all connections, so
+ * no thread is occupied while a request is waiting for the response.
+ */
+final class NioTransport implements Transport {
+
+    private final NioTransportConfiguration configuration;
+    private final EventLoop[] eventLoops;
+    private final AtomicInteger nextEventLoop = new AtomicInteger();
+    private final ConcurrentMap<String, ConnectionPool> pools = new ConcurrentHashMap<>();
+    private volatile boolean closed;
+
+    NioTransport(NioTransportConfiguration configuration) {
+        this.configuration = configuration;
+        eventLoops = new EventLoop[configuration.getEventLoops()];
+        try {
+            for (int i = 0; i < eventLoops.length; i++) {
+                eventLoops[i] = new EventLoop("atbash-rest-client-nio-" + (i + 1));
+            }
+        } catch (IOException e) {
+            close();
+            throw new ProcessingException("Unable to start the event loops of the nio transport", e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<TransportResponse> send(TransportRequest request) {
+        CompletableFuture<TransportResponse> result = new CompletableFuture<>();
+        if (closed) {
+            result.completeExceptionally(new ProcessingException("Transport is closed"));
+            return result;
+        }
+        URI uri = request.getUri();
+        if (!"http".equalsIgnoreCase(uri.getScheme()) || uri.getHost() == null) {
+            result.completeExceptionally(new ProcessingException(String.format("The nio transport only supports http URLs, not '%s'", uri)));
+            return result;
+        }
+
+        Exchange exchange;
+        try {
+            exchange = new Exchange(request, result);
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e instanceof ProcessingException ? e : new ProcessingException(e));
+            return result;
+        }
+        getPool(uri).submit(exchange);
+        return result;
+    }
+
+    @Override
+    public CompletableFuture<Void> connect(URI uri) {
+        if (closed || !"http".equalsIgnoreCase(uri.getScheme()) || uri.getHost() == null) {
+            // The request itself reports the problem.
+            return CompletableFuture.completedFuture(null);
+        }
+        return getPool(uri).preconnect();
+    }
+
+    private ConnectionPool getPool(URI uri) {
+        String host = uri.getHost().toLowerCase(Locale.ENGLISH);
+        int port = uri.getPort() == -1 ? 80 : uri.getPort();
+        String authority = host + ':' + port;
+        ConnectionPool result = pools.get(authority);
+        if (result == null) {
+            result = pools.computeIfAbsent(authority, k -> new ConnectionPool(this, host, port, configuration.getMaxConnectionsPerAuthority()));
+        }
+        return result;
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    NioTransportConfiguration getConfiguration() {
+        return configuration;
+    }
+
+    EventLoop nextEventLoop() {
+        return eventLoops[Math.floorMod(nextEventLoop.getAndIncrement(), eventLoops.length)];
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        ProcessingException exception = new ProcessingException("Transport is closed");
+        for (ConnectionPool pool : pools.values()) {
+            pool.failWaiting(exception);
+        }
+        for (EventLoop eventLoop : eventLoops) {
+            if (eventLoop != null) {
+                eventLoop.shutdown();
+            }
+        }
+    }
+}
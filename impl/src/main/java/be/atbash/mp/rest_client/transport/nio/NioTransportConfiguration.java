@@ -0,0 +1,95 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.transport.nio;
+
+import be.atbash.config.ConfigOptionalValue;
+
+/**
+ * Settings of the {@link NioTransport}, read from the configuration.
+ */
+final class NioTransportConfiguration {
+
+    static final String EVENT_LOOPS = "atbash.rest.client.nio.eventLoops";
+    static final String MAX_CONNECTIONS_PER_AUTHORITY = "atbash.rest.client.nio.maxConnectionsPerAuthority";
+    static final String CONNECT_TIMEOUT = "atbash.rest.client.nio.connectTimeout";
+    static final String READ_TIMEOUT = "atbash.rest.client.nio.readTimeout";
+    static final String IDLE_TIMEOUT = "atbash.rest.client.nio.idleTimeout";
+
+    private final int eventLoops;
+    private final int maxConnectionsPerAuthority;
+    private final long connectTimeout;
+    private final long readTimeout;
+    private final long idleTimeout;
+
+    NioTransportConfiguration(int eventLoops, int maxConnectionsPerAuthority, long connectTimeout, long readTimeout, long idleTimeout) {
+        if (eventLoops < 1) {
+            throw new IllegalArgumentException(String.format("Parameter %s must be at least 1", EVENT_LOOPS));
+        }
+        if (maxConnectionsPerAuthority < 1) {
+            throw new IllegalArgumentException(String.format("Parameter %s must be at least 1", MAX_CONNECTIONS_PER_AUTHORITY));
+        }
+        this.eventLoops = eventLoops;
+        this.maxConnectionsPerAuthority = maxConnectionsPerAuthority;
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+        this.idleTimeout = idleTimeout;
+    }
+
+    static NioTransportConfiguration fromConfig() {
+        int defaultEventLoops = Math.min(4, Runtime.getRuntime().availableProcessors());
+        return new NioTransportConfiguration(getValue(EVENT_LOOPS, defaultEventLoops), getValue(MAX_CONNECTIONS_PER_AUTHORITY, 256),
+                getValue(CONNECT_TIMEOUT, 10000L), getValue(READ_TIMEOUT, 0L), getValue(IDLE_TIMEOUT, 60000L));
+    }
+
+    private static int getValue(String key, int defaultValue) {
+        Integer value = ConfigOptionalValue.getValue(key, Integer.class);
+        return value == null ? defaultValue : value;
+    }
+
+    private static long getValue(String key, long defaultValue) {
+        Long value = ConfigOptionalValue.getValue(key, Long.class);
+        return value == null ? defaultValue : value;
+    }
+
+    int getEventLoops() {
+        return eventLoops;
+    }
+
+    int getMaxConnectionsPerAuthority() {
+        return maxConnectionsPerAuthority;
+    }
+
+    /**
+     * In milliseconds, 0 means no timeout.
+     */
+    long getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    /**
+     * Maximum time of inactivity while waiting for the response, in milliseconds. 0 means no timeout.
+     */
+    long getReadTimeout() {
+        return readTimeout;
+    }
+
+    /**
+     * Time after which an unused connection is closed, in milliseconds. 0 means never.
+     */
+    long getIdleTimeout() {
+        return idleTimeout;
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.transport.nio;
+
+import be.atbash.mp.rest_client.transport.Transport;
+import be.atbash.mp.rest_client.transport.TransportFactory;
+
+/**
+ * Provides the non-blocking HTTP/1.1 transport, selected with the name {@code nio}.
+ */
+public class NioTransportFactory implements TransportFactory {
+
+    public static final String NAME = "nio";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public Transport createTransport() {
+        return new NioTransport(NioTransportConfiguration.fromConfig());
+    }
+}
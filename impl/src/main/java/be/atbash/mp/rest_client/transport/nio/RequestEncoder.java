@@ -0,0 +1,93 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.transport.nio;
+
+import be.atbash.mp.rest_client.transport.RequestBody;
+import be.atbash.mp.rest_client.transport.TransportRequest;
+
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.core.HttpHeaders;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Creates the request line and headers of an HTTP/1.1 request.
+ */
+final class RequestEncoder {
+
+    private static final String USER_AGENT = "Atbash-Rest-Client";
+    private static final String TRANSFER_ENCODING = "Transfer-Encoding";
+    private static final String CRLF = "\r\n";
+
+    private RequestEncoder() {
+    }
+
+    static byte[] encodeHead(TransportRequest request) {
+        URI uri = request.getUri();
+        StringBuilder head = new StringBuilder(256);
+        head.append(request.getMethod()).append(' ');
+
+        String path = uri.getRawPath();
+        head.append(path == null || path.isEmpty() ? "/" : path);
+        if (uri.getRawQuery() != null) {
+            head.append('?').append(uri.getRawQuery());
+        }
+        head.append(" HTTP/1.1").append(CRLF);
+
+        appendHeader(head, HttpHeaders.HOST, uri.getRawAuthority());
+
+        boolean userAgent = false;
+        for (Map.Entry<String, List<String>> entry : request.getHeaders().entrySet()) {
+            String name = entry.getKey();
+            if (isManagedHeader(name)) {
+                continue;
+            }
+            userAgent |= HttpHeaders.USER_AGENT.equalsIgnoreCase(name);
+            for (String value : entry.getValue()) {
+                appendHeader(head, name, value);
+            }
+        }
+        if (!userAgent) {
+            appendHeader(head, HttpHeaders.USER_AGENT, USER_AGENT);
+        }
+
+        RequestBody body = request.getBody();
+        if (body != null && body.getContentLength() < 0) {
+            appendHeader(head, TRANSFER_ENCODING, "chunked");
+        } else if (body != null) {
+            appendHeader(head, HttpHeaders.CONTENT_LENGTH, String.valueOf(body.getContentLength()));
+        } else if (HttpMethod.POST.equals(request.getMethod()) || HttpMethod.PUT.equals(request.getMethod())) {
+            appendHeader(head, HttpHeaders.CONTENT_LENGTH, "0");
+        }
+        head.append(CRLF);
+        return head.toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    private static boolean isManagedHeader(String name) {
+        return HttpHeaders.HOST.equalsIgnoreCase(name) || HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)
+                || TRANSFER_ENCODING.equalsIgnoreCase(name) || "Connection".equalsIgnoreCase(name);
+    }
+
+    private static void appendHeader(StringBuilder head, String name, String value) {
+        if (value.indexOf('\r') >= 0 || value.indexOf('\n') >= 0) {
+            throw new ProcessingException(String.format("Value of header '%s' contains a line break", name));
+        }
+        head.append(name).append(": ").append(value).append(CRLF);
+    }
+}
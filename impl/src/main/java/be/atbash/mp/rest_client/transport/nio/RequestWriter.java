@@ -0,0 +1,54 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.transport.nio;
+
+import java.io.IOException;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Writes a request (head and body) to the connection. All methods are called on the event loop of the connection.
+ */
+abstract class RequestWriter {
+
+    enum Progress {
+        /**
+         * The complete request is written.
+         */
+        DONE,
+        /**
+         * The socket can't accept more bytes, continue when it becomes writable.
+         */
+        BLOCKED,
+        /**
+         * Waiting for the next bytes of the body, the writer calls {@link HttpConnection#resumeWriting(RequestWriter)}
+         * when they are available.
+         */
+        WAITING
+    }
+
+    abstract Progress write(SocketChannel channel) throws IOException;
+
+    /**
+     * Are bytes of the request written to the connection? The server might have received (and processed) the request.
+     */
+    abstract boolean isStarted();
+
+    /**
+     * Releases the resources used by the body, called when the exchange is finished (successfully or not).
+     */
+    void close() {
+    }
+}
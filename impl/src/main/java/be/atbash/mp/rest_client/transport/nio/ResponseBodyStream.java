@@ -0,0 +1,193 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.transport.nio;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Entity of a streaming response. The event loop adds the received bytes, the caller reads them. When the caller
+ * doesn't keep up and too many bytes are buffered, the connection stops reading from the socket until the caller has
+ * consumed enough of them.
+ */
+final class ResponseBodyStream extends InputStream {
+
+    private static final int HIGH_WATERMARK = 1024 * 1024;
+    private static final int LOW_WATERMARK = 256 * 1024;
+
+    private final HttpConnection connection;
+
+    // A lock and not synchronized, so that a waiting virtual thread doesn't pin its carrier.
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+
+    private final Deque<byte[]> chunks = new ArrayDeque<>();
+    private byte[] current;
+    private int position;
+    private int buffered;
+    private boolean paused;
+    private boolean ended;
+    private IOException failure;
+    private boolean closed;
+
+    ResponseBodyStream(HttpConnection connection) {
+        this.connection = connection;
+    }
+
+    /**
+     * Adds received bytes, called on the event loop. Returns false when the connection must pause reading.
+     */
+    boolean offer(byte[] chunk) {
+        lock.lock();
+        try {
+            if (closed) {
+                return true;
+            }
+            chunks.addLast(chunk);
+            buffered += chunk.length;
+            available.signalAll();
+            if (buffered >= HIGH_WATERMARK) {
+                paused = true;
+                return false;
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * All bytes of the entity are received, called on the event loop.
+     */
+    void end() {
+        lock.lock();
+        try {
+            ended = true;
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Receiving the entity failed, called on the event loop.
+     */
+    void fail(IOException exception) {
+        lock.lock();
+        try {
+            if (!ended) {
+                failure = exception;
+                available.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        int read = read(single, 0, 1);
+        return read == -1 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        int result;
+        boolean resume = false;
+        lock.lock();
+        try {
+            while (true) {
+                if (closed) {
+                    throw new IOException("Stream is closed");
+                }
+                if (current == null) {
+                    current = chunks.pollFirst();
+                    position = 0;
+                }
+                if (current != null) {
+                    break;
+                }
+                if (failure != null) {
+                    throw new IOException(failure.getMessage(), failure);
+                }
+                if (ended) {
+                    return -1;
+                }
+                available.await();
+            }
+            result = Math.min(length, current.length - position);
+            System.arraycopy(current, position, bytes, offset, result);
+            position += result;
+            if (position == current.length) {
+                current = null;
+            }
+            buffered -= result;
+            if (paused && buffered <= LOW_WATERMARK) {
+                paused = false;
+                resume = true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the response entity", e);
+        } finally {
+            lock.unlock();
+        }
+        if (resume) {
+            connection.resumeReading(this);
+        }
+        return result;
+    }
+
+    @Override
+    public int available() {
+        lock.lock();
+        try {
+            return buffered;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        boolean abort;
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            abort = !ended && failure == null;
+            chunks.clear();
+            current = null;
+            buffered = 0;
+        } finally {
+            lock.unlock();
+        }
+        if (abort) {
+            // Not everything is read, the connection can't be reused.
+            connection.abortStreaming(this);
+        }
+    }
+}
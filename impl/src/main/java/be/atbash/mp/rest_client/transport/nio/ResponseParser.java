@@ -0,0 +1,327 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.transport.nio;
+
+import be.atbash.mp.rest_client.transport.MessageBodyWorkers;
+import be.atbash.mp.rest_client.transport.TransportResponse;
+
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedMap;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Locale;
+
+/**
+ * Incremental parser of an HTTP/1.x response. The bytes are fed as they arrive on the connection, the parser keeps
+ * its state between the calls. The entity is collected in memory, or handed to a {@link ResponseBodyStream} for a
+ * streaming response.
+ */
+final class ResponseParser {
+
+    private static final int MAX_LINE_LENGTH = 65536;
+
+    private enum State {
+        STATUS_LINE, HEADERS, BODY_FIXED, CHUNK_SIZE, CHUNK_DATA, CHUNK_DATA_END, TRAILERS, BODY_UNTIL_CLOSE, DONE
+    }
+
+    private final boolean headRequest;
+    private final ResponseBodyStream bodyStream;
+
+    private State state = State.STATUS_LINE;
+    private final StringBuilder line = new StringBuilder(128);
+    private boolean dataReceived;
+
+    private boolean http10;
+    private int status;
+    private String reasonPhrase;
+    private MultivaluedMap<String, String> headers;
+    private boolean keepAlive;
+
+    private byte[] fixedBody;
+    private int fixedBodyPosition;
+    private long fixedBodyRemaining;
+    private ByteArrayOutputStream body;
+    private long chunkRemaining;
+    private boolean pauseRequested;
+
+    /**
+     * @param bodyStream Receives the entity of a streaming response, null when the entity is collected in memory.
+     */
+    ResponseParser(boolean headRequest, ResponseBodyStream bodyStream) {
+        this.headRequest = headRequest;
+        this.bodyStream = bodyStream;
+    }
+
+    /**
+     * Consumes the bytes of the buffer. Returns true when the response is complete.
+     */
+    boolean parse(ByteBuffer buffer) throws IOException {
+        if (buffer.hasRemaining()) {
+            dataReceived = true;
+        }
+        while (buffer.hasRemaining() && state != State.DONE) {
+            switch (state) {
+                case STATUS_LINE:
+                    if (readLine(buffer)) {
+                        parseStatusLine();
+                    }
+                    break;
+                case HEADERS:
+                    if (readLine(buffer)) {
+                        parseHeaderLine();
+                    }
+                    break;
+                case BODY_FIXED:
+                    int length = (int) Math.min(buffer.remaining(), fixedBodyRemaining);
+                    if (fixedBody != null) {
+                        buffer.get(fixedBody, fixedBodyPosition, length);
+                        fixedBodyPosition += length;
+                    } else {
+                        copyToBody(buffer, length);
+                    }
+                    fixedBodyRemaining -= length;
+                    if (fixedBodyRemaining == 0) {
+                        state = State.DONE;
+                    }
+                    break;
+                case CHUNK_SIZE:
+                    if (readLine(buffer)) {
+                        parseChunkSize();
+                    }
+                    break;
+                case CHUNK_DATA:
+                    int chunkLength = (int) Math.min(buffer.remaining(), chunkRemaining);
+                    copyToBody(buffer, chunkLength);
+                    chunkRemaining -= chunkLength;
+                    if (chunkRemaining == 0) {
+                        state = State.CHUNK_DATA_END;
+                    }
+                    break;
+                case CHUNK_DATA_END:
+                    if (readLine(buffer)) {
+                        line.setLength(0);
+                        state = State.CHUNK_SIZE;
+                    }
+                    break;
+                case TRAILERS:
+                    if (readLine(buffer)) {
+                        if (line.length() == 0) {
+                            state = State.DONE;
+                        }
+                        line.setLength(0);
+                    }
+                    break;
+                case BODY_UNTIL_CLOSE:
+                    copyToBody(buffer, buffer.remaining());
+                    break;
+                default:
+                    throw new IllegalStateException("Unexpected parser state " + state);
+            }
+        }
+        if (state == State.DONE && buffer.hasRemaining()) {
+            // Pipelining isn't used, so the server sends something we didn't ask for.
+            keepAlive = false;
+        }
+        return state == State.DONE;
+    }
+
+    /**
+     * Called when the server closed the connection. Returns true when this marks the end of the response.
+     */
+    boolean endOfInput() {
+        if (state == State.BODY_UNTIL_CLOSE) {
+            state = State.DONE;
+            return true;
+        }
+        return state == State.DONE;
+    }
+
+    /**
+     * Are the status line and the headers received (and thus can a streaming response be handed to the caller).
+     */
+    boolean isHeadersComplete() {
+        return state.compareTo(State.HEADERS) > 0;
+    }
+
+    /**
+     * Did the {@link ResponseBodyStream} indicate during the last {@link #parse(ByteBuffer)} that it has enough bytes
+     * buffered. The flag is reset by this call.
+     */
+    boolean isPauseRequested() {
+        boolean result = pauseRequested;
+        pauseRequested = false;
+        return result;
+    }
+
+    /**
+     * Is any byte of the response received.
+     */
+    boolean isDataReceived() {
+        return dataReceived;
+    }
+
+    /**
+     * Can the connection be used for another request after this response.
+     */
+    boolean isKeepAlive() {
+        return keepAlive;
+    }
+
+    TransportResponse toResponse(MessageBodyWorkers messageBodyWorkers) {
+        if (bodyStream != null) {
+            return new TransportResponse(status, reasonPhrase, headers, bodyStream, messageBodyWorkers);
+        }
+        byte[] entity = fixedBody != null ? fixedBody : body != null ? body.toByteArray() : null;
+        return new TransportResponse(status, reasonPhrase, headers, entity, messageBodyWorkers);
+    }
+
+    private boolean readLine(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            char c = (char) (buffer.get() & 0xFF);
+            if (c == '\n') {
+                int last = line.length() - 1;
+                if (last >= 0 && line.charAt(last) == '\r') {
+                    line.setLength(last);
+                }
+                return true;
+            }
+            if (line.length() >= MAX_LINE_LENGTH) {
+                throw new IOException("Line in HTTP response exceeds " + MAX_LINE_LENGTH + " characters");
+            }
+            line.append(c);
+        }
+        return false;
+    }
+
+    private void parseStatusLine() throws IOException {
+        String statusLine = line.toString();
+        line.setLength(0);
+        if (statusLine.isEmpty()) {
+            // Tolerate empty lines before the status line
+            return;
+        }
+        int firstSpace = statusLine.indexOf(' ');
+        if (!statusLine.startsWith("HTTP/1.") || firstSpace < 0 || statusLine.length() < firstSpace + 4) {
+            throw new IOException("Invalid HTTP status line: " + statusLine);
+        }
+        http10 = statusLine.startsWith("HTTP/1.0");
+        try {
+            status = Integer.parseInt(statusLine.substring(firstSpace + 1, firstSpace + 4));
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid HTTP status line: " + statusLine);
+        }
+        reasonPhrase = statusLine.length() > firstSpace + 5 ? statusLine.substring(firstSpace + 5) : "";
+        headers = TransportResponse.newHeaders();
+        state = State.HEADERS;
+    }
+
+    private void parseHeaderLine() throws IOException {
+        if (line.length() == 0) {
+            endOfHeaders();
+            return;
+        }
+        String headerLine = line.toString();
+        line.setLength(0);
+        int colon = headerLine.indexOf(':');
+        if (colon <= 0) {
+            throw new IOException("Invalid HTTP header line: " + headerLine);
+        }
+        headers.add(headerLine.substring(0, colon).trim(), headerLine.substring(colon + 1).trim());
+    }
+
+    private void endOfHeaders() throws IOException {
+        if (status >= 100 && status < 200 && status != 101) {
+            // Interim response (like 100 Continue), the real response follows.
+            state = State.STATUS_LINE;
+            return;
+        }
+
+        String connection = headers.getFirst("Connection");
+        if (http10) {
+            keepAlive = connection != null && "keep-alive".equalsIgnoreCase(connection);
+        } else {
+            keepAlive = connection == null || !"close".equalsIgnoreCase(connection);
+        }
+
+        if (headRequest || status == 204 || status == 304 || status < 200) {
+            state = State.DONE;
+            return;
+        }
+        String transferEncoding = headers.getFirst("Transfer-Encoding");
+        if (transferEncoding != null && transferEncoding.toLowerCase(Locale.ENGLISH).contains("chunked")) {
+            body = bodyStream == null ? new ByteArrayOutputStream() : null;
+            state = State.CHUNK_SIZE;
+            return;
+        }
+        String contentLength = headers.getFirst(HttpHeaders.CONTENT_LENGTH);
+        if (contentLength != null) {
+            long length;
+            try {
+                length = Long.parseLong(contentLength.trim());
+            } catch (NumberFormatException e) {
+                throw new IOException("Invalid Content-Length header: " + contentLength);
+            }
+            if (length < 0 || (bodyStream == null && length > Integer.MAX_VALUE - 8)) {
+                throw new IOException("Unsupported Content-Length: " + contentLength);
+            }
+            if (bodyStream == null) {
+                fixedBody = new byte[(int) length];
+            }
+            fixedBodyRemaining = length;
+            state = length == 0 ? State.DONE : State.BODY_FIXED;
+            return;
+        }
+        body = bodyStream == null ? new ByteArrayOutputStream() : null;
+        keepAlive = false;
+        state = State.BODY_UNTIL_CLOSE;
+    }
+
+    private void parseChunkSize() throws IOException {
+        String sizeLine = line.toString();
+        line.setLength(0);
+        int extension = sizeLine.indexOf(';');
+        String size = (extension >= 0 ? sizeLine.substring(0, extension) : sizeLine).trim();
+        try {
+            chunkRemaining = Long.parseLong(size, 16);
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid chunk size: " + sizeLine);
+        }
+        if (chunkRemaining < 0) {
+            throw new IOException("Invalid chunk size: " + sizeLine);
+        }
+        state = chunkRemaining == 0 ? State.TRAILERS : State.CHUNK_DATA;
+    }
+
+    private void copyToBody(ByteBuffer buffer, int length) {
+        if (bodyStream != null) {
+            byte[] chunk = new byte[length];
+            buffer.get(chunk);
+            if (!bodyStream.offer(chunk)) {
+                pauseRequested = true;
+            }
+            return;
+        }
+        if (buffer.hasArray()) {
+            body.write(buffer.array(), buffer.arrayOffset() + buffer.position(), length);
+            buffer.position(buffer.position() + length);
+        } else {
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            body.write(bytes, 0, length);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.transport.nio;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Writes a request with a body read from an {@code InputStream}, using chunked transfer encoding. Reading the stream
+ * can block, so it is performed on the executor and not on the event loop.
+ */
+final class StreamRequestWriter extends RequestWriter {
+
+    private static final int CHUNK_SIZE = 16 * 1024;
+    private static final byte[] LAST_CHUNK = "0\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1);
+
+    private final ByteBuffer head;
+    private final InputStream stream;
+    private final Executor executor;
+    private final HttpConnection connection;
+
+    // Written by the executor thread while the writer is WAITING, the hand-off to the event loop makes them visible.
+    private ByteBuffer chunk;
+    private boolean ended;
+    private IOException failure;
+
+    StreamRequestWriter(ByteBuffer head, InputStream stream, Executor executor, HttpConnection connection) {
+        this.head = head;
+        this.stream = stream;
+        this.executor = executor;
+        this.connection = connection;
+    }
+
+    @Override
+    Progress write(SocketChannel channel) throws IOException {
+        if (head.hasRemaining()) {
+            channel.write(head);
+            if (head.hasRemaining()) {
+                return Progress.BLOCKED;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        if (chunk != null) {
+            channel.write(chunk);
+            if (chunk.hasRemaining()) {
+                return Progress.BLOCKED;
+            }
+            chunk = null;
+        }
+        if (ended) {
+            close();
+            return Progress.DONE;
+        }
+        try {
+            executor.execute(this::readChunk);
+        } catch (RejectedExecutionException e) {
+            throw new IOException("Unable to read the request body", e);
+        }
+        return Progress.WAITING;
+    }
+
+    private void readChunk() {
+        byte[] data = new byte[CHUNK_SIZE];
+        try {
+            int read;
+            do {
+                read = stream.read(data);
+            } while (read == 0);
+            if (read == -1) {
+                chunk = ByteBuffer.wrap(LAST_CHUNK);
+                ended = true;
+            } else {
+                byte[] size = (Integer.toHexString(read) + "\r\n").getBytes(StandardCharsets.ISO_8859_1);
+                chunk = ByteBuffer.allocate(size.length + read + 2);
+                chunk.put(size).put(data, 0, read).put((byte) '\r').put((byte) '\n');
+                chunk.flip();
+            }
+        } catch (IOException e) {
+            failure = e;
+        }
+        connection.resumeWriting(this);
+    }
+
+    @Override
+    boolean isStarted() {
+        return head.position() > 0;
+    }
+
+    @Override
+    void close() {
+        try {
+            stream.close();
+        } catch (IOException e) {
+            // The body is sent or the exchange failed, nothing we can do about it.
+        }
+    }
+}
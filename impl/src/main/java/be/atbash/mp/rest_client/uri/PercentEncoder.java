@@ -0,0 +1,114 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.uri;
+
+/**
+ * Percent encoding (RFC 3986) of the different URI components. Encoded values are appended to the supplied
+ * {@code StringBuilder} so that callers can reuse their buffer.
+ * <p>
+ * The rules are those of the {@code UriBuilder} of Jersey (used before): a path parameter value is encoded completely
+ * (also '%'), a query parameter keeps the already percent encoded sequences and encodes a space as '+'. Characters are
+ * encoded as UTF-8, a lone surrogate becomes '?' like {@code String.getBytes()} does.
+ */
+public final class PercentEncoder {
+
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    private static final String UNRESERVED = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789-._~";
+
+    // Characters allowed unencoded in the value of a path parameter. '/' and ';' (matrix parameters) are encoded.
+    private static final boolean[] PATH_SEGMENT = allowed(UNRESERVED + "!$&'()*+,=:@");
+
+    // Characters allowed unencoded in the name or value of a query parameter.
+    private static final boolean[] QUERY_PARAM = allowed(UNRESERVED);
+
+    // Characters allowed unencoded in a literal part of a template (reserved characters are kept as is).
+    private static final boolean[] LITERAL = allowed(UNRESERVED + ":/?#[]@!$&'()*+,;=");
+
+    private PercentEncoder() {
+    }
+
+    public static void encodePathSegment(CharSequence value, StringBuilder target) {
+        encode(value, PATH_SEGMENT, false, false, target);
+    }
+
+    public static void encodeQueryParameter(CharSequence value, StringBuilder target) {
+        encode(value, QUERY_PARAM, true, true, target);
+    }
+
+    /**
+     * Encodes the characters which are not allowed in a URI but keeps the reserved characters and the already percent
+     * encoded sequences.
+     */
+    public static String encodeLiteral(String value) {
+        StringBuilder result = new StringBuilder(value.length());
+        encode(value, LITERAL, true, false, result);
+        return result.toString();
+    }
+
+    private static void encode(CharSequence value, boolean[] allowed, boolean keepEncoded, boolean spaceAsPlus, StringBuilder target) {
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 128 && allowed[c]) {
+                target.append(c);
+            } else if (c == '%' && keepEncoded && isEncodedSequence(value, i)) {
+                target.append(c);
+            } else if (c == ' ' && spaceAsPlus) {
+                target.append('+');
+            } else if (c < 0x80) {
+                appendEscaped(c, target);
+            } else if (c < 0x800) {
+                appendEscaped(0xC0 | (c >> 6), target);
+                appendEscaped(0x80 | (c & 0x3F), target);
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                appendEscaped(0xF0 | (codePoint >> 18), target);
+                appendEscaped(0x80 | ((codePoint >> 12) & 0x3F), target);
+                appendEscaped(0x80 | ((codePoint >> 6) & 0x3F), target);
+                appendEscaped(0x80 | (codePoint & 0x3F), target);
+            } else if (Character.isSurrogate(c)) {
+                appendEscaped('?', target);
+            } else {
+                appendEscaped(0xE0 | (c >> 12), target);
+                appendEscaped(0x80 | ((c >> 6) & 0x3F), target);
+                appendEscaped(0x80 | (c & 0x3F), target);
+            }
+        }
+    }
+
+    private static boolean isEncodedSequence(CharSequence value, int index) {
+        return index + 2 < value.length() && isHexDigit(value.charAt(index + 1)) && isHexDigit(value.charAt(index + 2));
+    }
+
+    private static boolean isHexDigit(char c) {
+        return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    }
+
+    private static void appendEscaped(int b, StringBuilder target) {
+        target.append('%');
+        target.append(HEX_DIGITS[(b >> 4) & 0x0F]);
+        target.append(HEX_DIGITS[b & 0x0F]);
+    }
+
+    private static boolean[] allowed(String characters) {
+        boolean[] result = new boolean[128];
+        for (int i = 0; i < characters.length(); i++) {
+            result[characters.charAt(i)] = true;
+        }
+        return result;
+    }
+}
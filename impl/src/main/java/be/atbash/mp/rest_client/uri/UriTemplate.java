@@ -0,0 +1,195 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.uri;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Parsed version of a URI template (like the value of {@code @Path}) which supports the {@code {name}} and
+ * {@code {name: regex}} syntax. The literal parts are encoded when the template is parsed, each distinct variable
+ * gets a slot so that expanding the template only needs to encode the values.
+ */
+public final class UriTemplate {
+
+    private static final String URI_PARAM_NAME_REGEX = "\\w[\\w\\.-]*";
+    private static final String URI_PARAM_REGEX_REGEX = "[^{}][^{}]*";
+    private static final String URI_PARAM_REGEX = "\\{\\s*(" + URI_PARAM_NAME_REGEX + ")\\s*(:\\s*(" + URI_PARAM_REGEX_REGEX + "))?\\}";
+    private static final Pattern URI_PARAM_PATTERN = Pattern.compile(URI_PARAM_REGEX);
+
+    private static final char openCurlyReplacement = 6;
+    private static final char closeCurlyReplacement = 7;
+
+    // Buffers larger than this are not kept for reuse by the thread.
+    private static final int MAX_REUSED_BUFFER_SIZE = 8192;
+
+    private static final ThreadLocal<StringBuilder> BUFFER = new ThreadLocal<StringBuilder>() {
+        @Override
+        protected StringBuilder initialValue() {
+            return new StringBuilder(256);
+        }
+    };
+
+    private final String template;
+    private final String[] literals;  // One more literal than there are variable occurrences.
+    private final int[] slots;  // The slot of each variable occurrence.
+    private final List<String> variableNames;  // Distinct names, position is slot.
+    private final boolean containsQuery;
+
+    private UriTemplate(String template, String[] literals, int[] slots, List<String> variableNames) {
+        this.template = template;
+        this.literals = literals;
+        this.slots = slots;
+        this.variableNames = variableNames;
+        this.containsQuery = template.indexOf('?') != -1;
+    }
+
+    public static UriTemplate parse(String template) {
+        List<String> literals = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        List<String> variableNames = new ArrayList<>();
+
+        Matcher matcher = URI_PARAM_PATTERN.matcher(replaceEnclosedCurlyBraces(template));
+        int literalStart = 0;
+        while (matcher.find()) {
+            String param = matcher.group(1);
+            literals.add(PercentEncoder.encodeLiteral(template.substring(literalStart, matcher.start())));
+
+            int slot = variableNames.indexOf(param);
+            if (slot == -1) {
+                slot = variableNames.size();
+                variableNames.add(param);
+            }
+            slots.add(slot);
+
+            literalStart = matcher.end();
+        }
+        literals.add(PercentEncoder.encodeLiteral(template.substring(literalStart)));
+
+        int[] slotArray = new int[slots.size()];
+        for (int i = 0; i < slotArray.length; i++) {
+            slotArray[i] = slots.get(i);
+        }
+        return new UriTemplate(template, literals.toArray(new String[literals.size()]), slotArray, Collections.unmodifiableList(variableNames));
+    }
+
+    private static CharSequence replaceEnclosedCurlyBraces(String str) {
+
+        char[] chars = str.toCharArray();
+        int open = 0;
+        for (int i = 0; i < chars.length; i++) {
+            if (chars[i] == '{') {
+                if (open != 0) {
+                    chars[i] = openCurlyReplacement;
+                }
+                open++;
+            } else if (chars[i] == '}') {
+                open--;
+                if (open != 0) {
+                    chars[i] = closeCurlyReplacement;
+                }
+            }
+        }
+        return new String(chars);
+    }
+
+    /**
+     * The template preceded by the literal prefix (like the base URI), without parsing the template again.
+     */
+    public UriTemplate withPrefix(String prefix) {
+        String[] prefixedLiterals = literals.clone();
+        prefixedLiterals[0] = PercentEncoder.encodeLiteral(prefix) + literals[0];
+        return new UriTemplate(prefix + template, prefixedLiterals, slots, variableNames);
+    }
+
+    public String getTemplate() {
+        return template;
+    }
+
+    /**
+     * The distinct variable names in order of appearance. The position within the list is the slot of the variable.
+     */
+    public List<String> getVariableNames() {
+        return variableNames;
+    }
+
+    /**
+     * Returns the slot of the variable or -1 when the template doesn't have a variable with that name.
+     */
+    public int getSlot(String variableName) {
+        return variableNames.indexOf(variableName);
+    }
+
+    /**
+     * Expands the template with the values for the slots and appends the query parameters. Query parameters with a
+     * null value are omitted.
+     *
+     * @param slotValues  Value for each slot, see {@link #getVariableNames()}.
+     * @param queryNames  Names of the query parameters, can be null.
+     * @param queryValues Values of the query parameters (same length as queryNames), can be null.
+     * @return The expanded URI.
+     */
+    public String expand(Object[] slotValues, String[] queryNames, Object[] queryValues) {
+        StringBuilder buffer = BUFFER.get();
+        buffer.setLength(0);
+
+        expand(slotValues, buffer);
+        if (queryNames != null) {
+            appendQuery(queryNames, queryValues, buffer);
+        }
+
+        String result = buffer.toString();
+        if (buffer.capacity() > MAX_REUSED_BUFFER_SIZE) {
+            BUFFER.remove();
+        }
+        return result;
+    }
+
+    private void expand(Object[] slotValues, StringBuilder target) {
+        target.append(literals[0]);
+        for (int i = 0; i < slots.length; i++) {
+            Object value = slotValues[slots[i]];
+            if (value == null) {
+                throw new IllegalArgumentException(String.format("No value for path parameter '%s' of template %s", variableNames.get(slots[i]), template));
+            }
+            PercentEncoder.encodePathSegment(value.toString(), target);
+            target.append(literals[i + 1]);
+        }
+    }
+
+    private void appendQuery(String[] queryNames, Object[] queryValues, StringBuilder target) {
+        boolean first = !containsQuery;
+        for (int i = 0; i < queryNames.length; i++) {
+            Object value = queryValues[i];
+            if (value == null) {
+                continue;
+            }
+            target.append(first ? '?' : '&');
+            first = false;
+            PercentEncoder.encodeQueryParameter(queryNames[i], target);
+            target.append('=');
+            PercentEncoder.encodeQueryParameter(value.toString(), target);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return template;
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client;
+
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.Assert.*;
+
+public class ClassLoaderCacheTest {
+
+    public static class Discovered {
+    }
+
+    private ClassLoaderCache<Object> cache = new ClassLoaderCache<>(value -> Collections.<Class<?>>singletonList(value.getClass()));
+
+    @Test
+    public void discoveredOnce() {
+        AtomicInteger discoveries = new AtomicInteger();
+        ClassLoader classLoader = getClass().getClassLoader();
+
+        Function<ClassLoader, Object> discovery = cl -> {
+            discoveries.incrementAndGet();
+            return new Discovered();
+        };
+
+        Object value = cache.get(classLoader, discovery);
+        assertSame(value, cache.get(classLoader, discovery));
+        assertEquals(1, discoveries.get());
+
+        cache.remove(classLoader);
+        assertNotSame(value, cache.get(classLoader, cl -> new Discovered()));
+    }
+
+    @Test
+    public void nullNotKept() {
+        assertNull(cache.get(getClass().getClassLoader(), cl -> null));
+        assertEquals("discovered", cache.get(getClass().getClassLoader(), cl -> "discovered"));
+    }
+
+    @Test
+    public void valueOfClassLoaderKeptWhileClassLoaderReachable() throws Exception {
+        try (URLClassLoader application = newApplicationClassLoader()) {
+            Object value = discoverInstance(application);
+            System.gc();
+            assertSame(value, cache.get(application, cl -> {
+                throw new AssertionError("Discovered again");
+            }));
+        }
+    }
+
+    @Test
+    public void classLoaderNotRetained() throws Exception {
+        URLClassLoader application = newApplicationClassLoader();
+        discoverInstance(application);
+        application.close();
+        WeakReference<ClassLoader> reference = new WeakReference<>(application);
+        application = null;
+
+        for (int i = 0; i < 50 && reference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull("Class loader is retained by the cache", reference.get());
+    }
+
+    private Object discoverInstance(ClassLoader classLoader) {
+        Object value = cache.get(classLoader, cl -> {
+            try {
+                return cl.loadClass(Discovered.class.getName()).newInstance();
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertSame(classLoader, value.getClass().getClassLoader());
+        return value;
+    }
+
+    private static URLClassLoader newApplicationClassLoader() {
+        URL testClasses = ClassLoaderCacheTest.class.getProtectionDomain().getCodeSource().getLocation();
+        return new URLClassLoader(new URL[]{testClasses}, null);
+    }
+}
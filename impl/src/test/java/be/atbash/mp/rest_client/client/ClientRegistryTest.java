@@ -0,0 +1,61 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.client;
+
+import org.glassfish.jersey.client.JerseyClient;
+import org.junit.Test;
+
+import javax.ws.rs.client.ClientBuilder;
+
+import static org.junit.Assert.*;
+
+public class ClientRegistryTest {
+
+    private ClientRegistry registry = ClientRegistry.getInstance();
+
+    @Test
+    public void sharedClientClosedByLastOwner() {
+        ClientKey key = new ClientKey.Builder().build("http://localhost/shared");
+        Object owner1 = new Object();
+        Object owner2 = new Object();
+
+        JerseyClient client = (JerseyClient) registry.acquire(key, ClientBuilder.newBuilder());
+        registry.releaseWhenUnreachable(owner1, key);
+        assertSame(client, registry.acquire(key, ClientBuilder.newBuilder()));
+        registry.releaseWhenUnreachable(owner2, key);
+
+        registry.releaseOwner(owner1);
+        registry.releaseOwner(owner1);
+        assertFalse(client.isClosed());
+
+        registry.releaseOwner(owner2);
+        assertTrue(client.isClosed());
+    }
+
+    @Test
+    public void clientOfUnreachableOwnerClosedWithoutAcquire() throws InterruptedException {
+        ClientKey key = new ClientKey.Builder().build("http://localhost/unreachable");
+
+        JerseyClient client = (JerseyClient) registry.acquire(key, ClientBuilder.newBuilder());
+        registry.releaseWhenUnreachable(new Object(), key);
+
+        for (int i = 0; i < 100 && !client.isClosed(); i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        assertTrue("Client of unreachable owner isn't closed", client.isClosed());
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.metrics;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.*;
+
+public class RestClientMetricsTest {
+
+    public interface Service {
+        void call();
+    }
+
+    private RestClientMetrics restClientMetrics = RestClientMetrics.getInstance();
+
+    @Before
+    public void setUp() {
+        restClientMetrics.setEnabled(true);
+        restClientMetrics.setPhasesEnabled(false);
+    }
+
+    @After
+    public void tearDown() {
+        restClientMetrics.clear();
+        restClientMetrics.setEnabled(false);
+    }
+
+    @Test
+    public void metricsSharedForMethod() throws Exception {
+        Method method = Service.class.getMethod("call");
+
+        MethodMetrics metrics = restClientMetrics.forMethod(method);
+        assertSame(metrics, restClientMetrics.forMethod(method));
+        assertEquals(1, restClientMetrics.getAll().size());
+    }
+
+    @Test
+    public void clearOnlyRemovesMetricsOfClassLoader() throws Exception {
+        MethodMetrics kept = restClientMetrics.forMethod(Service.class.getMethod("call"));
+        URL testClasses = RestClientMetricsTest.class.getProtectionDomain().getCodeSource().getLocation();
+        try (URLClassLoader application = new URLClassLoader(new URL[]{testClasses}, null)) {
+            Class<?> service = application.loadClass(Service.class.getName());
+            assertNotSame(Service.class, service);
+            MethodMetrics removed = restClientMetrics.forMethod(service.getMethod("call"));
+            assertEquals(2, restClientMetrics.getAll().size());
+
+            restClientMetrics.clear(application);
+
+            assertEquals(1, restClientMetrics.getAll().size());
+            assertSame(kept, restClientMetrics.getAll().iterator().next());
+            assertNotSame(removed, restClientMetrics.forMethod(service.getMethod("call")));
+        }
+    }
+
+    @Test
+    public void removedListenerNotCalled() throws Exception {
+        List<MethodMetrics> published = new ArrayList<>();
+        Consumer<MethodMetrics> listener = published::add;
+        restClientMetrics.addListener(listener);
+        restClientMetrics.forMethod(Service.class.getMethod("call"));
+        restClientMetrics.removeListener(listener);
+        restClientMetrics.forMethod(Object.class.getMethod("toString"));
+
+        assertEquals(1, published.size());
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.stream;
+
+import be.atbash.mp.rest_client.transport.MessageBodyWorkers;
+import be.atbash.mp.rest_client.transport.TransportResponse;
+import org.junit.Test;
+
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.Response;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class TrackedResponseTest {
+
+    @Test
+    public void releasedWhenEntityIsRead() {
+        TrackedResponse response = open("content");
+        assertTrue(response.isTracked());
+
+        assertEquals("content", response.readEntity(String.class));
+        assertFalse(response.isTracked());
+    }
+
+    @Test
+    public void trackedWhileEntityIsStreamed() throws Exception {
+        TrackedResponse response = open("content");
+
+        try (InputStream stream = response.readEntity(InputStream.class)) {
+            assertTrue(response.isTracked());
+        }
+        response.close();
+        assertFalse(response.isTracked());
+    }
+
+    @Test
+    public void streamReadableAfterResponseIsCollected() throws Exception {
+        InputStream stream = open("content").readEntity(InputStream.class);
+        assertTrue(stream instanceof ResponseInputStream);
+
+        forceGc();
+        // A new tracker expunges the leaked ones, which would close the Response of the stream.
+        open("other").close();
+
+        assertEquals("content", read(stream));
+        stream.close();
+    }
+
+    @Test
+    public void readerReadableAfterResponseIsCollected() throws Exception {
+        Reader reader = open("content").readEntity(Reader.class);
+        assertTrue(reader instanceof ResponseReader);
+
+        forceGc();
+        open("other").close();
+
+        try (BufferedReader buffered = new BufferedReader(reader)) {
+            assertEquals("content", buffered.readLine());
+        }
+    }
+
+    @Test
+    public void notTrackedWithoutEntity() {
+        assertFalse(open("").isTracked());
+    }
+
+    private static String read(InputStream stream) throws IOException {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        byte[] buffer = new byte[2];
+        int read;
+        while ((read = stream.read(buffer)) != -1) {
+            content.write(buffer, 0, read);
+        }
+        return new String(content.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static void forceGc() throws InterruptedException {
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+    }
+
+    private static TrackedResponse open(String entity) {
+        MultivaluedHashMap<String, String> headers = new MultivaluedHashMap<>();
+        headers.putSingle("Content-Type", "text/plain");
+        headers.putSingle("Content-Length", String.valueOf(entity.length()));
+        // Like a connection, the entity can't be read anymore once the Response is closed.
+        InputStream entityStream = new ByteArrayInputStream(entity.getBytes(StandardCharsets.UTF_8)) {
+            private boolean closed;
+
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                if (closed) {
+                    throw new IllegalStateException("Entity stream is closed");
+                }
+                return super.read(b, off, len);
+            }
+
+            @Override
+            public void close() {
+                closed = true;
+            }
+        };
+        Response response = new TransportResponse(200, "OK", headers, entityStream, MessageBodyWorkers.defaults());
+        return (TrackedResponse) StreamingResponses.open(Response.class, response, "TrackedResponseTest");
+    }
+}
@@ -0,0 +1,281 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.transport.nio;
+
+import be.atbash.mp.rest_client.transport.MessageBodyWorkers;
+import be.atbash.mp.rest_client.transport.RequestBody;
+import be.atbash.mp.rest_client.transport.TransportRequest;
+import be.atbash.mp.rest_client.transport.TransportResponse;
+import be.atbash.mp.rest_client.transport.Transports;
+import org.junit.After;
+import org.junit.Test;
+
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.core.MultivaluedHashMap;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.*;
+
+public class NioTransportTest {
+
+    private NioTransport transport;
+    private TestServer server;
+
+    @After
+    public void tearDown() throws IOException {
+        if (transport != null) {
+            transport.close();
+        }
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    @Test
+    public void keepAlive() throws Exception {
+        server = new TestServer((socket, in, out, connection) -> {
+            String request;
+            while ((request = server.readRequest(in)) != null) {
+                TestServer.respond(out, request.substring(0, request.indexOf('\n')));
+            }
+        });
+        transport = newTransport(4);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals("GET /keep/" + i + " HTTP/1.1", send("GET", server.uri("/keep/" + i), null).readEntity(String.class));
+        }
+        assertEquals(1, server.getConnections());
+    }
+
+    @Test
+    public void requestBody() throws Exception {
+        server = new TestServer((socket, in, out, connection) -> {
+            String request = server.readRequest(in);
+            TestServer.respond(out, request.substring(request.indexOf('\n') + 1));
+        });
+        transport = newTransport(4);
+
+        assertEquals("payload", send("POST", server.uri("/body"), "payload").readEntity(String.class));
+    }
+
+    @Test
+    public void chunkedResponse() throws Exception {
+        server = new TestServer((socket, in, out, connection) -> {
+            server.readRequest(in);
+            out.write("HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1));
+            out.flush();
+            out.write("6\r\nchunk \r\n".getBytes(StandardCharsets.ISO_8859_1));
+            out.flush();
+            out.write("5\r\nparts\r\n0\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1));
+            out.flush();
+        });
+        transport = newTransport(4);
+
+        assertEquals("chunk parts", send("GET", server.uri("/chunked"), null).readEntity(String.class));
+    }
+
+    @Test
+    public void streamingResponse() throws Exception {
+        int chunks = 200;
+        byte[] chunk = new byte[8192];
+        server = new TestServer((socket, in, out, connection) -> {
+            server.readRequest(in);
+            out.write(("HTTP/1.1 200 OK\r\nContent-Length: " + chunks * chunk.length + "\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1));
+            for (int i = 0; i < chunks; i++) {
+                out.write(chunk);
+            }
+            out.flush();
+        });
+        transport = newTransport(4);
+
+        TransportRequest request = new TransportRequest("GET", server.uri("/stream"), new MultivaluedHashMap<>(), null, true,
+                MessageBodyWorkers.defaults());
+        TransportResponse response = transport.send(request).get(5, TimeUnit.SECONDS);
+        long total = 0;
+        try (InputStream stream = response.readEntity(InputStream.class)) {
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = stream.read(buffer)) != -1) {
+                total += read;
+            }
+        }
+        assertEquals(chunks * chunk.length, total);
+    }
+
+    @Test
+    public void requestsWaitForConnection() throws Exception {
+        server = new TestServer((socket, in, out, connection) -> {
+            String request;
+            while ((request = server.readRequest(in)) != null) {
+                sleep(100);
+                TestServer.respond(out, request.substring(0, request.indexOf('\n')));
+            }
+        });
+        transport = newTransport(1);
+
+        CompletableFuture<TransportResponse> first = transport.send(request("GET", server.uri("/first"), null));
+        CompletableFuture<TransportResponse> second = transport.send(request("GET", server.uri("/second"), null));
+        assertEquals("GET /first HTTP/1.1", first.get(5, TimeUnit.SECONDS).readEntity(String.class));
+        assertEquals("GET /second HTTP/1.1", second.get(5, TimeUnit.SECONDS).readEntity(String.class));
+        assertEquals(1, server.getConnections());
+    }
+
+    @Test
+    public void idempotentRequestRetriedAfterReset() throws Exception {
+        server = new TestServer(this::resetSecondRequest);
+        transport = newTransport(4);
+
+        assertEquals("ok", send("GET", server.uri("/first"), null).readEntity(String.class));
+        assertEquals("ok", send("GET", server.uri("/second"), null).readEntity(String.class));
+        assertEquals(2, server.getConnections());
+    }
+
+    @Test
+    public void sentPostNotRetriedAfterReset() throws Exception {
+        server = new TestServer(this::resetSecondRequest);
+        transport = newTransport(4);
+
+        assertEquals("ok", send("GET", server.uri("/first"), null).readEntity(String.class));
+        try {
+            send("POST", server.uri("/second"), "side effect");
+            fail("POST which reached the server must not be sent again");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof ProcessingException);
+        }
+        assertEquals(1, server.getConnections());
+        assertEquals(1, server.getRequests().stream().filter(r -> r.startsWith("POST")).count());
+    }
+
+    @Test
+    public void closeFailsRequestsInProgress() throws Exception {
+        CountDownLatch received = new CountDownLatch(1);
+        server = new TestServer((socket, in, out, connection) -> {
+            server.readRequest(in);
+            received.countDown();
+            // Never responds.
+            in.read();
+        });
+        transport = newTransport(1);
+
+        CompletableFuture<TransportResponse> inProgress = transport.send(request("GET", server.uri("/slow"), null));
+        CompletableFuture<TransportResponse> waiting = transport.send(request("GET", server.uri("/waiting"), null));
+        assertTrue(received.await(5, TimeUnit.SECONDS));
+        transport.close();
+
+        assertFailed(inProgress);
+        assertFailed(waiting);
+        assertFailed(transport.send(request("GET", server.uri("/closed"), null)));
+    }
+
+    @Test
+    public void closeWithReusedConnectionDoesNotRetry() throws Exception {
+        CountDownLatch received = new CountDownLatch(1);
+        server = new TestServer((socket, in, out, connection) -> {
+            server.readRequest(in);
+            TestServer.respond(out, "ok");
+            server.readRequest(in);
+            received.countDown();
+            in.read();
+        });
+        transport = newTransport(4);
+
+        assertEquals("ok", send("GET", server.uri("/first"), null).readEntity(String.class));
+        CompletableFuture<TransportResponse> second = transport.send(request("GET", server.uri("/second"), null));
+        assertTrue(received.await(5, TimeUnit.SECONDS));
+        transport.close();
+
+        assertFailed(second);
+        assertEquals(1, server.getConnections());
+    }
+
+    /**
+     * Serves the first request of the first connection and resets the connection after reading the second one, the
+     * other connections serve all requests.
+     */
+    @Test
+    public void sharedTransportClosedByLastUser() {
+        NioTransport first = (NioTransport) Transports.acquireTransport("nio");
+        NioTransport second = (NioTransport) Transports.acquireTransport("nio");
+        assertSame(first, second);
+
+        Transports.releaseTransport(first);
+        assertFalse(first.isClosed());
+        Transports.releaseTransport(second);
+        assertTrue(first.isClosed());
+
+        transport = (NioTransport) Transports.acquireTransport("nio");
+        assertNotSame(first, transport);
+        Transports.releaseTransport(transport);
+    }
+
+    private void resetSecondRequest(Socket socket, InputStream in, OutputStream out, int connection) throws IOException {
+        int count = 0;
+        while (server.readRequest(in) != null) {
+            count++;
+            if (connection == 0 && count == 2) {
+                TestServer.reset(socket);
+                return;
+            }
+            TestServer.respond(out, "ok");
+        }
+    }
+
+    private static void assertFailed(CompletableFuture<TransportResponse> future) throws InterruptedException {
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            fail("Request must fail when the transport is closed");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof ProcessingException);
+        } catch (TimeoutException e) {
+            fail("Request is never completed after the transport is closed");
+        }
+    }
+
+    private TransportResponse send(String method, URI uri, String body) throws Exception {
+        return transport.send(request(method, uri, body)).get(5, TimeUnit.SECONDS);
+    }
+
+    private static TransportRequest request(String method, URI uri, String body) {
+        MultivaluedHashMap<String, String> headers = new MultivaluedHashMap<>();
+        if (body != null) {
+            headers.putSingle("Content-Type", "text/plain");
+        }
+        return new TransportRequest(method, uri, headers, body == null ? null : RequestBody.of(body.getBytes(StandardCharsets.UTF_8)), false,
+                MessageBodyWorkers.defaults());
+    }
+
+    private static NioTransport newTransport(int maxConnections) {
+        return new NioTransport(new NioTransportConfiguration(1, maxConnections, 2000, 10000, 60000));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.transport.nio;
+
+import be.atbash.mp.rest_client.transport.MessageBodyWorkers;
+import be.atbash.mp.rest_client.transport.TransportResponse;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class ResponseParserTest {
+
+    @Test
+    public void fixedLength() throws IOException {
+        ResponseParser parser = new ResponseParser(false, null);
+        assertTrue(parser.parse(buffer("HTTP/1.1 200 OK\r\nContent-Type: text/plain\r\nContent-Length: 5\r\n\r\nhello")));
+        assertTrue(parser.isKeepAlive());
+
+        TransportResponse response = parser.toResponse(MessageBodyWorkers.defaults());
+        assertEquals(200, response.getStatus());
+        assertEquals("text/plain", response.getHeaderString("Content-Type"));
+        assertEquals("hello", response.readEntity(String.class));
+    }
+
+    @Test
+    public void splitOverBuffers() throws IOException {
+        ResponseParser parser = new ResponseParser(false, null);
+        byte[] bytes = "HTTP/1.1 201 Created\r\nContent-Length: 3\r\n\r\nabc".getBytes(StandardCharsets.ISO_8859_1);
+        for (int i = 0; i < bytes.length - 1; i++) {
+            assertFalse(parser.parse(ByteBuffer.wrap(bytes, i, 1)));
+        }
+        assertTrue(parser.parse(ByteBuffer.wrap(bytes, bytes.length - 1, 1)));
+        assertEquals(201, parser.toResponse(MessageBodyWorkers.defaults()).getStatus());
+    }
+
+    @Test
+    public void chunked() throws IOException {
+        ResponseParser parser = new ResponseParser(false, null);
+        assertFalse(parser.parse(buffer("HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n5\r\nhello\r\n")));
+        assertTrue(parser.parse(buffer("7;ext=1\r\n world!\r\n0\r\nTrailer: x\r\n\r\n")));
+
+        assertEquals("hello world!", parser.toResponse(MessageBodyWorkers.defaults()).readEntity(String.class));
+        assertTrue(parser.isKeepAlive());
+    }
+
+    @Test
+    public void connectionClose() throws IOException {
+        ResponseParser parser = new ResponseParser(false, null);
+        assertTrue(parser.parse(buffer("HTTP/1.1 200 OK\r\nConnection: close\r\nContent-Length: 0\r\n\r\n")));
+        assertFalse(parser.isKeepAlive());
+    }
+
+    @Test
+    public void bodyUntilClose() throws IOException {
+        ResponseParser parser = new ResponseParser(false, null);
+        assertFalse(parser.parse(buffer("HTTP/1.0 200 OK\r\n\r\nuntil the end")));
+        assertTrue(parser.endOfInput());
+        assertFalse(parser.isKeepAlive());
+        assertEquals("until the end", parser.toResponse(MessageBodyWorkers.defaults()).readEntity(String.class));
+    }
+
+    @Test
+    public void headRequestHasNoBody() throws IOException {
+        ResponseParser parser = new ResponseParser(true, null);
+        assertTrue(parser.parse(buffer("HTTP/1.1 200 OK\r\nContent-Length: 100\r\n\r\n")));
+        assertFalse(parser.toResponse(MessageBodyWorkers.defaults()).hasEntity());
+    }
+
+    @Test
+    public void incompleteResponseAtEndOfInput() throws IOException {
+        ResponseParser parser = new ResponseParser(false, null);
+        assertFalse(parser.isDataReceived());
+        parser.parse(buffer("HTTP/1.1 200 OK\r\nContent-Length: 10\r\n\r\nabc"));
+        assertTrue(parser.isDataReceived());
+        assertFalse(parser.endOfInput());
+    }
+
+    @Test(expected = IOException.class)
+    public void invalidStatusLine() throws IOException {
+        new ResponseParser(false, null).parse(buffer("garbage\r\n\r\n"));
+    }
+
+    private static ByteBuffer buffer(String data) {
+        return ByteBuffer.wrap(data.getBytes(StandardCharsets.ISO_8859_1));
+    }
+}
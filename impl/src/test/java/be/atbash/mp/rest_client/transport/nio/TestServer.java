@@ -0,0 +1,170 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.transport.nio;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process HTTP server on the loopback interface with full control over the bytes which are sent, each connection
+ * is handled by a {@link Handler} on its own thread.
+ */
+final class TestServer implements AutoCloseable {
+
+    interface Handler {
+
+        /**
+         * @param connection Index of the connection, starting at 0.
+         */
+        void handle(Socket socket, InputStream in, OutputStream out, int connection) throws IOException;
+    }
+
+    private final ServerSocket serverSocket;
+    private final Handler handler;
+    private final AtomicInteger connections = new AtomicInteger();
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+    private final List<Socket> sockets = new CopyOnWriteArrayList<>();
+
+    TestServer(Handler handler) throws IOException {
+        this.handler = handler;
+        serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        Thread thread = new Thread(this::accept, "test-server");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                sockets.add(socket);
+                int index = connections.getAndIncrement();
+                Thread thread = new Thread(() -> {
+                    try {
+                        handler.handle(socket, socket.getInputStream(), socket.getOutputStream(), index);
+                    } catch (IOException e) {
+                        // Closed by the client or the test.
+                    }
+                }, "test-server-" + index);
+                thread.setDaemon(true);
+                thread.start();
+            } catch (IOException e) {
+                // Server closed.
+            }
+        }
+    }
+
+    URI uri(String path) {
+        return URI.create("http://127.0.0.1:" + serverSocket.getLocalPort() + path);
+    }
+
+    int getConnections() {
+        return connections.get();
+    }
+
+    /**
+     * The request lines received, like {@code GET /path HTTP/1.1}.
+     */
+    List<String> getRequests() {
+        return requests;
+    }
+
+    /**
+     * Reads a request (headers and body with Content-Length or chunked), returns null when the client closed the
+     * connection.
+     */
+    String readRequest(InputStream in) throws IOException {
+        String requestLine = readLine(in);
+        if (requestLine == null) {
+            return null;
+        }
+        long contentLength = 0;
+        boolean chunked = false;
+        String line;
+        while ((line = readLine(in)) != null && !line.isEmpty()) {
+            String lower = line.toLowerCase(Locale.ENGLISH);
+            if (lower.startsWith("content-length:")) {
+                contentLength = Long.parseLong(line.substring(15).trim());
+            } else if (lower.startsWith("transfer-encoding:") && lower.contains("chunked")) {
+                chunked = true;
+            }
+        }
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        if (chunked) {
+            long size;
+            while ((size = Long.parseLong(readLine(in).trim(), 16)) > 0) {
+                for (long i = 0; i < size; i++) {
+                    body.write(in.read());
+                }
+                readLine(in);
+            }
+            readLine(in);
+        } else {
+            for (long i = 0; i < contentLength; i++) {
+                body.write(in.read());
+            }
+        }
+        requests.add(requestLine);
+        return requestLine + '\n' + new String(body.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder result = new StringBuilder();
+        int c;
+        while ((c = in.read()) != -1) {
+            if (c == '\n') {
+                int length = result.length();
+                return length > 0 && result.charAt(length - 1) == '\r' ? result.substring(0, length - 1) : result.toString();
+            }
+            result.append((char) c);
+        }
+        return result.length() == 0 ? null : result.toString();
+    }
+
+    static void respond(OutputStream out, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        out.write(("HTTP/1.1 200 OK\r\nContent-Type: text/plain\r\nContent-Length: " + bytes.length + "\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1));
+        out.write(bytes);
+        out.flush();
+    }
+
+    /**
+     * Closes the connection with a reset (RST) instead of a regular close (FIN).
+     */
+    static void reset(Socket socket) throws IOException {
+        socket.setSoLinger(true, 0);
+        socket.close();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        for (Socket socket : sockets) {
+            socket.close();
+        }
+    }
+}
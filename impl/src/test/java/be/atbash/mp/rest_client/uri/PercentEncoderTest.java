@@ -0,0 +1,80 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.uri;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * The expected values are those of the {@code UriBuilder} of Jersey.
+ */
+public class PercentEncoderTest {
+
+    @Test
+    public void pathSegment() {
+        assertEquals("a%2Fb%3Bc+d%2520e%20f", pathSegment("a/b;c+d%20e f"));
+        assertEquals("x=y&z%3F%2F:@!$'()*,", pathSegment("x=y&z?/:@!$'()*,"));
+        assertEquals("azAZ09-._~", pathSegment("azAZ09-._~"));
+    }
+
+    @Test
+    public void pathSegmentNonAscii() {
+        assertEquals("%C3%BC", pathSegment("\u00FC"));
+        assertEquals("%E2%82%AC", pathSegment("\u20AC"));
+        // Surrogate pair
+        assertEquals("%F0%9F%98%80", pathSegment("\uD83D\uDE00"));
+    }
+
+    @Test
+    public void pathSegmentLoneSurrogate() {
+        assertEquals("%3Fx", pathSegment("\uD83Dx"));
+        assertEquals("x%3F", pathSegment("x\uDE00"));
+        assertEquals("%3F", pathSegment("\uD83D"));
+    }
+
+    @Test
+    public void queryParameter() {
+        assertEquals("a%2Fb%3Bc%2Bd%20e+f", queryParameter("a/b;c+d%20e f"));
+        assertEquals("x%3Dy%26z%3F%2F%3A%40%21%24%27%28%29%2A%2C", queryParameter("x=y&z?/:@!$'()*,"));
+        assertEquals("%C3%BC%F0%9F%98%80", queryParameter("\u00FC\uD83D\uDE00"));
+    }
+
+    @Test
+    public void queryParameterKeepsEncodedSequences() {
+        assertEquals("%41%2f", queryParameter("%41%2f"));
+        assertEquals("100%25", queryParameter("100%"));
+        assertEquals("%25zz%252", queryParameter("%zz%2"));
+    }
+
+    @Test
+    public void literal() {
+        assertEquals("http://host:8080/a%20b/%41;x=1?q=%C3%BC#f", PercentEncoder.encodeLiteral("http://host:8080/a b/%41;x=1?q=\u00FC#f"));
+        assertEquals("%25", PercentEncoder.encodeLiteral("%"));
+    }
+
+    private static String pathSegment(String value) {
+        StringBuilder result = new StringBuilder();
+        PercentEncoder.encodePathSegment(value, result);
+        return result.toString();
+    }
+
+    private static String queryParameter(String value) {
+        StringBuilder result = new StringBuilder();
+        PercentEncoder.encodeQueryParameter(value, result);
+        return result.toString();
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.uri;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class UriTemplateTest {
+
+    @Test
+    public void variables() {
+        UriTemplate template = UriTemplate.parse("/users/{id}/items/{ item }");
+
+        assertEquals(Arrays.asList("id", "item"), template.getVariableNames());
+        assertEquals(1, template.getSlot("item"));
+        assertEquals(-1, template.getSlot("other"));
+        assertEquals("/users/42/items/a%2Fb", template.expand(new Object[]{42, "a/b"}, null, null));
+    }
+
+    @Test
+    public void regexVariables() {
+        UriTemplate template = UriTemplate.parse("/users/{id: \\d+}/{code : [A-Z]{3}}");
+
+        assertEquals(Arrays.asList("id", "code"), template.getVariableNames());
+        assertEquals("/users/42/ABC", template.expand(new Object[]{"42", "ABC"}, null, null));
+    }
+
+    @Test
+    public void repeatedVariable() {
+        UriTemplate template = UriTemplate.parse("/{a}/{b}/{a: .*}");
+
+        assertEquals(Arrays.asList("a", "b"), template.getVariableNames());
+        assertEquals("/x/y/x", template.expand(new Object[]{"x", "y"}, null, null));
+    }
+
+    @Test
+    public void literalsEncoded() {
+        UriTemplate template = UriTemplate.parse("/a b/{id}/%41");
+
+        assertEquals("/a%20b/1/%41", template.expand(new Object[]{1}, null, null));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void missingPathValue() {
+        UriTemplate.parse("/{id}").expand(new Object[]{null}, null, null);
+    }
+
+    @Test
+    public void withPrefix() {
+        UriTemplate template = UriTemplate.parse("/items/{id}").withPrefix("http://host/base path");
+
+        assertEquals("http://host/base path/items/{id}", template.getTemplate());
+        assertEquals(0, template.getSlot("id"));
+        assertEquals("http://host/base%20path/items/a%20b", template.expand(new Object[]{"a b"}, null, null));
+    }
+
+    @Test
+    public void withPrefixOfTemplateStartingWithVariable() {
+        UriTemplate template = UriTemplate.parse("{id}/items").withPrefix("http://host/");
+
+        assertEquals("http://host/1/items", template.expand(new Object[]{1}, null, null));
+    }
+
+    @Test
+    public void queryParameters() {
+        UriTemplate template = UriTemplate.parse("/search");
+
+        assertEquals("/search?q=a+b&page=2", template.expand(new Object[0], new String[]{"q", "page"}, new Object[]{"a b", 2}));
+        assertEquals("/search", template.expand(new Object[0], new String[]{"q"}, new Object[]{null}));
+        assertEquals("/search?page=2", template.expand(new Object[0], new String[]{"q", "page"}, new Object[]{null, 2}));
+    }
+
+    @Test
+    public void queryParametersAppendedToQueryOfTemplate() {
+        UriTemplate template = UriTemplate.parse("/search?type={type}");
+
+        assertEquals("/search?type=book&q=%C3%BC", template.expand(new Object[]{"book"}, new String[]{"q"}, new Object[]{"\u00FC"}));
+    }
+}
@@ -0,0 +1,292 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.processor;
+
+import javax.annotation.processing.FilerException;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.*;
+import javax.lang.model.type.*;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Writes the source of the implementation of a rest client interface. Each method passes its arguments to the
+ * {@code RestClientInvoker}, together with the {@code Method} which is looked up once when the class is initialized.
+ * Types are written fully qualified so that no imports are needed.
+ */
+class ImplementationWriter {
+
+    // Same as be.atbash.mp.rest_client.proxy.GeneratedRestClients.SUFFIX
+    static final String SUFFIX = "$$AtbashRestClient";
+
+    private static final String INVOKER_CLASS = "be.atbash.mp.rest_client.RestClientInvoker";
+    private static final String GENERATED_REST_CLIENTS_CLASS = "be.atbash.mp.rest_client.proxy.GeneratedRestClients";
+
+    private final ProcessingEnvironment processingEnv;
+    private final Types types;
+
+    ImplementationWriter(ProcessingEnvironment processingEnv) {
+        this.processingEnv = processingEnv;
+        this.types = processingEnv.getTypeUtils();
+    }
+
+    void write(TypeElement restClientInterface, List<ExecutableElement> methods) {
+        String packageName = processingEnv.getElementUtils().getPackageOf(restClientInterface).getQualifiedName().toString();
+        String binaryName = processingEnv.getElementUtils().getBinaryName(restClientInterface).toString();
+        String className = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1)) + SUFFIX;
+
+        try {
+            JavaFileObject sourceFile = processingEnv.getFiler().createSourceFile(binaryName + SUFFIX, restClientInterface);
+            try (Writer writer = sourceFile.openWriter()) {
+                writer.write(generateSource(restClientInterface, packageName, className, methods));
+            }
+        } catch (FilerException e) {
+            // Already generated in this compilation
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    String.format("Writing rest client implementation %s failed: %s", className, e.getMessage()), restClientInterface);
+        }
+    }
+
+    private String generateSource(TypeElement restClientInterface, String packageName, String className, List<ExecutableElement> methods) {
+        String interfaceName = restClientInterface.getQualifiedName().toString();
+
+        StringBuilder source = new StringBuilder();
+        source.append("// Generated by ").append(RestClientProcessor.class.getName()).append(", do not edit.\n");
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n");
+        }
+        source.append('\n');
+        source.append("@SuppressWarnings({\"unchecked\", \"rawtypes\"})\n");
+        source.append("public final class ").append(className).append(" implements ").append(interfaceName).append(" {\n\n");
+
+        source.append("    private static final java.lang.Object[] NO_ARGUMENTS = new java.lang.Object[0];\n\n");
+        source.append("    private static final java.lang.reflect.Method[] METHODS = {\n");
+        for (ExecutableElement method : methods) {
+            source.append("            ").append(GENERATED_REST_CLIENTS_CLASS).append(".method(").append(interfaceName).append(".class, \"")
+                    .append(method.getSimpleName()).append('"');
+            for (VariableElement parameter : method.getParameters()) {
+                source.append(", ").append(typeName(types.erasure(parameter.asType()))).append(".class");
+            }
+            source.append("),\n");
+        }
+        source.append("    };\n\n");
+
+        source.append("    private final ").append(INVOKER_CLASS).append(" invoker;\n\n");
+        source.append("    public ").append(className).append('(').append(INVOKER_CLASS).append(" invoker) {\n");
+        source.append("        this.invoker = invoker;\n");
+        source.append("    }\n");
+
+        for (int i = 0; i < methods.size(); i++) {
+            source.append('\n');
+            appendMethod(source, restClientInterface, methods.get(i), i);
+        }
+        source.append("}\n");
+        return source.toString();
+    }
+
+    private void appendMethod(StringBuilder source, TypeElement restClientInterface, ExecutableElement method, int index) {
+        // Types as seen from the interface, resolves the type arguments of generic super interfaces.
+        ExecutableType methodType = (ExecutableType) types.asMemberOf((DeclaredType) restClientInterface.asType(), method);
+
+        source.append("    @Override\n    public ");
+        appendTypeParameters(source, method);
+        source.append(typeName(methodType.getReturnType())).append(' ').append(method.getSimpleName()).append('(');
+        List<? extends TypeMirror> parameterTypes = methodType.getParameterTypes();
+        for (int i = 0; i < parameterTypes.size(); i++) {
+            if (i > 0) {
+                source.append(", ");
+            }
+            TypeMirror parameterType = parameterTypes.get(i);
+            if (method.isVarArgs() && i == parameterTypes.size() - 1) {
+                source.append(typeName(((ArrayType) parameterType).getComponentType())).append("...");
+            } else {
+                source.append(typeName(parameterType));
+            }
+            source.append(" arg").append(i);
+        }
+        source.append(')');
+        List<? extends TypeMirror> thrownTypes = methodType.getThrownTypes();
+        if (!thrownTypes.isEmpty()) {
+            source.append(" throws ").append(typeNames(thrownTypes));
+        }
+        source.append(" {\n");
+
+        StringBuilder call = new StringBuilder();
+        call.append("invoker.invoke(this, METHODS[").append(index).append("], ");
+        if (parameterTypes.isEmpty()) {
+            call.append("NO_ARGUMENTS");
+        } else {
+            call.append("new java.lang.Object[]{");
+            for (int i = 0; i < parameterTypes.size(); i++) {
+                call.append(i > 0 ? ", arg" : "arg").append(i);
+            }
+            call.append('}');
+        }
+        call.append(')');
+
+        TypeMirror returnType = methodType.getReturnType();
+        String statement;
+        if (returnType.getKind() == TypeKind.VOID) {
+            statement = call + ";";
+        } else if (returnType.getKind().isPrimitive()) {
+            statement = "return (" + types.boxedClass((PrimitiveType) returnType).getQualifiedName() + ") " + call + ";";
+        } else {
+            statement = "return (" + typeName(returnType) + ") " + call + ";";
+        }
+
+        List<TypeMirror> rethrownTypes = getRethrownTypes(thrownTypes);
+        if (rethrownTypes == null) {
+            // The method declares Throwable.
+            source.append("        ").append(statement).append('\n');
+        } else {
+            source.append("        try {\n");
+            source.append("            ").append(statement).append('\n');
+            source.append("        } catch (").append(typeNames(rethrownTypes).replace(", ", " | ")).append(" e) {\n");
+            source.append("            throw e;\n");
+            source.append("        } catch (java.lang.Throwable e) {\n");
+            source.append("            throw new java.lang.reflect.UndeclaredThrowableException(e);\n");
+            source.append("        }\n");
+        }
+        source.append("    }\n");
+    }
+
+    private void appendTypeParameters(StringBuilder source, ExecutableElement method) {
+        if (method.getTypeParameters().isEmpty()) {
+            return;
+        }
+        source.append('<');
+        for (Iterator<? extends TypeParameterElement> iterator = method.getTypeParameters().iterator(); iterator.hasNext(); ) {
+            TypeParameterElement typeParameter = iterator.next();
+            source.append(typeParameter.getSimpleName());
+            List<TypeMirror> bounds = new ArrayList<>();
+            for (TypeMirror bound : typeParameter.getBounds()) {
+                if (!isObject(bound)) {
+                    bounds.add(bound);
+                }
+            }
+            if (!bounds.isEmpty()) {
+                source.append(" extends ").append(typeNames(bounds).replace(", ", " & "));
+            }
+            if (iterator.hasNext()) {
+                source.append(", ");
+            }
+        }
+        source.append("> ");
+    }
+
+    /**
+     * The exceptions which are thrown as is: unchecked and declared ones, without those which are a subtype of another
+     * one as they can't be combined in a multi-catch. Null when {@code Throwable} is declared.
+     */
+    private List<TypeMirror> getRethrownTypes(List<? extends TypeMirror> thrownTypes) {
+        List<TypeMirror> candidates = new ArrayList<>();
+        candidates.add(processingEnv.getElementUtils().getTypeElement(RuntimeException.class.getName()).asType());
+        candidates.add(processingEnv.getElementUtils().getTypeElement(Error.class.getName()).asType());
+        candidates.addAll(thrownTypes);
+
+        List<TypeMirror> result = new ArrayList<>();
+        for (TypeMirror candidate : candidates) {
+            if (((TypeElement) types.asElement(candidate)).getQualifiedName().contentEquals(Throwable.class.getName())) {
+                return null;
+            }
+            if (!isSubtypeOfOther(candidate, candidates) && !containsSameType(result, candidate)) {
+                result.add(candidate);
+            }
+        }
+        return result;
+    }
+
+    private boolean isSubtypeOfOther(TypeMirror type, List<TypeMirror> others) {
+        for (TypeMirror other : others) {
+            if (!types.isSameType(type, other) && types.isSubtype(type, other)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean containsSameType(List<TypeMirror> typeMirrors, TypeMirror type) {
+        for (TypeMirror typeMirror : typeMirrors) {
+            if (types.isSameType(typeMirror, type)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isObject(TypeMirror type) {
+        return type.getKind() == TypeKind.DECLARED
+                && ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().contentEquals(Object.class.getName());
+    }
+
+    private String typeNames(List<? extends TypeMirror> typeMirrors) {
+        StringBuilder result = new StringBuilder();
+        for (TypeMirror typeMirror : typeMirrors) {
+            if (result.length() > 0) {
+                result.append(", ");
+            }
+            result.append(typeName(typeMirror));
+        }
+        return result.toString();
+    }
+
+    /**
+     * The type as it is written in source, without type annotations (their {@code toString()} isn't valid source).
+     */
+    private String typeName(TypeMirror type) {
+        switch (type.getKind()) {
+            case BOOLEAN:
+            case BYTE:
+            case SHORT:
+            case INT:
+            case LONG:
+            case CHAR:
+            case FLOAT:
+            case DOUBLE:
+            case VOID:
+                return type.getKind().name().toLowerCase();
+            case ARRAY:
+                return typeName(((ArrayType) type).getComponentType()) + "[]";
+            case DECLARED:
+                DeclaredType declaredType = (DeclaredType) type;
+                String name = ((TypeElement) declaredType.asElement()).getQualifiedName().toString();
+                if (declaredType.getTypeArguments().isEmpty()) {
+                    return name;
+                }
+                return name + '<' + typeNames(declaredType.getTypeArguments()) + '>';
+            case TYPEVAR:
+                return ((TypeVariable) type).asElement().getSimpleName().toString();
+            case WILDCARD:
+                WildcardType wildcardType = (WildcardType) type;
+                if (wildcardType.getExtendsBound() != null) {
+                    return "? extends " + typeName(wildcardType.getExtendsBound());
+                }
+                if (wildcardType.getSuperBound() != null) {
+                    return "? super " + typeName(wildcardType.getSuperBound());
+                }
+                return "?";
+            default:
+                return type.toString();
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.processor;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.*;
+import javax.tools.Diagnostic;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Verifies the rest client interface with the same rules as
+ * {@code be.atbash.mp.rest_client.InterfaceDefinition.determineProblem()} at runtime, but reports the violations as
+ * compilation errors on the offending method. {@code InterfaceVerifierTest} checks that both reject the same
+ * interfaces, a rule changed in one must be changed in the other.
+ */
+class InterfaceVerifier {
+
+    private static final String HTTP_METHOD = "javax.ws.rs.HttpMethod";
+    private static final String PATH = "javax.ws.rs.Path";
+    private static final String PATH_PARAM = "javax.ws.rs.PathParam";
+
+    // Same syntax as be.atbash.mp.rest_client.uri.UriTemplate
+    private static final String URI_PARAM_NAME_REGEX = "\\w[\\w\\.-]*";
+    private static final String URI_PARAM_REGEX_REGEX = "[^{}][^{}]*";
+    private static final String URI_PARAM_REGEX = "\\{\\s*(" + URI_PARAM_NAME_REGEX + ")\\s*(:\\s*(" + URI_PARAM_REGEX_REGEX + "))?\\}";
+    private static final Pattern URI_PARAM_PATTERN = Pattern.compile(URI_PARAM_REGEX);
+
+    private static final char openCurlyReplacement = 6;
+    private static final char closeCurlyReplacement = 7;
+
+    private final ProcessingEnvironment processingEnv;
+
+    InterfaceVerifier(ProcessingEnvironment processingEnv) {
+        this.processingEnv = processingEnv;
+    }
+
+    /**
+     * @return false when errors are reported.
+     */
+    boolean verify(TypeElement restClientInterface, Iterable<ExecutableElement> methods) {
+        boolean valid = true;
+
+        // multiple verbs
+        for (ExecutableElement method : methods) {
+            int httpMethods = 0;
+            for (AnnotationMirror annotation : method.getAnnotationMirrors()) {
+                if (getAnnotation(annotation.getAnnotationType().asElement(), HTTP_METHOD) != null) {
+                    httpMethods++;
+                }
+            }
+            if (httpMethods > 1) {
+                error(String.format("Ambiguous @Httpmethod defintion on type %s", restClientInterface.getQualifiedName()), method);
+                valid = false;
+            }
+        }
+
+        // invalid parameter
+        Set<String> classLevelVariables = getVariableNames(getStringValue(restClientInterface, PATH));
+
+        for (ExecutableElement method : methods) {
+            String methodPath = getStringValue(method, PATH);
+            if (methodPath == null) {
+                continue;
+            }
+
+            Set<String> allVariables = new HashSet<>(classLevelVariables);
+            allVariables.addAll(getVariableNames(methodPath));
+
+            Set<String> parameterNames = new HashSet<>();
+            for (VariableElement parameter : method.getParameters()) {
+                String name = getStringValue(parameter, PATH_PARAM);
+                if (name != null) {
+                    parameterNames.add(name);
+                }
+            }
+
+            if (allVariables.size() != parameterNames.size()) {
+                error(String.format("Parameters and variables don't match on %s::%s", restClientInterface.getQualifiedName(), method.getSimpleName()), method);
+                valid = false;
+                continue;
+            }
+
+            parameterNames.removeAll(allVariables);
+            if (!parameterNames.isEmpty()) {
+                error(String.format("Parameter names don't match variable names on %s::%s", restClientInterface.getQualifiedName(), method.getSimpleName()), method);
+                valid = false;
+            }
+        }
+        return valid;
+    }
+
+    private void error(String message, Element element) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    private static AnnotationMirror getAnnotation(Element element, String annotationName) {
+        for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+            if (((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotationName)) {
+                return annotation;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The {@code value} member of the annotation on the element, null when the element isn't annotated.
+     */
+    private static String getStringValue(Element element, String annotationName) {
+        AnnotationMirror annotation = getAnnotation(element, annotationName);
+        if (annotation == null) {
+            return null;
+        }
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : annotation.getElementValues().entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals("value")) {
+                return String.valueOf(entry.getValue().getValue());
+            }
+        }
+        return "";
+    }
+
+    private static Set<String> getVariableNames(String template) {
+        Set<String> result = new HashSet<>();
+        if (template != null) {
+            Matcher matcher = URI_PARAM_PATTERN.matcher(replaceEnclosedCurlyBraces(template));
+            while (matcher.find()) {
+                result.add(matcher.group(1));
+            }
+        }
+        return result;
+    }
+
+    private static CharSequence replaceEnclosedCurlyBraces(String str) {
+        char[] chars = str.toCharArray();
+        int open = 0;
+        for (int i = 0; i < chars.length; i++) {
+            if (chars[i] == '{') {
+                if (open != 0) {
+                    chars[i] = openCurlyReplacement;
+                }
+                open++;
+            } else if (chars[i] == '}') {
+                open--;
+                if (open != 0) {
+                    chars[i] = closeCurlyReplacement;
+                }
+            }
+        }
+        return new String(chars);
+    }
+}
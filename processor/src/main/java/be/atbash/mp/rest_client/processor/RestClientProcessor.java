@@ -0,0 +1,145 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Generates, at compile time, an implementation for each interface annotated with {@code @RegisterRestClient}. The
+ * interface is verified with the same rules as the {@code RestClientBuilder} applies at runtime and violations are
+ * reported as compilation errors. The generated class calls the {@code RestClientInvoker} directly, so at runtime the
+ * builder doesn't need to verify the interface nor generate a proxy class.
+ * <p>
+ * Add the artifact {@code atbash-rest-client-processor} as {@code provided} dependency to activate it. Interfaces which
+ * can't be implemented by a generated class (generic or private interfaces, methods throwing a type variable) get a
+ * warning and keep using the runtime proxy.
+ */
+@SupportedAnnotationTypes(RestClientProcessor.REGISTER_REST_CLIENT)
+public class RestClientProcessor extends AbstractProcessor {
+
+    static final String REGISTER_REST_CLIENT = "org.eclipse.microprofile.rest.client.inject.RegisterRestClient";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() != ElementKind.INTERFACE) {
+                    processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "@RegisterRestClient is only allowed on an interface", element);
+                    continue;
+                }
+                processInterface((TypeElement) element);
+            }
+        }
+        // Other processors can also handle the annotation.
+        return false;
+    }
+
+    private void processInterface(TypeElement restClientInterface) {
+        List<ExecutableElement> methods = getMethods(restClientInterface);
+        if (!new InterfaceVerifier(processingEnv).verify(restClientInterface, methods)) {
+            return;
+        }
+
+        String unsupported = findUnsupportedFeature(restClientInterface, methods);
+        if (unsupported != null) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                    String.format("No rest client implementation generated, %s. The proxy is created at runtime.", unsupported), restClientInterface);
+            return;
+        }
+
+        new ImplementationWriter(processingEnv).write(restClientInterface, getAbstractMethods(methods));
+    }
+
+    /**
+     * All methods of the interface, including the inherited ones but without those of {@code Object}.
+     */
+    private List<ExecutableElement> getMethods(TypeElement restClientInterface) {
+        List<ExecutableElement> result = new ArrayList<>();
+        for (ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(restClientInterface))) {
+            if (method.getEnclosingElement().getKind() != ElementKind.INTERFACE || method.getModifiers().contains(Modifier.STATIC)) {
+                continue;
+            }
+            if (!isOverridden(method, result, restClientInterface)) {
+                result.add(method);
+            }
+        }
+        return result;
+    }
+
+    private boolean isOverridden(ExecutableElement method, List<ExecutableElement> methods, TypeElement restClientInterface) {
+        for (int i = 0; i < methods.size(); i++) {
+            ExecutableElement other = methods.get(i);
+            if (processingEnv.getElementUtils().overrides(other, method, restClientInterface)) {
+                return true;
+            }
+            if (processingEnv.getElementUtils().overrides(method, other, restClientInterface)) {
+                methods.remove(i);
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private static List<ExecutableElement> getAbstractMethods(List<ExecutableElement> methods) {
+        List<ExecutableElement> result = new ArrayList<>();
+        for (ExecutableElement method : methods) {
+            if (method.getModifiers().contains(Modifier.ABSTRACT)) {
+                result.add(method);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Description of the feature which prevents generating the implementation, null when supported.
+     */
+    private static String findUnsupportedFeature(TypeElement restClientInterface, List<ExecutableElement> methods) {
+        if (!restClientInterface.getTypeParameters().isEmpty()) {
+            return "the interface has type parameters";
+        }
+        Element element = restClientInterface;
+        while (element instanceof TypeElement) {
+            if (element.getModifiers().contains(Modifier.PRIVATE)) {
+                return "the interface isn't accessible";
+            }
+            element = element.getEnclosingElement();
+        }
+        for (ExecutableElement method : methods) {
+            for (TypeMirror thrownType : method.getThrownTypes()) {
+                if (thrownType.getKind() == TypeKind.TYPEVAR) {
+                    return String.format("method %s throws a type variable", method.getSimpleName());
+                }
+            }
+        }
+        return null;
+    }
+}
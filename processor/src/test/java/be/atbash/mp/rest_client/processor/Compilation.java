@@ -0,0 +1,120 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.processor;
+
+import javax.tools.*;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Compiles sample sources, with or without the {@link RestClientProcessor}, into a temporary directory.
+ */
+final class Compilation {
+
+    private final Path outputDirectory;
+    private final List<Diagnostic<? extends JavaFileObject>> diagnostics;
+    private final boolean success;
+
+    private Compilation(Path outputDirectory, List<Diagnostic<? extends JavaFileObject>> diagnostics, boolean success) {
+        this.outputDirectory = outputDirectory;
+        this.diagnostics = diagnostics;
+        this.success = success;
+    }
+
+    /**
+     * @param sources Pairs of the fully qualified class name and its source.
+     */
+    static Compilation compile(boolean withProcessor, String... sources) throws IOException {
+        Path outputDirectory = Files.createTempDirectory("processor-test");
+        List<JavaFileObject> compilationUnits = new ArrayList<>();
+        for (int i = 0; i < sources.length; i += 2) {
+            compilationUnits.add(new Source(sources[i], sources[i + 1]));
+        }
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        List<String> options = new ArrayList<>(Arrays.asList("-d", outputDirectory.toString(), "-s", outputDirectory.toString(),
+                "-classpath", System.getProperty("java.class.path")));
+        if (!withProcessor) {
+            options.add("-proc:none");
+        }
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, Locale.ENGLISH, StandardCharsets.UTF_8)) {
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics, options, null, compilationUnits);
+            if (withProcessor) {
+                task.setProcessors(Collections.singletonList(new RestClientProcessor()));
+            }
+            boolean success = task.call();
+            return new Compilation(outputDirectory, diagnostics.getDiagnostics(), success);
+        }
+    }
+
+    boolean isSuccess() {
+        return success;
+    }
+
+    List<String> getMessages(Diagnostic.Kind kind) {
+        List<String> result = new ArrayList<>();
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics) {
+            if (diagnostic.getKind() == kind) {
+                result.add(diagnostic.getMessage(Locale.ENGLISH));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The source generated for the class, null when it isn't generated.
+     */
+    String getGeneratedSource(String className) throws IOException {
+        Path file = outputDirectory.resolve(className.replace('.', File.separatorChar) + ".java");
+        return Files.exists(file) ? new String(Files.readAllBytes(file), StandardCharsets.UTF_8) : null;
+    }
+
+    ClassLoader getClassLoader() throws IOException {
+        return new URLClassLoader(new URL[]{outputDirectory.toUri().toURL()}, Compilation.class.getClassLoader());
+    }
+
+    @Override
+    public String toString() {
+        return diagnostics.toString();
+    }
+
+    private static final class Source extends SimpleJavaFileObject {
+
+        private final String code;
+
+        Source(String className, String code) {
+            super(URI.create("string:///" + className.replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+            this.code = code;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return code;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.processor;
+
+import be.atbash.mp.rest_client.InterfaceDefinition;
+import org.eclipse.microprofile.rest.client.RestClientDefinitionException;
+import org.junit.Test;
+
+import javax.tools.Diagnostic;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Each sample is also verified at runtime by {@code InterfaceDefinition}, so that both copies of the rules keep
+ * accepting and rejecting the same interfaces.
+ */
+public class InterfaceVerifierTest {
+
+    @Test
+    public void multipleHttpMethods() throws Exception {
+        assertRejected("Ambiguous @Httpmethod defintion on type sample.Api",
+                "    @GET @POST String both();\n");
+    }
+
+    @Test
+    public void missingPathParameter() throws Exception {
+        assertRejected("Parameters and variables don't match on sample.Api::get",
+                "    @GET @Path(\"/{id}\") String get();\n");
+    }
+
+    @Test
+    public void pathParameterNameNotInTemplate() throws Exception {
+        assertRejected("Parameter names don't match variable names on sample.Api::get",
+                "    @GET @Path(\"/{id}\") String get(@PathParam(\"key\") String key);\n");
+    }
+
+    @Test
+    public void classLevelVariable() throws Exception {
+        assertAccepted("@Path(\"/{tenant}\")",
+                "    @GET @Path(\"/{id}\") String get(@PathParam(\"tenant\") String tenant, @PathParam(\"id\") String id);\n");
+        assertRejected("@Path(\"/{tenant}\")", "Parameters and variables don't match on sample.Api::get",
+                "    @GET @Path(\"/{id}\") String get(@PathParam(\"id\") String id);\n");
+    }
+
+    @Test
+    public void regexVariables() throws Exception {
+        assertAccepted("",
+                "    @GET @Path(\"/{id: \\\\d{3}}/{name : [a-z]+}/{id}\") String get(@PathParam(\"id\") String id, @PathParam(\"name\") String name);\n");
+    }
+
+    @Test
+    public void onlyOnInterface() throws Exception {
+        Compilation compilation = Compilation.compile(true, "sample.Api", "package sample;\n" +
+                "@org.eclipse.microprofile.rest.client.inject.RegisterRestClient\n" +
+                "public class Api {\n" +
+                "}\n");
+
+        assertFalse(compilation.isSuccess());
+        assertEquals("@RegisterRestClient is only allowed on an interface", compilation.getMessages(Diagnostic.Kind.ERROR).get(0));
+    }
+
+    private static void assertRejected(String message, String methods) throws Exception {
+        assertRejected("", message, methods);
+    }
+
+    private static void assertRejected(String classAnnotation, String message, String methods) throws Exception {
+        String source = source(classAnnotation, methods);
+        Compilation compilation = Compilation.compile(true, "sample.Api", source);
+        assertFalse(compilation.isSuccess());
+        List<String> errors = compilation.getMessages(Diagnostic.Kind.ERROR);
+        assertEquals(1, errors.size());
+        assertEquals(message, errors.get(0));
+        assertNull(compilation.getGeneratedSource("sample.Api$$AtbashRestClient"));
+
+        try {
+            InterfaceDefinition.of(compileWithoutProcessor(source)).verify();
+            fail("Interface rejected at compile time must be rejected at runtime");
+        } catch (RestClientDefinitionException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith(message.substring(0, message.indexOf(" sample.Api"))));
+        }
+    }
+
+    private static void assertAccepted(String classAnnotation, String methods) throws Exception {
+        String source = source(classAnnotation, methods);
+        Compilation compilation = Compilation.compile(true, "sample.Api", source);
+        assertTrue(compilation.toString(), compilation.isSuccess());
+        assertNotNull(compilation.getGeneratedSource("sample.Api$$AtbashRestClient"));
+
+        InterfaceDefinition.of(compileWithoutProcessor(source)).verify();
+    }
+
+    private static Class<?> compileWithoutProcessor(String source) throws Exception {
+        Compilation compilation = Compilation.compile(false, "sample.Api", source);
+        assertTrue(compilation.toString(), compilation.isSuccess());
+        return compilation.getClassLoader().loadClass("sample.Api");
+    }
+
+    private static String source(String classAnnotation, String methods) {
+        return "package sample;\n" +
+                "import javax.ws.rs.*;\n" +
+                "@org.eclipse.microprofile.rest.client.inject.RegisterRestClient\n" +
+                classAnnotation + "\n" +
+                "public interface Api {\n" +
+                methods +
+                "}\n";
+    }
+}
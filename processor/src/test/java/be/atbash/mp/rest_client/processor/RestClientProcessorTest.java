@@ -0,0 +1,205 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.processor;
+
+import be.atbash.mp.rest_client.LocalProviderInfo;
+import be.atbash.mp.rest_client.RestClientInvoker;
+import org.junit.Test;
+
+import javax.tools.Diagnostic;
+import javax.ws.rs.client.Client;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class RestClientProcessorTest {
+
+    private static final String ITEMS = "package sample;\n" +
+            "import javax.ws.rs.*;\n" +
+            "import java.util.*;\n" +
+            "@org.eclipse.microprofile.rest.client.inject.RegisterRestClient\n" +
+            "@Path(\"/items\")\n" +
+            "public interface Items {\n" +
+            "    @GET List<Map<String, ? extends Number>> all();\n" +
+            "    @GET @Path(\"/{id}\") <T extends Number & Comparable<T>> T typed(@PathParam(\"id\") T id, @QueryParam(\"type\") Class<T> type);\n" +
+            "    @GET String join(@QueryParam(\"sep\") String separator, @QueryParam(\"v\") String... values);\n" +
+            "    @GET int count();\n" +
+            "    @DELETE void remove();\n" +
+            "    @GET String reduced() throws java.io.IOException, java.io.FileNotFoundException, Exception;\n" +
+            "    @GET String checked() throws java.io.IOException;\n" +
+            "    @GET String any() throws Throwable;\n" +
+            "}\n";
+
+    private static final String CRUD = "package sample;\n" +
+            "import javax.ws.rs.*;\n" +
+            "public interface Crud<T, ID> {\n" +
+            "    @GET @Path(\"/{id}\") T find(@PathParam(\"id\") ID id);\n" +
+            "    @POST void save(T entity);\n" +
+            "    @GET java.util.List<T> all();\n" +
+            "}\n";
+
+    private static final String USERS = "package sample;\n" +
+            "@org.eclipse.microprofile.rest.client.inject.RegisterRestClient\n" +
+            "public interface Users extends Crud<String, Long> {\n" +
+            "}\n";
+
+    private final RecordingInvoker invoker = new RecordingInvoker();
+
+    @Test
+    public void genericsVarargsAndTypeParameters() throws Exception {
+        Compilation compilation = Compilation.compile(true, "sample.Items", ITEMS);
+        assertTrue(compilation.toString(), compilation.isSuccess());
+
+        String source = compilation.getGeneratedSource("sample.Items$$AtbashRestClient");
+        assertTrue(source, source.contains("public java.util.List<java.util.Map<java.lang.String, ? extends java.lang.Number>> all()"));
+        assertTrue(source, source.contains("public <T extends java.lang.Number & java.lang.Comparable<T>> T typed(T arg0, java.lang.Class<T> arg1)"));
+        assertTrue(source, source.contains("public java.lang.String join(java.lang.String arg0, java.lang.String... arg1)"));
+
+        Class<?> items = compilation.getClassLoader().loadClass("sample.Items");
+        Object client = newInstance(items);
+
+        invoker.result = "a,b";
+        Method join = items.getMethod("join", String.class, String[].class);
+        assertEquals("a,b", join.invoke(client, ",", new String[]{"a", "b"}));
+        assertEquals(join, invoker.method);
+        assertEquals(",", invoker.args[0]);
+        assertArrayEquals(new String[]{"a", "b"}, (String[]) invoker.args[1]);
+
+        invoker.result = 3;
+        assertEquals(3, items.getMethod("count").invoke(client));
+        assertEquals(0, invoker.args.length);
+
+        invoker.result = 42L;
+        assertEquals(42L, items.getMethod("typed", Number.class, Class.class).invoke(client, 42L, Long.class));
+
+        invoker.result = null;
+        items.getMethod("remove").invoke(client);
+        assertEquals(items.getMethod("remove"), invoker.method);
+    }
+
+    @Test
+    public void thrownTypesReducedForMultiCatch() throws Exception {
+        Compilation compilation = Compilation.compile(true, "sample.Items", ITEMS);
+        assertTrue(compilation.toString(), compilation.isSuccess());
+
+        String source = compilation.getGeneratedSource("sample.Items$$AtbashRestClient");
+        // FileNotFoundException, IOException and RuntimeException are subtypes of Exception.
+        assertTrue(source, source.contains("catch (java.lang.Error | java.lang.Exception e)"));
+        assertTrue(source, source.contains("catch (java.lang.RuntimeException | java.lang.Error | java.io.IOException e)"));
+
+        Class<?> items = compilation.getClassLoader().loadClass("sample.Items");
+        Object client = newInstance(items);
+
+        invoker.exception = new IOException("declared");
+        assertSame(invoker.exception, invokeFailing(items.getMethod("checked"), client));
+
+        invoker.exception = new Exception("undeclared");
+        Throwable undeclared = invokeFailing(items.getMethod("checked"), client);
+        assertTrue(undeclared instanceof UndeclaredThrowableException);
+        assertSame(invoker.exception, undeclared.getCause());
+
+        invoker.exception = new Exception("any");
+        assertSame(invoker.exception, invokeFailing(items.getMethod("any"), client));
+    }
+
+    @Test
+    public void genericSuperInterface() throws Exception {
+        Compilation compilation = Compilation.compile(true, "sample.Crud", CRUD, "sample.Users", USERS);
+        assertTrue(compilation.toString(), compilation.isSuccess());
+
+        String source = compilation.getGeneratedSource("sample.Users$$AtbashRestClient");
+        assertTrue(source, source.contains("public java.lang.String find(java.lang.Long arg0)"));
+        assertTrue(source, source.contains("public void save(java.lang.String arg0)"));
+        assertTrue(source, source.contains("public java.util.List<java.lang.String> all()"));
+
+        Class<?> users = compilation.getClassLoader().loadClass("sample.Users");
+        Object client = newInstance(users);
+
+        invoker.result = "user";
+        Method find = users.getMethod("find", Object.class);
+        assertEquals("user", find.invoke(client, 7L));
+        assertEquals(find, invoker.method);
+        assertEquals(Collections.singletonList(7L), Arrays.asList(invoker.args));
+    }
+
+    @Test
+    public void unsupportedInterfacesUseProxy() throws Exception {
+        Compilation compilation = Compilation.compile(true,
+                "sample.Generic", "package sample;\n" +
+                        "@org.eclipse.microprofile.rest.client.inject.RegisterRestClient\n" +
+                        "public interface Generic<T> {\n" +
+                        "    @javax.ws.rs.GET T get();\n" +
+                        "}\n",
+                "sample.Throwing", "package sample;\n" +
+                        "@org.eclipse.microprofile.rest.client.inject.RegisterRestClient\n" +
+                        "public interface Throwing {\n" +
+                        "    @javax.ws.rs.GET <E extends Exception> String get() throws E;\n" +
+                        "}\n");
+        assertTrue(compilation.toString(), compilation.isSuccess());
+
+        String warnings = compilation.getMessages(Diagnostic.Kind.WARNING).toString();
+        assertTrue(warnings, warnings.contains("the interface has type parameters"));
+        assertTrue(warnings, warnings.contains("method get throws a type variable"));
+        assertNull(compilation.getGeneratedSource("sample.Generic$$AtbashRestClient"));
+        assertNull(compilation.getGeneratedSource("sample.Throwing$$AtbashRestClient"));
+    }
+
+    private Object newInstance(Class<?> restClientInterface) throws Exception {
+        Class<?> implementation = restClientInterface.getClassLoader().loadClass(restClientInterface.getName() + ImplementationWriter.SUFFIX);
+        assertTrue(restClientInterface.isAssignableFrom(implementation));
+        return implementation.getConstructor(RestClientInvoker.class).newInstance(invoker);
+    }
+
+    private static Throwable invokeFailing(Method method, Object client) throws IllegalAccessException {
+        try {
+            method.invoke(client);
+            fail("Exception of the invoker isn't thrown");
+            return null;
+        } catch (InvocationTargetException e) {
+            return e.getCause();
+        }
+    }
+
+    /**
+     * Records the call which the generated method passes to the invoker.
+     */
+    private static class RecordingInvoker extends RestClientInvoker {
+
+        private Method method;
+        private Object[] args;
+        private Object result;
+        private Throwable exception;
+
+        RecordingInvoker() {
+            super((Client) null, "http://localhost", Collections.<LocalProviderInfo>emptyList(), new Method[0], null);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            this.method = method;
+            this.args = args;
+            if (exception != null) {
+                throw exception;
+            }
+            return result;
+        }
+    }
+}
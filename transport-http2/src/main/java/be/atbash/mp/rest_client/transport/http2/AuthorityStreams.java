@@ -0,0 +1,129 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.transport.http2;
+
+import java.net.http.HttpClient;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Keeps track of the streams in progress on each connection to one host and port. A request is sent on the
+ * connection with the fewest streams, when all connections reached the maximum number of concurrent streams the
+ * request waits (without blocking a thread) until a stream is finished.
+ * <p>
+ * The {@code HttpClient} only multiplexes the requests over one connection when HTTP/2 is used, with HTTP/1.1 it opens
+ * a connection for each request in progress. So until a response shows that the server speaks HTTP/2, the number of
+ * requests in progress for the host and port is limited to the maximum number of HTTP/1.1 connections.
+ */
+final class AuthorityStreams {
+
+    private final Http2Transport transport;
+    private final int maxConcurrentStreams;
+    private final int maxHttp1Connections;
+    private final int[] activeStreams;
+    private final Deque<Http2Exchange> waiting = new ArrayDeque<>();
+    private int totalActiveStreams;
+    // Null until the first response is received.
+    private HttpClient.Version version;
+
+    AuthorityStreams(Http2Transport transport, int connections, int maxConcurrentStreams, int maxHttp1Connections) {
+        this.transport = transport;
+        this.maxConcurrentStreams = maxConcurrentStreams;
+        this.maxHttp1Connections = maxHttp1Connections;
+        activeStreams = new int[connections];
+    }
+
+    void submit(Http2Exchange exchange) {
+        int connection;
+        synchronized (this) {
+            connection = leastUsedConnection();
+            if (connection == -1) {
+                waiting.addLast(exchange);
+                return;
+            }
+            activeStreams[connection]++;
+            totalActiveStreams++;
+        }
+        transport.send(connection, exchange, this);
+    }
+
+    /**
+     * The stream on the connection is finished, the connection is used for a waiting exchange if any.
+     */
+    void release(int connection) {
+        Http2Exchange next;
+        synchronized (this) {
+            next = waiting.pollFirst();
+            if (next == null) {
+                activeStreams[connection]--;
+                totalActiveStreams--;
+                return;
+            }
+        }
+        transport.send(connection, next, this);
+    }
+
+    /**
+     * The protocol used for a response. When the server turns out to speak HTTP/2, the waiting exchanges are sent
+     * as streams on the connections.
+     */
+    void protocolUsed(HttpClient.Version used) {
+        List<Runnable> toSend = new ArrayList<>();
+        synchronized (this) {
+            if (version == used) {
+                return;
+            }
+            version = used;
+            int connection;
+            while (!waiting.isEmpty() && (connection = leastUsedConnection()) != -1) {
+                Http2Exchange exchange = waiting.pollFirst();
+                activeStreams[connection]++;
+                totalActiveStreams++;
+                int selected = connection;
+                toSend.add(() -> transport.send(selected, exchange, this));
+            }
+        }
+        toSend.forEach(Runnable::run);
+    }
+
+    private int leastUsedConnection() {
+        if (version != HttpClient.Version.HTTP_2 && totalActiveStreams >= maxHttp1Connections) {
+            return -1;
+        }
+        int result = -1;
+        int streams = maxConcurrentStreams;
+        for (int i = 0; i < activeStreams.length; i++) {
+            if (activeStreams[i] < streams) {
+                result = i;
+                streams = activeStreams[i];
+            }
+        }
+        return result;
+    }
+
+    void failWaiting(Throwable throwable) {
+        List<Http2Exchange> exchanges;
+        synchronized (this) {
+            exchanges = new ArrayList<>(waiting);
+            waiting.clear();
+        }
+        for (Http2Exchange exchange : exchanges) {
+            exchange.fail(throwable);
+        }
+    }
+}
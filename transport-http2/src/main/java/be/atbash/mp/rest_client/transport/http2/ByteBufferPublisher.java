@@ -0,0 +1,68 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.transport.http2;
+
+import java.net.http.HttpRequest;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Publishes the remaining bytes of a (heap or direct) buffer as request body, without copying them to an array like
+ * {@code BodyPublishers.ofByteArray} requires.
+ */
+final class ByteBufferPublisher implements HttpRequest.BodyPublisher {
+
+    private final ByteBuffer buffer;
+
+    ByteBufferPublisher(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    @Override
+    public long contentLength() {
+        return buffer.remaining();
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+        // Each subscription (a retry or redirect resends the body) gets its own view on the bytes.
+        ByteBuffer bytes = buffer.duplicate();
+        AtomicBoolean done = new AtomicBoolean();
+        subscriber.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+                if (n <= 0) {
+                    if (done.compareAndSet(false, true)) {
+                        subscriber.onError(new IllegalArgumentException("Non-positive request: " + n));
+                    }
+                    return;
+                }
+                if (done.compareAndSet(false, true)) {
+                    if (bytes.hasRemaining()) {
+                        subscriber.onNext(bytes);
+                    }
+                    subscriber.onComplete();
+                }
+            }
+
+            @Override
+            public void cancel() {
+                done.set(true);
+            }
+        });
+    }
+}
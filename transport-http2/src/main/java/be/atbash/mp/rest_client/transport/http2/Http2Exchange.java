@@ -0,0 +1,122 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.transport.http2;
+
+import be.atbash.mp.rest_client.transport.TransportRequest;
+import be.atbash.mp.rest_client.transport.TransportResponse;
+
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * A request together with the future which receives the response.
+ */
+final class Http2Exchange {
+
+    private final TransportRequest request;
+    private final HttpRequest httpRequest;
+    private final CompletableFuture<TransportResponse> future;
+    // The response of the HttpClient and the entity of a streaming response, to abort when the transport is closed.
+    private volatile CompletableFuture<?> httpResponse;
+    private volatile InputStream entityStream;
+
+    Http2Exchange(TransportRequest request, HttpRequest httpRequest, CompletableFuture<TransportResponse> future) {
+        this.request = request;
+        this.httpRequest = httpRequest;
+        this.future = future;
+    }
+
+    HttpRequest getHttpRequest() {
+        return httpRequest;
+    }
+
+    /**
+     * The exchange has a stream on a connection.
+     */
+    void connectionAcquired() {
+        request.connectionAcquired();
+    }
+
+    boolean isStreamingResponse() {
+        return request.isStreamingResponse();
+    }
+
+    void sent(CompletableFuture<?> httpResponse) {
+        this.httpResponse = httpResponse;
+    }
+
+    void complete(HttpResponse<byte[]> response) {
+        future.complete(new TransportResponse(response.statusCode(), getReasonPhrase(response), getHeaders(response), response.body(),
+                request.getMessageBodyWorkers()));
+    }
+
+    void completeStreaming(HttpResponse<?> response, InputStream entityStream) {
+        this.entityStream = entityStream;
+        future.complete(new TransportResponse(response.statusCode(), getReasonPhrase(response), getHeaders(response), entityStream,
+                request.getMessageBodyWorkers()));
+    }
+
+    private static MultivaluedMap<String, String> getHeaders(HttpResponse<?> response) {
+        MultivaluedMap<String, String> headers = TransportResponse.newHeaders();
+        for (Map.Entry<String, List<String>> entry : response.headers().map().entrySet()) {
+            headers.addAll(entry.getKey(), entry.getValue());
+        }
+        return headers;
+    }
+
+    private static String getReasonPhrase(HttpResponse<?> response) {
+        // HTTP/2 has no reason phrase
+        Response.Status status = Response.Status.fromStatusCode(response.statusCode());
+        return status == null ? "" : status.getReasonPhrase();
+    }
+
+    /**
+     * Fails the exchange when the response isn't received yet and stops the transfer of the response.
+     */
+    void abort(Throwable throwable) {
+        fail(throwable);
+        CompletableFuture<?> response = httpResponse;
+        if (response != null) {
+            response.cancel(true);
+        }
+        InputStream stream = entityStream;
+        if (stream != null) {
+            try {
+                stream.close();
+            } catch (IOException e) {
+                // The transport is closed anyway
+            }
+        }
+    }
+
+    void fail(Throwable throwable) {
+        Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+        if (cause instanceof ProcessingException) {
+            future.completeExceptionally(cause);
+        } else {
+            future.completeExceptionally(new ProcessingException(String.format("%s failed: %s", request, cause.getMessage()), cause));
+        }
+    }
+}
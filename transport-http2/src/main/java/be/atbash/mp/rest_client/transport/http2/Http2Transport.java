@@ -0,0 +1,273 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.transport.http2;
+
+import be.atbash.mp.rest_client.transport.RequestBody;
+import be.atbash.mp.rest_client.transport.Transport;
+import be.atbash.mp.rest_client.transport.TransportRequest;
+import be.atbash.mp.rest_client.transport.TransportResponse;
+
+import javax.ws.rs.ProcessingException;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * HTTP/2 transport based on the {@code HttpClient} of Java 11. Requests to the same host and port are multiplexed
+ * over a configurable number of connections. For https URLs HTTP/2 is negotiated with ALPN, for http URLs (h2c) the
+ * first request upgrades the connection. When the server doesn't support HTTP/2, HTTP/1.1 is used and the
+ * {@code HttpClient} opens a connection for each request in progress (limited by {@link AuthorityStreams}).
+ */
+final class Http2Transport implements Transport {
+
+    // Managed by the HttpClient, setting them results in an IllegalArgumentException.
+    private static final Set<String> RESTRICTED_HEADERS = new HashSet<>(Arrays.asList("connection", "content-length", "expect", "host", "upgrade"));
+
+    private final Http2TransportConfiguration configuration;
+    private final ExecutorService executorService;
+    // With HTTP/2, each HttpClient has one connection to an authority, so the index within the array identifies the
+    // connection. With HTTP/1.1, it identifies the HttpClient which opens the connections.
+    private final HttpClient[] clients;
+    private final ConcurrentMap<String, AuthorityStreams> authorities = new ConcurrentHashMap<>();
+    // Sent and not yet completed (or with the entity of a streaming response not yet released).
+    private final Set<Http2Exchange> inProgress = ConcurrentHashMap.newKeySet();
+    private volatile boolean closed;
+
+    Http2Transport(Http2TransportConfiguration configuration) {
+        this.configuration = configuration;
+        executorService = Executors.newCachedThreadPool(new DaemonThreadFactory());
+        clients = new HttpClient[configuration.getConnectionsPerAuthority()];
+        for (int i = 0; i < clients.length; i++) {
+            HttpClient.Builder builder = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_2)
+                    .executor(executorService);
+            if (configuration.getConnectTimeout() > 0) {
+                builder.connectTimeout(Duration.ofMillis(configuration.getConnectTimeout()));
+            }
+            clients[i] = builder.build();
+        }
+    }
+
+    @Override
+    public CompletableFuture<TransportResponse> send(TransportRequest request) {
+        CompletableFuture<TransportResponse> result = new CompletableFuture<>();
+        if (closed) {
+            result.completeExceptionally(new ProcessingException("Transport is closed"));
+            return result;
+        }
+        URI uri = request.getUri();
+        String scheme = uri.getScheme() == null ? "" : uri.getScheme().toLowerCase(Locale.ENGLISH);
+        if (!("http".equals(scheme) || "https".equals(scheme)) || uri.getHost() == null) {
+            result.completeExceptionally(new ProcessingException(String.format("The http2 transport only supports http and https URLs, not '%s'", uri)));
+            return result;
+        }
+
+        Http2Exchange exchange;
+        try {
+            exchange = new Http2Exchange(request, toHttpRequest(request), result);
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e instanceof ProcessingException ? e : new ProcessingException(e));
+            return result;
+        }
+        getAuthorityStreams(scheme, uri).submit(exchange);
+        return result;
+    }
+
+    private HttpRequest toHttpRequest(TransportRequest request) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(request.getUri());
+        if (configuration.getRequestTimeout() > 0) {
+            builder.timeout(Duration.ofMillis(configuration.getRequestTimeout()));
+        }
+        for (Map.Entry<String, List<String>> entry : request.getHeaders().entrySet()) {
+            if (RESTRICTED_HEADERS.contains(entry.getKey().toLowerCase(Locale.ENGLISH))) {
+                continue;
+            }
+            for (String value : entry.getValue()) {
+                builder.header(entry.getKey(), value);
+            }
+        }
+        builder.method(request.getMethod(), toBodyPublisher(request.getBody()));
+        return builder.build();
+    }
+
+    static HttpRequest.BodyPublisher toBodyPublisher(RequestBody body) {
+        if (body == null) {
+            return HttpRequest.BodyPublishers.noBody();
+        }
+        if (body instanceof RequestBody.BytesBody) {
+            return new ByteBufferPublisher(((RequestBody.BytesBody) body).getBuffer());
+        }
+        if (body instanceof RequestBody.FileBody) {
+            try {
+                return HttpRequest.BodyPublishers.ofFile(((RequestBody.FileBody) body).getPath());
+            } catch (FileNotFoundException e) {
+                throw new ProcessingException(e);
+            }
+        }
+        if (body instanceof RequestBody.StreamBody) {
+            InputStream stream = ((RequestBody.StreamBody) body).getStream();
+            // The supplier is called for each subscription, the stream can only be read by the first one.
+            AtomicBoolean subscribed = new AtomicBoolean();
+            return HttpRequest.BodyPublishers.ofInputStream(() -> subscribed.compareAndSet(false, true) ? stream : new AlreadySentInputStream());
+        }
+        throw new ProcessingException(String.format("Request body %s is not supported by the http2 transport", body.getClass().getName()));
+    }
+
+    private AuthorityStreams getAuthorityStreams(String scheme, URI uri) {
+        int port = uri.getPort() == -1 ? ("https".equals(scheme) ? 443 : 80) : uri.getPort();
+        String authority = scheme + "://" + uri.getHost().toLowerCase(Locale.ENGLISH) + ':' + port;
+        AuthorityStreams result = authorities.get(authority);
+        if (result == null) {
+            result = authorities.computeIfAbsent(authority,
+                    k -> new AuthorityStreams(this, clients.length, configuration.getMaxConcurrentStreams(),
+                            configuration.getMaxHttp1Connections()));
+        }
+        return result;
+    }
+
+    /**
+     * Sends the exchange on the connection, the stream is released when the response is received.
+     */
+    void send(int connection, Http2Exchange exchange, AuthorityStreams authorityStreams) {
+        exchange.connectionAcquired();
+        if (!started(exchange)) {
+            authorityStreams.release(connection);
+            return;
+        }
+        if (exchange.isStreamingResponse()) {
+            sendStreaming(connection, exchange, authorityStreams);
+            return;
+        }
+        CompletableFuture<HttpResponse<byte[]>> response;
+        try {
+            response = clients[connection].sendAsync(exchange.getHttpRequest(), HttpResponse.BodyHandlers.ofByteArray());
+        } catch (RuntimeException e) {
+            finished(exchange);
+            authorityStreams.release(connection);
+            exchange.fail(e);
+            return;
+        }
+        exchange.sent(response);
+        response.whenComplete((httpResponse, throwable) -> {
+            finished(exchange);
+            if (httpResponse != null) {
+                authorityStreams.protocolUsed(httpResponse.version());
+            }
+            authorityStreams.release(connection);
+            if (throwable != null) {
+                exchange.fail(throwable);
+            } else {
+                exchange.complete(httpResponse);
+            }
+        });
+    }
+
+    /**
+     * Sends the exchange on the connection, the stream is released when the caller has read or closed the entity.
+     */
+    private void sendStreaming(int connection, Http2Exchange exchange, AuthorityStreams authorityStreams) {
+        CompletableFuture<HttpResponse<InputStream>> response;
+        try {
+            response = clients[connection].sendAsync(exchange.getHttpRequest(), HttpResponse.BodyHandlers.ofInputStream());
+        } catch (RuntimeException e) {
+            finished(exchange);
+            authorityStreams.release(connection);
+            exchange.fail(e);
+            return;
+        }
+        exchange.sent(response);
+        response.whenComplete((httpResponse, throwable) -> {
+            if (throwable != null) {
+                finished(exchange);
+                authorityStreams.release(connection);
+                exchange.fail(throwable);
+            } else {
+                authorityStreams.protocolUsed(httpResponse.version());
+                exchange.completeStreaming(httpResponse, new StreamReleasingInputStream(httpResponse.body(), () -> {
+                    finished(exchange);
+                    authorityStreams.release(connection);
+                }));
+            }
+        });
+    }
+
+    /**
+     * Registers the exchange as in progress, so that it is failed when the transport is closed. Returns false (and
+     * fails the exchange) when the transport is already closed.
+     */
+    private boolean started(Http2Exchange exchange) {
+        inProgress.add(exchange);
+        if (closed) {
+            // close() might have missed the exchange.
+            finished(exchange);
+            exchange.fail(new ProcessingException("Transport is closed"));
+            return false;
+        }
+        return true;
+    }
+
+    private void finished(Http2Exchange exchange) {
+        inProgress.remove(exchange);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        ProcessingException exception = new ProcessingException("Transport is closed");
+        for (AuthorityStreams authorityStreams : authorities.values()) {
+            authorityStreams.failWaiting(exception);
+        }
+        // The executor of the HttpClient stops, so their completion is never handled.
+        for (Http2Exchange exchange : new ArrayList<>(inProgress)) {
+            exchange.abort(exception);
+        }
+        inProgress.clear();
+        // HttpClient has no close() before Java 21, its connections are released when the instance is garbage collected.
+        executorService.shutdownNow();
+    }
+
+    /**
+     * Given to a second subscription to a stream body, which can only be sent once.
+     */
+    private static class AlreadySentInputStream extends InputStream {
+
+        @Override
+        public int read() throws IOException {
+            throw new IOException("The request body stream is already sent, it can't be sent again");
+        }
+    }
+
+    private static class DaemonThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread result = new Thread(runnable, "atbash-rest-client-http2-" + threadNumber.getAndIncrement());
+            result.setDaemon(true);
+            return result;
+        }
+    }
+}
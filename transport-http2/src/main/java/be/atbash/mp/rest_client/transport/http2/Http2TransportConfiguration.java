@@ -0,0 +1,104 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.transport.http2;
+
+import be.atbash.config.ConfigOptionalValue;
+
+/**
+ * Settings of the {@link Http2Transport}, read from the configuration.
+ */
+final class Http2TransportConfiguration {
+
+    static final String CONNECTIONS_PER_AUTHORITY = "atbash.rest.client.http2.connectionsPerAuthority";
+    static final String MAX_CONCURRENT_STREAMS = "atbash.rest.client.http2.maxConcurrentStreams";
+    static final String MAX_HTTP1_CONNECTIONS = "atbash.rest.client.http2.maxHttp1Connections";
+    static final String CONNECT_TIMEOUT = "atbash.rest.client.http2.connectTimeout";
+    static final String REQUEST_TIMEOUT = "atbash.rest.client.http2.requestTimeout";
+
+    private final int connectionsPerAuthority;
+    private final int maxConcurrentStreams;
+    private final int maxHttp1Connections;
+    private final long connectTimeout;
+    private final long requestTimeout;
+
+    Http2TransportConfiguration(int connectionsPerAuthority, int maxConcurrentStreams, int maxHttp1Connections, long connectTimeout, long requestTimeout) {
+        if (connectionsPerAuthority < 1) {
+            throw new IllegalArgumentException(String.format("Parameter %s must be at least 1", CONNECTIONS_PER_AUTHORITY));
+        }
+        if (maxConcurrentStreams < 1) {
+            throw new IllegalArgumentException(String.format("Parameter %s must be at least 1", MAX_CONCURRENT_STREAMS));
+        }
+        if (maxHttp1Connections < 1) {
+            throw new IllegalArgumentException(String.format("Parameter %s must be at least 1", MAX_HTTP1_CONNECTIONS));
+        }
+        this.connectionsPerAuthority = connectionsPerAuthority;
+        this.maxConcurrentStreams = maxConcurrentStreams;
+        this.maxHttp1Connections = maxHttp1Connections;
+        this.connectTimeout = connectTimeout;
+        this.requestTimeout = requestTimeout;
+    }
+
+    static Http2TransportConfiguration fromConfig() {
+        return new Http2TransportConfiguration(getValue(CONNECTIONS_PER_AUTHORITY, 1), getValue(MAX_CONCURRENT_STREAMS, 100),
+                getValue(MAX_HTTP1_CONNECTIONS, 32), getValue(CONNECT_TIMEOUT, 10000L), getValue(REQUEST_TIMEOUT, 0L));
+    }
+
+    private static int getValue(String key, int defaultValue) {
+        Integer value = ConfigOptionalValue.getValue(key, Integer.class);
+        return value == null ? defaultValue : value;
+    }
+
+    private static long getValue(String key, long defaultValue) {
+        Long value = ConfigOptionalValue.getValue(key, Long.class);
+        return value == null ? defaultValue : value;
+    }
+
+    /**
+     * Number of connections to a host and port over which the requests are multiplexed.
+     */
+    int getConnectionsPerAuthority() {
+        return connectionsPerAuthority;
+    }
+
+    /**
+     * Maximum number of streams (requests in progress) on one connection.
+     */
+    int getMaxConcurrentStreams() {
+        return maxConcurrentStreams;
+    }
+
+    /**
+     * Maximum number of requests in progress to a host and port which doesn't (or isn't known to) speak HTTP/2, the
+     * {@code HttpClient} opens a connection for each of them.
+     */
+    int getMaxHttp1Connections() {
+        return maxHttp1Connections;
+    }
+
+    /**
+     * In milliseconds, 0 means no timeout.
+     */
+    long getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    /**
+     * Maximum time in milliseconds to receive the response, 0 means no timeout.
+     */
+    long getRequestTimeout() {
+        return requestTimeout;
+    }
+}
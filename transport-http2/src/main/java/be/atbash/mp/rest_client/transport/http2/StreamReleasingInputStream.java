@@ -0,0 +1,69 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.transport.http2;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Entity of a streaming response. The stream of the connection is released when the entity is completely read or
+ * when the caller closes it, so that the response counts for the concurrent streams as long as it is transferred.
+ */
+final class StreamReleasingInputStream extends FilterInputStream {
+
+    private final Runnable release;
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    StreamReleasingInputStream(InputStream entityStream, Runnable release) {
+        super(entityStream);
+        this.release = release;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int result = super.read();
+        if (result == -1) {
+            release();
+        }
+        return result;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        int result = super.read(bytes, offset, length);
+        if (result == -1) {
+            release();
+        }
+        return result;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        } finally {
+            release();
+        }
+    }
+
+    private void release() {
+        if (released.compareAndSet(false, true)) {
+            release.run();
+        }
+    }
+}
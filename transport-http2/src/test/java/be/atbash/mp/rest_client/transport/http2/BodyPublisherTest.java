@@ -0,0 +1,87 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.transport.http2;
+
+import be.atbash.mp.rest_client.transport.RequestBody;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.net.http.HttpRequest;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class BodyPublisherTest {
+
+    @Test
+    public void bytesPublishedForEachSubscription() throws Exception {
+        HttpRequest.BodyPublisher publisher = Http2Transport.toBodyPublisher(RequestBody.of("bytes".getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(5, publisher.contentLength());
+        assertEquals("bytes", subscribe(publisher).get(5, TimeUnit.SECONDS));
+        assertEquals("bytes", subscribe(publisher).get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void streamPublishedOnce() throws Exception {
+        HttpRequest.BodyPublisher publisher = Http2Transport.toBodyPublisher(
+                RequestBody.of(new ByteArrayInputStream("stream".getBytes(StandardCharsets.UTF_8))));
+
+        assertEquals("stream", subscribe(publisher).get(5, TimeUnit.SECONDS));
+        CompletableFuture<String> second = subscribe(publisher);
+        try {
+            second.get(5, TimeUnit.SECONDS);
+            fail("A stream body can't be sent twice");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause().getMessage().contains("already sent"));
+        }
+    }
+
+    private static CompletableFuture<String> subscribe(HttpRequest.BodyPublisher publisher) {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        publisher.subscribe(new Flow.Subscriber<ByteBuffer>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(ByteBuffer item) {
+                byte[] bytes = new byte[item.remaining()];
+                item.get(bytes);
+                content.write(bytes, 0, bytes.length);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                result.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                result.complete(new String(content.toByteArray(), StandardCharsets.UTF_8));
+            }
+        });
+        return result;
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.transport.http2;
+
+import be.atbash.mp.rest_client.transport.MessageBodyWorkers;
+import be.atbash.mp.rest_client.transport.RequestBody;
+import be.atbash.mp.rest_client.transport.TransportRequest;
+import be.atbash.mp.rest_client.transport.TransportResponse;
+import org.junit.After;
+import org.junit.Test;
+
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.core.MultivaluedHashMap;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs against an HTTP/1.1 server, which ignores the h2c upgrade of the {@code HttpClient}.
+ */
+public class Http2TransportTest {
+
+    private Http2Transport transport;
+    private TestServer server;
+
+    @After
+    public void tearDown() throws IOException {
+        if (transport != null) {
+            transport.close();
+        }
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    @Test
+    public void requestsWaitForStream() throws Exception {
+        CountDownLatch proceed = new CountDownLatch(1);
+        AtomicInteger inProgress = new AtomicInteger();
+        AtomicInteger maxInProgress = new AtomicInteger();
+        server = new TestServer((socket, in, out, connection) -> {
+            String request;
+            while ((request = server.readRequest(in)) != null) {
+                maxInProgress.accumulateAndGet(inProgress.incrementAndGet(), Math::max);
+                await(proceed);
+                inProgress.decrementAndGet();
+                TestServer.respond(out, request.substring(0, request.indexOf('\n')));
+            }
+        });
+        transport = newTransport(1, 1, 10);
+
+        List<CompletableFuture<TransportResponse>> responses = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            responses.add(transport.send(request("GET", server.uri("/wait/" + i), null, false)));
+        }
+        Thread.sleep(300);
+        assertEquals(1, server.getRequests().size());
+
+        proceed.countDown();
+        for (int i = 0; i < 3; i++) {
+            assertEquals("GET /wait/" + i + " HTTP/1.1", responses.get(i).get(5, TimeUnit.SECONDS).readEntity(String.class));
+        }
+        assertEquals(1, maxInProgress.get());
+    }
+
+    @Test
+    public void http1ConnectionsLimited() throws Exception {
+        CountDownLatch proceed = new CountDownLatch(1);
+        server = new TestServer((socket, in, out, connection) -> {
+            String request;
+            while ((request = server.readRequest(in)) != null) {
+                await(proceed);
+                TestServer.respond(out, request.substring(0, request.indexOf('\n')));
+            }
+        });
+        // The streams would allow 100 requests in progress, each one a connection with HTTP/1.1.
+        transport = newTransport(1, 100, 2);
+
+        List<CompletableFuture<TransportResponse>> responses = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            responses.add(transport.send(request("GET", server.uri("/http1/" + i), null, false)));
+        }
+        Thread.sleep(300);
+        assertEquals(2, server.getRequests().size());
+
+        proceed.countDown();
+        for (CompletableFuture<TransportResponse> response : responses) {
+            assertEquals(200, response.get(5, TimeUnit.SECONDS).getStatus());
+        }
+        assertTrue(server.getConnections() <= 2);
+    }
+
+    @Test
+    public void streamReleasedWhenEntityIsRead() throws Exception {
+        server = new TestServer((socket, in, out, connection) -> {
+            String request;
+            while ((request = server.readRequest(in)) != null) {
+                TestServer.respond(out, request.substring(0, request.indexOf('\n')));
+            }
+        });
+        transport = newTransport(1, 1, 10);
+
+        TransportResponse streamed = send(request("GET", server.uri("/streamed"), null, true));
+        CompletableFuture<TransportResponse> next = transport.send(request("GET", server.uri("/next"), null, false));
+        Thread.sleep(300);
+        assertFalse("Stream is released before the entity is read", next.isDone());
+
+        try (InputStream stream = streamed.readEntity(InputStream.class)) {
+            assertEquals("GET /streamed HTTP/1.1", new String(stream.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        assertEquals("GET /next HTTP/1.1", next.get(5, TimeUnit.SECONDS).readEntity(String.class));
+    }
+
+    @Test
+    public void closeFailsRequestsInProgress() throws Exception {
+        CountDownLatch received = new CountDownLatch(1);
+        server = new TestServer((socket, in, out, connection) -> {
+            server.readRequest(in);
+            received.countDown();
+            // Never responds.
+            in.read();
+        });
+        transport = newTransport(1, 1, 10);
+
+        CompletableFuture<TransportResponse> inProgress = transport.send(request("GET", server.uri("/slow"), null, false));
+        CompletableFuture<TransportResponse> waiting = transport.send(request("GET", server.uri("/waiting"), null, false));
+        assertTrue(received.await(5, TimeUnit.SECONDS));
+        transport.close();
+
+        assertFailed(inProgress);
+        assertFailed(waiting);
+        assertFailed(transport.send(request("GET", server.uri("/closed"), null, false)));
+    }
+
+    @Test
+    public void requestBodies() throws Exception {
+        server = new TestServer((socket, in, out, connection) -> {
+            String request;
+            while ((request = server.readRequest(in)) != null) {
+                TestServer.respond(out, request.substring(request.indexOf('\n') + 1));
+            }
+        });
+        transport = newTransport(1, 100, 10);
+
+        assertEquals("bytes", post(RequestBody.of("bytes".getBytes(StandardCharsets.UTF_8))));
+        ByteBuffer direct = ByteBuffer.allocateDirect(16);
+        direct.put("direct".getBytes(StandardCharsets.UTF_8)).flip();
+        assertEquals("direct", post(RequestBody.of(direct)));
+
+        Path file = Files.createTempFile("http2", ".txt");
+        try {
+            Files.write(file, "file".getBytes(StandardCharsets.UTF_8));
+            assertEquals("file", post(RequestBody.of(file)));
+        } finally {
+            Files.delete(file);
+        }
+
+        assertEquals("stream", post(RequestBody.of(new ByteArrayInputStream("stream".getBytes(StandardCharsets.UTF_8)))));
+    }
+
+    private String post(RequestBody body) throws Exception {
+        MultivaluedHashMap<String, String> headers = new MultivaluedHashMap<>();
+        headers.putSingle("Content-Type", "text/plain");
+        TransportRequest request = new TransportRequest("POST", server.uri("/body"), headers, body, false, MessageBodyWorkers.defaults());
+        return send(request).readEntity(String.class);
+    }
+
+    private static void assertFailed(CompletableFuture<TransportResponse> future) throws InterruptedException {
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            fail("Request must fail when the transport is closed");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof ProcessingException);
+        } catch (TimeoutException e) {
+            fail("Request is never completed after the transport is closed");
+        }
+    }
+
+    private TransportResponse send(TransportRequest request) throws Exception {
+        return transport.send(request).get(5, TimeUnit.SECONDS);
+    }
+
+    private static TransportRequest request(String method, URI uri, String body, boolean streamingResponse) {
+        MultivaluedHashMap<String, String> headers = new MultivaluedHashMap<>();
+        if (body != null) {
+            headers.putSingle("Content-Type", "text/plain");
+        }
+        return new TransportRequest(method, uri, headers, body == null ? null : RequestBody.of(body.getBytes(StandardCharsets.UTF_8)),
+                streamingResponse, MessageBodyWorkers.defaults());
+    }
+
+    private static Http2Transport newTransport(int connections, int maxConcurrentStreams, int maxHttp1Connections) {
+        return new Http2Transport(new Http2TransportConfiguration(connections, maxConcurrentStreams, maxHttp1Connections, 2000, 0));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
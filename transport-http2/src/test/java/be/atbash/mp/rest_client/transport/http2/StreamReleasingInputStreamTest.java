@@ -0,0 +1,53 @@
+/*
+ * Copyright 2018 Rudy De Busscher (https://www.atbash.be)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.atbash.mp.rest_client.transport.http2;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+public class StreamReleasingInputStreamTest {
+
+    private final AtomicInteger releases = new AtomicInteger();
+
+    @Test
+    public void releasedOnceAtEnd() throws Exception {
+        InputStream stream = new StreamReleasingInputStream(new ByteArrayInputStream(new byte[]{1, 2, 3}), releases::incrementAndGet);
+
+        assertEquals(2, stream.read(new byte[2], 0, 2));
+        assertEquals(0, releases.get());
+        assertEquals(3, stream.read());
+        assertEquals(-1, stream.read());
+        assertEquals(1, releases.get());
+
+        stream.close();
+        assertEquals(1, releases.get());
+    }
+
+    @Test
+    public void releasedOnClose() throws Exception {
+        InputStream stream = new StreamReleasingInputStream(new ByteArrayInputStream(new byte[]{1, 2, 3}), releases::incrementAndGet);
+
+        assertEquals(1, stream.read());
+        stream.close();
+        stream.close();
+        assertEquals(1, releases.get());
+    }
+}